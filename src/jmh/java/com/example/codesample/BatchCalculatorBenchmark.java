@@ -0,0 +1,85 @@
+/**
+ * BatchCalculatorBenchmark
+ * This class compares calculating TDEE and BMI for a column of users one user at a time
+ * against the batch calculations.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchCalculatorBenchmark {
+    @Param({"1000000"})
+    public int users;
+
+    private double[] weights;
+    private double[] heights;
+    private int[] ages;
+    private char[] genders;
+    private int[] genderCodes;
+    private double[] activityLevels;
+    private double[] tdees;
+    private double[] bmis;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        weights = new double[users];
+        heights = new double[users];
+        ages = new int[users];
+        genders = new char[users];
+        genderCodes = new int[users];
+        activityLevels = new double[users];
+        tdees = new double[users];
+        bmis = new double[users];
+
+        for (int i = 0; i < users; i++) {
+            weights[i] = 40 + (random.nextDouble() * 120);
+            heights[i] = 140 + (random.nextDouble() * 70);
+            ages[i] = 18 + random.nextInt(70);
+            genders[i] = random.nextBoolean() ? 'm' : 'f';
+            genderCodes[i] = BatchCalculator.genderCode(genders[i]);
+            activityLevels[i] = 1.2 + (random.nextDouble() * .525);
+        }
+    }
+
+    @Benchmark
+    public double[] scalarTdee() {
+        for (int i = 0; i < users; i++) {
+            tdees[i] = UserSystem.calculateTdee(genders[i], ages[i], heights[i], weights[i], activityLevels[i]);
+        }
+        return tdees;
+    }
+
+    @Benchmark
+    public double[] batchTdee() {
+        BatchCalculator.calculateTdee(weights, heights, ages, genderCodes, activityLevels, tdees);
+        return tdees;
+    }
+
+    @Benchmark
+    public double[] scalarBmi() {
+        for (int i = 0; i < users; i++) {
+            bmis[i] = UserSystem.calculateBmi(heights[i], weights[i]);
+        }
+        return bmis;
+    }
+
+    @Benchmark
+    public double[] batchBmi() {
+        BatchCalculator.calculateBmi(heights, weights, bmis);
+        return bmis;
+    }
+}
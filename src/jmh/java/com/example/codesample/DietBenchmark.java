@@ -0,0 +1,112 @@
+/**
+ * DietBenchmark
+ * This class benchmarks the diet calculations done for every user: TDEE, BMI, diet plan creation,
+ * expected weight change, the diet details display and unit conversions.
+ * The diet details display is sent to a stream that discards it, so only the cost of formatting is measured.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DietBenchmark {
+    private PrintStream console;
+
+    private Person person;
+    private Diet diet;
+    private final WeightProjection projection = new WeightProjection();
+    private char gender;
+    private int age;
+    private double height;
+    private double weight;
+    private double activityLevel;
+    private int calorieOffset;
+
+    @Setup
+    public void setup() {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        person = new Person("Jose", 'm', 180.34, 73.46, 23);
+        diet = UserSystem.createDiet(person, 1.375, 1);
+        gender = 'm';
+        age = 23;
+        height = 180.34;
+        weight = 73.46;
+        activityLevel = 1.375;
+        calorieOffset = 500;
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public double calculateTdee() {
+        return UserSystem.calculateTdee(gender, age, height, weight, activityLevel);
+    }
+
+    @Benchmark
+    public double calculateBmi() {
+        return UserSystem.calculateBmi(height, weight);
+    }
+
+    @Benchmark
+    public Diet createDiet() {
+        return UserSystem.createDiet(person, activityLevel, 1);
+    }
+
+    @Benchmark
+    public double[] calculateWeightChange() {
+        return diet.calculateWeightChange(calorieOffset);
+    }
+
+    @Benchmark
+    public WeightProjection projectWeightChange() {
+        return diet.projectWeightChange(projection);
+    }
+
+    @Benchmark
+    public DietPlan getPlan() {
+        return diet.getPlan();
+    }
+
+    @Benchmark
+    public void displayDietdetails() {
+        diet.displayDietdetails();
+    }
+
+    @Benchmark
+    public double feetAndInchesToCm() {
+        return Conversions.feetAndInchesToCm(age / 4, age % 12);
+    }
+
+    @Benchmark
+    public double poundsToKilograms() {
+        return Conversions.poundsToKilograms(weight);
+    }
+
+    @Benchmark
+    public double kilogramsToPounds() {
+        return Conversions.kilogramsToPounds(weight);
+    }
+
+    @Benchmark
+    public int cmToinches() {
+        return Conversions.cmToinches(height);
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * FoodDatabaseBenchmark
+ * This class times opening a large food database and type-ahead searches against it.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FoodDatabaseBenchmark {
+    private static final String[] WORDS = {"apple", "apricot", "bean", "beef", "bread", "broccoli", "butter",
+            "cheese", "chicken", "chickpea", "cod", "corn", "egg", "lentil", "milk", "oat", "pasta", "pork",
+            "potato", "rice", "rye", "salmon", "soy", "spinach", "tofu", "tuna", "turkey", "wheat", "yogurt"};
+    private static final String[] PREFIXES = {"c", "ch", "chi", "chick", "chicken", "chicken r", "rice bean 1", "tuna"};
+
+    @Param({"300000"})
+    public int foods;
+
+    private File file;
+    private FoodDatabase database;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < foods; i++) {
+            csv.append(WORDS[random.nextInt(WORDS.length)]).append(' ').append(WORDS[random.nextInt(WORDS.length)])
+                    .append(' ').append(random.nextInt(1000)).append(',').append(random.nextInt(900))
+                    .append(',').append(random.nextInt(100)).append(',').append(random.nextInt(100))
+                    .append(',').append(random.nextInt(100)).append('\n');
+        }
+        file = File.createTempFile("foods", ".db");
+        FoodDatabase.create(new StringReader(csv.toString()), file);
+        database = new FoodDatabase(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        database.close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    /**
+     * Timed one open at a time: a mapping is only released when it is garbage collected, so opening
+     * in a tight loop runs out of mappings long before it runs out of time.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 20)
+    public int open() throws IOException {
+        try (FoodDatabase opened = new FoodDatabase(file)) {
+            return opened.size();
+        }
+    }
+
+    /**
+     * Type-ahead: the first ten matches with their names.
+     */
+    @Benchmark
+    public int search() {
+        String prefix = PREFIXES[next++ & 7];
+        int length = 0;
+        for (int id : database.search(prefix, 10)) {
+            length += database.getName(id).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int find() {
+        return database.find("chicken rice 500");
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * MealPlannerBenchmark
+ * This class times solving meal plans for every diet across the calorie range against
+ * looking up an already solved plan.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MealPlannerBenchmark {
+    private MealPlanner shared;
+    private DietPlan dietPlan;
+
+    @Setup
+    public void setup() {
+        shared = new MealPlanner(FoodTable.standard());
+        dietPlan = UserSystem.createDiet(new Person("Jose", 'm', 180.34, 73.46, 23), 1.375, 1).getPlan();
+        shared.plan(dietPlan);
+    }
+
+    /**
+     * Solves one plan for each macro diet every 50 calories from 1200 to 4500.
+     */
+    @Benchmark
+    public int solveAll() {
+        MealPlanner planner = new MealPlanner(FoodTable.standard());
+        for (MacroDiets macroDiet : MacroDiets.values()) {
+            for (int calories = 1200; calories <= 4500; calories += 50) {
+                planner.plan((int) (macroDiet.getCarbs() * calories) / 4,
+                        (int) (macroDiet.getProtein() * calories) / 4, (int) (macroDiet.getFat() * calories) / 9);
+            }
+        }
+        return planner.size();
+    }
+
+    @Benchmark
+    public MealPlan sharedPlan() {
+        return shared.plan(dietPlan);
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * PackedUserMapBenchmark
+ * This class compares looking up users in a PackedUserMap against a HashMap keyed by String,
+ * for usernames that are stored and usernames that are not, and prints the heap each map retains.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class PackedUserMapBenchmark {
+    private static final int LOOKUPS = 1 << 16;
+
+    @Param({"1000000"})
+    public int users;
+
+    private PackedUserMap packedMap;
+    private Map<String, User> hashMap;
+    /**
+     * Usernames looked up, as new strings so their hash codes are not shared with the stored keys.
+     */
+    private String[] stored;
+    private String[] missing;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Person person = new Person("Name", 'f', 165, 60, 30);
+        Diet diet = UserSystem.createDiet(person, 1.375, 2);
+        User[] userArray = new User[users];
+        for (int i = 0; i < users; i++) {
+            userArray[i] = new User("u" + i, person, diet);
+        }
+
+        // keys are strings of their own, as when HeapUserStore maps a user decoded for a retrieval
+        long before = usedHeap();
+        hashMap = new HashMap<>();
+        for (User user : userArray) {
+            hashMap.put(new String(user.getUserName()), user);
+        }
+        long hashMapBytes = usedHeap() - before;
+
+        before = usedHeap();
+        packedMap = new PackedUserMap();
+        for (User user : userArray) {
+            packedMap.put(user.getUserName(), user);
+        }
+        long packedMapBytes = usedHeap() - before;
+        System.out.printf("%nHashMap %.1f bytes per user, PackedUserMap %.1f bytes per user%n",
+                (double) hashMapBytes / users, (double) packedMapBytes / users);
+
+        Random random = new Random(42);
+        stored = new String[LOOKUPS];
+        missing = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            stored[i] = new String("u" + random.nextInt(users));
+            missing[i] = new String("x" + random.nextInt(users));
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public User packedMapHit() {
+        return packedMap.get(stored[next++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public User hashMapHit() {
+        return hashMap.get(stored[next++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public User packedMapMiss() {
+        return packedMap.get(missing[next++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public User hashMapMiss() {
+        return hashMap.get(missing[next++ & (LOOKUPS - 1)]);
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * ParallelLoadBenchmark
+ * This class benchmarks loading a users file and decoding every user, comparing the parallel
+ * decoding of whole segments against retrieving the users one by one through the index.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class ParallelLoadBenchmark {
+    @Param({"10000", "100000", "1000000", "5000000"})
+    public int users;
+
+    private File directory;
+    private File loadFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("ParallelLoadBenchmark").toFile();
+        loadFile = new File(directory, "Load.dat");
+        HeapUserStore store = new HeapUserStore(loadFile);
+        for (int i = 0; i < users; i++) {
+            Person person = new Person("Name" + i, (i % 2 == 0) ? 'm' : 'f', 150 + (i % 50), 50 + (i % 60), 18 + (i % 60));
+            store.put(new User("u" + i, person, UserSystem.createDiet(person, 1.375, 1 + (i % 2))));
+        }
+        store.save();
+        store.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public int sequentialLoad() throws IOException {
+        try (HeapUserStore store = new HeapUserStore(loadFile)) {
+            store.load();
+            for (int i = 0; i < users; i++) {
+                store.get("u" + i);
+            }
+            return store.heapSize();
+        }
+    }
+
+    @Benchmark
+    public int parallelLoad() throws IOException {
+        try (HeapUserStore store = new HeapUserStore(loadFile)) {
+            store.load();
+            store.preload();
+            return store.heapSize();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * PersistenceBenchmark
+ * This class benchmarks saving and loading the users file. Loading only maps the username index,
+ * so loading and then decoding every user is measured separately.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class PersistenceBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int users;
+
+    private File directory;
+    private UserSystem userSystem;
+    private File loadFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("PersistenceBenchmark").toFile();
+        userSystem = new UserSystem(new File(directory, "Save.dat"));
+        for (int i = 0; i < users; i++) {
+            Person person = new Person("Name" + i, (i % 2 == 0) ? 'm' : 'f', 150 + (i % 50), 50 + (i % 60), 18 + (i % 60));
+            userSystem.storeNew(new User("u" + i, person, UserSystem.createDiet(person, 1.375, 1 + (i % 2))));
+        }
+
+        loadFile = new File(directory, "Load.dat");
+        HeapUserStore store = new HeapUserStore(loadFile);
+        for (int i = 0; i < users; i++) {
+            Person person = new Person("Name" + i, 'f', 165, 60, 30);
+            store.put(new User("u" + i, person, UserSystem.createDiet(person, 1.375, 2)));
+        }
+        store.save();
+        store.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        userSystem.close();
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public void saveUsers() {
+        userSystem.saveUsers();
+    }
+
+    @Benchmark
+    public int loadUsers() throws IOException {
+        try (HeapUserStore store = new HeapUserStore(loadFile)) {
+            store.load();
+            return store.size();
+        }
+    }
+
+    @Benchmark
+    public List<User> loadAndDecodeUsers() throws IOException {
+        try (HeapUserStore store = new HeapUserStore(loadFile)) {
+            store.load();
+            return store.snapshot();
+        }
+    }
+}
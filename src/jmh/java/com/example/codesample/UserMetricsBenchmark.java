@@ -0,0 +1,59 @@
+/**
+ * UserMetricsBenchmark
+ * This class measures what metrics add to retrieving a user, with metrics disabled and enabled.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMetricsBenchmark {
+    private static final int USERS = 1024;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private File directory;
+    private UserSystem userSystem;
+    private String[] userNames;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("UserMetricsBenchmark").toFile();
+        userSystem = new UserSystem(new File(directory, "Users.dat"));
+        userNames = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            userNames[i] = "user" + i;
+            userSystem.addUser(userNames[i], new Person("Name" + i, 'f', 165, 60, 30), 2, 1.375);
+        }
+        if (metrics) {
+            userSystem.enableMetrics();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        userSystem.close();
+        directory.delete();
+    }
+
+    @Benchmark
+    public User retrieveUser() {
+        return userSystem.retrieveUser(userNames[next++ & (USERS - 1)]);
+    }
+}
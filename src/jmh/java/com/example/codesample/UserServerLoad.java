@@ -0,0 +1,119 @@
+/**
+ * UserServerLoad
+ * This class load tests UserServer on the loopback interface and reports requests per second and
+ * latency percentiles. Each client thread keeps one connection alive and sends a mix of
+ * 80% retrievals and 20% macro diet changes to random users.
+ *
+ * java -Dsun.net.httpserver.nodelay=true -cp target/benchmarks.jar com.example.codesample.UserServerLoad
+ *      [clients] [seconds] [users] [serverThreads]
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+public final class UserServerLoad {
+    private UserServerLoad() {
+        throw new AssertionError("Cannot Instantiate UserServerLoad...");
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = (args.length > 0) ? Integer.parseInt(args[0]) : 16;
+        int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        int users = (args.length > 2) ? Integer.parseInt(args[2]) : 10_000;
+        int serverThreads = (args.length > 3) ? Integer.parseInt(args[3]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+
+        File directory = Files.createTempDirectory("UserServerLoad").toFile();
+        UserSystem userSystem = new UserSystem(new File(directory, "Users.dat"));
+        for (int i = 0; i < users; i++) {
+            userSystem.addUser("u" + i, new Person("Name" + i, (i % 2 == 0) ? 'm' : 'f', 170, 70, 30), 1 + (i % 2), 1.375);
+        }
+
+        try (UserServer server = new UserServer(userSystem, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), serverThreads)) {
+            server.start();
+            String base = "http://localhost:" + server.getPort() + "/users/u";
+
+            // Warm up for a third of the run, then measure
+            run(base, clients, Math.max(1, seconds / 3), users);
+            long[][] latencies = run(base, clients, seconds, users);
+
+            long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            System.out.printf("clients=%d serverThreads=%d users=%d seconds=%d%n", clients, serverThreads, users, seconds);
+            System.out.printf("requests=%d throughput=%.0f req/s p50=%.3f ms p99=%.3f ms p999=%.3f ms max=%.3f ms%n",
+                    all.length, all.length / (double) seconds, percentile(all, .50), percentile(all, .99),
+                    percentile(all, .999), all[all.length - 1] / 1e6);
+        } finally {
+            userSystem.close();
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    /**
+     * Runs every client for the given time and returns each client's request latencies in nanoseconds.
+     */
+    private static long[][] run(String base, int clients, int seconds, int users) throws InterruptedException {
+        long[][] latencies = new long[clients][];
+        Thread[] threads = new Thread[clients];
+        long end = System.nanoTime() + (seconds * 1_000_000_000L);
+
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            threads[c] = new Thread(() -> latencies[client] = runClient(base, end, users));
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return latencies;
+    }
+
+    private static long[] runClient(String base, long end, int users) {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[1 << 16];
+        int count = 0;
+
+        try {
+            while (System.nanoTime() < end) {
+                String user = base + random.nextInt(users);
+                HttpRequest request = (random.nextInt(5) == 0)
+                        ? HttpRequest.newBuilder(URI.create(user + "/macro-diet"))
+                        .PUT(HttpRequest.BodyPublishers.ofString("{\"option\":" + (1 + random.nextInt(4)) + "}")).build()
+                        : HttpRequest.newBuilder(URI.create(user)).GET().build();
+
+                long start = System.nanoTime();
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                long latency = System.nanoTime() - start;
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Unexpected status " + response.statusCode());
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = latency;
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))] / 1e6;
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * UserSystemBenchmark
+ * This class benchmarks signing up users through addUser, with messages discarded by the default sink
+ * and with messages written by a console sink to a stream that discards them.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserSystemBenchmark {
+    @Param({"false", "true"})
+    public boolean consoleOutput;
+
+    private File directory;
+    private ConsoleSink console;
+    private UserSystem userSystem;
+    private Person person;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        directory = Files.createTempDirectory("UserSystemBenchmark").toFile();
+        console = new ConsoleSink(OutputStream.nullOutputStream(), StandardCharsets.UTF_8);
+        person = new Person("Jose", 'm', 180.34, 73.46, 23);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        userSystem = new UserSystem(new File(directory, "Users.dat"));
+        if (consoleOutput) {
+            userSystem.setOutputSink(console);
+        }
+        next = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+        console.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        console.close();
+        directory.delete();
+    }
+
+    @Benchmark
+    public User addUser() {
+        return userSystem.addUser(Integer.toString(next++, 36), person, 1, 1.375);
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * WeightLogBenchmark
+ * This class times appending a day of weights for a population and reading back a user's history.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WeightLogBenchmark {
+    private static final LocalDate START = LocalDate.of(2019, 1, 1);
+
+    @Param({"100000"})
+    public int users;
+
+    @Param({"365"})
+    public int days;
+
+    private WeightLog log;
+    private String[] userNames;
+    private LocalDate next;
+    private int user;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        log = new WeightLog();
+        userNames = new String[users];
+        double[] weights = new double[users];
+        for (int i = 0; i < users; i++) {
+            userNames[i] = "user" + i;
+            weights[i] = 50 + random.nextInt(60);
+        }
+        for (int day = 0; day < days; day++) {
+            for (int i = 0; i < users; i++) {
+                weights[i] += random.nextGaussian() * .3;
+                log.append(userNames[i], START.plusDays(day), weights[i]);
+            }
+        }
+        next = START.plusDays(days);
+        System.out.printf("%n%.2f bytes per entry%n", (double) log.encodedBytes() / ((long) users * days));
+    }
+
+    /**
+     * Logs one more day for every user.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public LocalDate appendDay() {
+        for (String userName : userNames) {
+            log.append(userName, next, 75);
+        }
+        next = next.plusDays(1);
+        return next;
+    }
+
+    @Benchmark
+    public double rollingAverage() {
+        return log.rollingAverage(userNames[user++ % users], START.plusDays(days - 1), 30);
+    }
+
+    @Benchmark
+    public double[] yearOfAverages() {
+        return log.rollingAverages(userNames[user++ % users], START, START.plusDays(days - 1), 7);
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * WeightSimulatorBenchmark
+ * This class times a nightly simulation of a large population, one year of days per user.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WeightSimulatorBenchmark {
+    @Param({"1000000"})
+    public int users;
+
+    @Param({"365"})
+    public int days;
+
+    @Param({"FIXED_INTAKE", "FIXED_PERCENTAGE"})
+    public WeightSimulator.Policy policy;
+
+    private WeightSimulator.Population population;
+    private WeightSimulator simulator;
+    private double[] finalWeights;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        population = new WeightSimulator.Population(users);
+        for (int i = 0; i < users; i++) {
+            double weight = 40 + (random.nextDouble() * 120);
+            double height = 140 + (random.nextDouble() * 70);
+            int age = 18 + random.nextInt(70);
+            int gender = random.nextBoolean() ? BatchCalculator.MALE : BatchCalculator.FEMALE;
+            double activityLevel = 1.2 + (random.nextDouble() * .525);
+            double tdee = UserSystem.calculateTdee(gender == BatchCalculator.MALE ? 'm' : 'f', age, height, weight, activityLevel);
+            population.add(weight, height, age, gender, activityLevel, tdee,
+                    random.nextBoolean() ? tdee + BulkingDiet.REGULAR_SURPLUS : tdee * (1 - CuttingDiet.DEFAULT_DEFICIT));
+        }
+        simulator = new WeightSimulator(policy, days);
+        finalWeights = new double[users];
+    }
+
+    @Benchmark
+    public double[] simulate() {
+        simulator.simulate(population, finalWeights);
+        return finalWeights;
+    }
+}
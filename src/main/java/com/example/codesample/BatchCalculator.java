@@ -0,0 +1,111 @@
+/**
+ * BatchCalculator
+ * This class calculates TDEE and BMI for whole columns of users at once, for population-wide
+ * recalculation and reports. Inputs and outputs are parallel primitive arrays, one element per user.
+ *
+ * The loops have no branches and no calls so the JIT can unroll and vectorize them, and they use
+ * the same formulas in the same order of operations as UserSystem, so every result is identical
+ * to calculating the user on its own.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+public final class BatchCalculator {
+    /**
+     * Gender codes used in the gender column.
+     */
+    public static final int FEMALE = 0;
+    public static final int MALE = 1;
+
+    /**
+     * Calories added to the BMR of a woman, and the extra calories added for a man.
+     */
+    private static final double FEMALE_OFFSET = -161;
+    private static final double MALE_EXTRA = 166;
+
+    private BatchCalculator() {
+        throw new AssertionError("Cannot Instantiate BatchCalculator...");
+    }
+
+    /**
+     * Converts a gender as stored in Person to its gender column code.
+     *
+     * @param gender 'm' or 'f', in either case
+     * @return MALE or FEMALE
+     * @throws InvalidInputException If the gender is neither
+     */
+    public static int genderCode(char gender) {
+        switch (Character.toLowerCase(gender)) {
+            case 'm':
+                return MALE;
+            case 'f':
+                return FEMALE;
+            default:
+                throw new InvalidInputException("Not a valid gender");
+        }
+    }
+
+    /**
+     * Calculates the TDEE of every user.
+     *
+     * @param weights        Weights (in kg)
+     * @param heights        Heights (in cm)
+     * @param ages           Ages
+     * @param genders        Gender codes, MALE or FEMALE
+     * @param activityLevels Activity levels
+     * @param tdees          Array filled with the TDEE of every user
+     * @throws IllegalArgumentException If the arrays are not all the same length
+     */
+    public static void calculateTdee(double[] weights, double[] heights, int[] ages, int[] genders,
+                                     double[] activityLevels, double[] tdees) {
+        int length = tdees.length;
+        checkLength(length, weights.length, heights.length, ages.length, genders.length, activityLevels.length);
+        calculateTdee(weights, heights, ages, genders, activityLevels, tdees, 0, length);
+    }
+
+    /**
+     * Calculates the TDEE of the users from index from (inclusive) to index to (exclusive).
+     */
+    public static void calculateTdee(double[] weights, double[] heights, int[] ages, int[] genders,
+                                     double[] activityLevels, double[] tdees, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double bmr = (10 * weights[i]) + (6.25 * heights[i]) - (5 * ages[i]);
+            tdees[i] = activityLevels[i] * (bmr + (FEMALE_OFFSET + (MALE_EXTRA * genders[i])));
+        }
+    }
+
+    /**
+     * Calculates the BMI of every user.
+     *
+     * @param heights Heights (in cm)
+     * @param weights Weights (in kg)
+     * @param bmis    Array filled with the BMI of every user
+     * @throws IllegalArgumentException If the arrays are not all the same length
+     */
+    public static void calculateBmi(double[] heights, double[] weights, double[] bmis) {
+        int length = bmis.length;
+        checkLength(length, heights.length, weights.length);
+        calculateBmi(heights, weights, bmis, 0, length);
+    }
+
+    /**
+     * Calculates the BMI of the users from index from (inclusive) to index to (exclusive).
+     */
+    public static void calculateBmi(double[] heights, double[] weights, double[] bmis, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double cmToMeters = heights[i] / 100;
+            bmis[i] = weights[i] / (cmToMeters * cmToMeters);
+        }
+    }
+
+    private static void checkLength(int expected, int... lengths) {
+        for (int length : lengths) {
+            if (length != expected) {
+                throw new IllegalArgumentException("Columns must all hold " + expected + " users, found " + length);
+            }
+        }
+    }
+}
@@ -14,25 +14,39 @@ public class BulkingDiet extends Diet {
      * Returns true if user is lean bulking.
      * Calorie surplus is less when lean bulking
      */
-    private boolean leanBulking;
+    private volatile boolean leanBulking;
     /**
      * Daily calorie intake factoring in added surplus of calories for bulk.
      */
-    private double increasedCalories;
+    private volatile double increasedCalories;
     /**
      * Surplus to be added to a user's calorie intake.
      */
-    private int surplusCalories;
+    private volatile int surplusCalories;
+
+    /**
+     * Calorie surplus of a regular bulk and of a lean bulk.
+     */
+    static final int REGULAR_SURPLUS = 500;
+    static final int LEAN_SURPLUS = 250;
 
     private static final long serialVersionUID = 1L;
 
     public BulkingDiet(double tdee, double bmi, MacroDiets diet) {
         super(tdee, bmi, true, diet);
-        this.surplusCalories = 500;
+        this.surplusCalories = REGULAR_SURPLUS;
         this.increasedCalories = tdee + surplusCalories;
         this.leanBulking = false;
+    }
 
-        System.out.println("Bulking diet plan created. Calorie surplus set to 500");
+    /**
+     * Restores a stored bulking diet plan.
+     */
+    BulkingDiet(double tdee, double bmi, MacroDiets diet, int surplusCalories) {
+        super(tdee, bmi, true, diet);
+        this.surplusCalories = surplusCalories;
+        this.increasedCalories = tdee + surplusCalories;
+        this.leanBulking = surplusCalories < REGULAR_SURPLUS;
     }
 
     /**
@@ -40,14 +54,14 @@ public class BulkingDiet extends Diet {
      */
     @Override
     public void expectedProgress() {
-        double[] expectedWeekMonthYear = calculateWeightChange(surplusCalories);
+        WeightProjection projection = new WeightProjection().project(surplusCalories);
 
         System.out.printf("Expected weight gained in a week: %.2f lbs %.2f kg %n"
                         + "Expected weight gained in a month: %.2f lbs %.2f kg %n"
                         + "Expected weight gained in a year: %.2f lbs % .2f kg  %n",
-                expectedWeekMonthYear[0], Conversions.poundsToKilograms(expectedWeekMonthYear[0]),
-                expectedWeekMonthYear[1], Conversions.poundsToKilograms(expectedWeekMonthYear[1]),
-                expectedWeekMonthYear[2], Conversions.poundsToKilograms(expectedWeekMonthYear[2]));
+                projection.getWeekPounds(), projection.getWeekKilograms(),
+                projection.getMonthPounds(), projection.getMonthKilograms(),
+                projection.getYearPounds(), projection.getYearKilograms());
 
         System.out.println("divide values by half to get approximate expected muscle gain");
 
@@ -57,28 +71,34 @@ public class BulkingDiet extends Diet {
      * Changes a user's daily calorie intake to lean bulking/regular bulking.
      * depending on their current calorie surplus.
      * @param option Integer denoting calorie intake option user chooses
+     * @return True if the surplus was switched, false if no action was taken
      */
     @Override
-    public void changeCalorieIntake(int option) {
-        switch (option) {
-            case 1:
-                if (!this.leanBulking) {
-                    this.surplusCalories = 250;
-                    System.out.println("Switched to a lean bulking plan. surplus is now " + surplusCalories + " calories");
-                    this.leanBulking = true;
-                } else {
-                    this.surplusCalories = 500;
-                    System.out.println("Switched to a regular bulking plan. Surplus is now " + surplusCalories + " calories");
-                    this.leanBulking = false;
-                }
-                break;
-            case 2:
-                System.out.println("No Action Taken");
-                break;
-            default:
-                System.out.println("Not a valid option. No Action");
+    public boolean changeCalorieIntake(int option) {
+        synchronized (lock()) {
+            return applyCalorieIntake(option);
+        }
+    }
+
+    private boolean applyCalorieIntake(int option) {
+        if (option != 1) {
+            return false;
+        }
+        if (!this.leanBulking) {
+            this.surplusCalories = LEAN_SURPLUS;
+            this.leanBulking = true;
+        } else {
+            this.surplusCalories = REGULAR_SURPLUS;
+            this.leanBulking = false;
         }
         this.increasedCalories = getTdee() + surplusCalories;
+        changed();
+        return true;
+    }
+
+    @Override
+    public String displayCalorieOffset() {
+        return (this.leanBulking ? "Lean" : "Regular") + " bulking plan. Surplus is " + surplusCalories + " calories";
     }
 
     /**
@@ -102,5 +122,10 @@ public class BulkingDiet extends Diet {
     public double getDailyCalories() {
         return increasedCalories;
     }
+
+    @Override
+    public int getCalorieOffset() {
+        return surplusCalories;
+    }
 }
 
@@ -0,0 +1,222 @@
+/**
+ * Checkpointer
+ * This class saves a UserSystem's users in the background at a fixed interval whenever they have
+ * changed since the last save, and once more when the program shuts down, so a crash or a kill
+ * loses at most one interval of changes.
+ *
+ * Checkpoints run on their own thread. The store writes a temporary file which then atomically
+ * replaces its file, and only copying the user map holds locks that request threads wait for.
+ * The duration and size of every checkpoint are recorded for monitoring. Checkpoints are serialised on
+ * their own lock and only publish their metrics under this, so isDirty and the metrics never wait
+ * for a checkpoint being written.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class Checkpointer implements UserListener, Closeable {
+    private final UserSystem userSystem;
+    private final ScheduledExecutorService scheduler;
+    /**
+     * Saves changes made since the last checkpoint when the JVM shuts down.
+     */
+    private final Thread shutdownHook;
+    /**
+     * Number of changes made to users, and the number already saved by a checkpoint.
+     */
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long savedChanges;
+    /**
+     * Held while a checkpoint is written, so only one runs at a time.
+     */
+    private final Object checkpointLock = new Object();
+    /**
+     * Guarded by checkpointLock.
+     */
+    private boolean closed;
+
+    // metrics, guarded by this
+    private long checkpoints;
+    private long failures;
+    private long lastDurationNanos;
+    private long maxDurationNanos;
+    private long totalDurationNanos;
+    private long lastBytesWritten;
+    private long totalBytesWritten;
+    private IOException lastFailure;
+
+    /**
+     * Starts checkpointing a UserSystem's changes.
+     *
+     * @param userSystem Users to save
+     * @param interval   Time between checks for changes to save
+     */
+    public Checkpointer(UserSystem userSystem, Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        this.userSystem = userSystem;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.shutdownHook = new Thread(() -> {
+            try {
+                checkpointIfChanged();
+            } catch (IOException e) {
+                System.err.println("Could not save users on shutdown: " + e.getMessage());
+            }
+        }, "user-checkpointer-shutdown");
+
+        userSystem.addListener(this);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                checkpointIfChanged();
+            } catch (IOException e) {
+                // recorded in the metrics, the next interval tries again
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void userAdded(User user) {
+        changes.incrementAndGet();
+    }
+
+    @Override
+    public void userDeleted(User user) {
+        changes.incrementAndGet();
+    }
+
+    @Override
+    public void userChanged(User user) {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * @return True if users have changed since the last checkpoint started
+     */
+    public boolean isDirty() {
+        return changes.get() != savedChanges;
+    }
+
+    /**
+     * Saves the users now if they have changed since the last checkpoint started.
+     * Changes made while a checkpoint runs are saved by the next one.
+     *
+     * @return True if a checkpoint was written
+     * @throws IOException If the users cannot be written
+     */
+    public boolean checkpointIfChanged() throws IOException {
+        synchronized (checkpointLock) {
+            long seen = changes.get();
+            if (closed || (seen == savedChanges)) {
+                return false;
+            }
+
+            long start = System.nanoTime();
+            long bytes;
+            try {
+                bytes = userSystem.checkpoint();
+            } catch (IOException | RuntimeException e) {
+                IOException failure = (e instanceof IOException) ? (IOException) e : new IOException(e.getMessage(), e);
+                synchronized (this) {
+                    failures++;
+                    lastFailure = failure;
+                }
+                throw failure;
+            }
+            long duration = System.nanoTime() - start;
+
+            savedChanges = seen;
+            synchronized (this) {
+                checkpoints++;
+                lastDurationNanos = duration;
+                maxDurationNanos = Math.max(maxDurationNanos, duration);
+                totalDurationNanos += duration;
+                lastBytesWritten = Math.max(0, bytes);
+                totalBytesWritten += lastBytesWritten;
+            }
+            return true;
+        }
+    }
+
+    public synchronized long getCheckpoints() {
+        return checkpoints;
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return Cause of the last failed checkpoint, or null if none has failed
+     */
+    public synchronized IOException getLastFailure() {
+        return lastFailure;
+    }
+
+    public synchronized long getLastDurationNanos() {
+        return lastDurationNanos;
+    }
+
+    public synchronized long getMaxDurationNanos() {
+        return maxDurationNanos;
+    }
+
+    public synchronized long getTotalDurationNanos() {
+        return totalDurationNanos;
+    }
+
+    /**
+     * @return Bytes written by the last checkpoint, 0 if the store cannot tell
+     */
+    public synchronized long getLastBytesWritten() {
+        return lastBytesWritten;
+    }
+
+    public synchronized long getTotalBytesWritten() {
+        return totalBytesWritten;
+    }
+
+    /**
+     * Stops checkpointing and saves any changes made since the last checkpoint.
+     *
+     * @throws IOException If the final checkpoint cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // already shutting down, the hook saves the changes
+            return;
+        }
+        try {
+            checkpointIfChanged();
+        } finally {
+            synchronized (checkpointLock) {
+                closed = true;
+            }
+        }
+    }
+}
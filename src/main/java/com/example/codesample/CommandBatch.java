@@ -0,0 +1,210 @@
+/**
+ * CommandBatch
+ * This class runs a script of commands against a UserSystem, one command per line, so the program
+ * can be driven without answering prompts. A command that fails is reported with its line number
+ * and the rest of the script still runs.
+ *
+ * create <userName> <name> <gender> <height(cm)> <weight(kg)> <age> <goal> <activityLevel>
+ * load <userName>
+ * set-offset <option>
+ * set-macro <option>
+ * switch-plan
+ * progress
+ * delete
+ *
+ * create and load select the user the following commands apply to. Goal and options are the numbers
+ * used by the interactive menus. Arguments holding spaces can be double quoted, and blank lines and
+ * lines starting with # are skipped.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CommandBatch {
+    private final UserSystem userSystem;
+    /**
+     * Receives the output of commands such as progress.
+     */
+    private final OutputSink out;
+    /**
+     * Receives one message per failed command.
+     */
+    private final OutputSink errors;
+    private final WeightProjection projection = new WeightProjection();
+
+    private User user;
+    private long executed;
+    private long failed;
+
+    public CommandBatch(UserSystem userSystem, OutputSink out, OutputSink errors) {
+        this.userSystem = userSystem;
+        this.out = out;
+        this.errors = errors;
+    }
+
+    /**
+     * Runs every command read until the end of the input.
+     *
+     * @param script Commands to run
+     * @return Number of commands that failed
+     * @throws IOException If the script cannot be read
+     */
+    public long run(Reader script) throws IOException {
+        BufferedReader reader = (script instanceof BufferedReader) ? (BufferedReader) script : new BufferedReader(script);
+        long lineNumber = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || (trimmed.charAt(0) == '#')) {
+                continue;
+            }
+            try {
+                execute(tokenize(trimmed));
+                executed++;
+            } catch (InvalidInputException | ArithmeticException | IllegalArgumentException e) {
+                failed++;
+                errors.message("Line " + lineNumber + ": " + e.getMessage().trim().replace(System.lineSeparator(), "; "));
+            }
+        }
+        return failed;
+    }
+
+    public long getExecuted() {
+        return executed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    private void execute(List<String> command) {
+        String name = command.get(0);
+        switch (name) {
+            case "create":
+                // a failed create or load must not leave the previous user selected
+                user = null;
+                arguments(command, 8);
+                Person person = new Person(command.get(2), gender(command.get(3)), number(command.get(4)),
+                        number(command.get(5)), integer(command.get(6)));
+                user = userSystem.addUser(command.get(1), person, integer(command.get(7)), number(command.get(8)));
+                break;
+            case "load":
+                user = null;
+                arguments(command, 1);
+                user = userSystem.retrieveUser(command.get(1));
+                break;
+            case "set-offset":
+                arguments(command, 1);
+                if (!currentUser().changeCalorieIntake(integer(command.get(1)))) {
+                    throw new InvalidInputException("No action taken for calorie option " + command.get(1));
+                }
+                break;
+            case "set-macro":
+                arguments(command, 1);
+                if (!currentUser().changeMacroDiet(integer(command.get(1)))) {
+                    throw new InvalidInputException("Not a valid diet option " + command.get(1));
+                }
+                break;
+            case "switch-plan":
+                arguments(command, 0);
+                currentUser().changeDietPlan();
+                break;
+            case "progress":
+                arguments(command, 0);
+                User current = currentUser();
+                DietPlan plan = current.getDietPlan();
+                projection.project(plan.getCalorieOffset());
+                out.message(String.format("%s %s %.2f lbs/week %.2f lbs/month %.2f lbs/year",
+                        current.getUserName(), plan.isBulking() ? "gains" : "loses",
+                        projection.getWeekPounds(), projection.getMonthPounds(), projection.getYearPounds()));
+                break;
+            case "delete":
+                arguments(command, 0);
+                userSystem.deleteUser(currentUser().getUserName());
+                user = null;
+                break;
+            default:
+                throw new InvalidInputException("Unknown command " + name);
+        }
+    }
+
+    private User currentUser() {
+        if (user == null) {
+            throw new InvalidInputException("No user selected, use create or load first");
+        }
+        return user;
+    }
+
+    private static void arguments(List<String> command, int count) {
+        if (command.size() != count + 1) {
+            throw new InvalidInputException(command.get(0) + " takes " + count + " argument(s), found " + (command.size() - 1));
+        }
+    }
+
+    private static char gender(String token) {
+        if (token.isEmpty()) {
+            throw new InvalidInputException("Not a valid gender");
+        }
+        return token.charAt(0);
+    }
+
+    private static int integer(String token) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("Not a number: " + token);
+        }
+    }
+
+    private static double number(String token) {
+        try {
+            return Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("Not a number: " + token);
+        }
+    }
+
+    /**
+     * Splits a line on whitespace, keeping double quoted text together.
+     */
+    static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>(10);
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        boolean inToken = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inToken = true;
+            } else if (!quoted && Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                token.append(c);
+                inToken = true;
+            }
+        }
+        if (quoted) {
+            throw new InvalidInputException("Unterminated quote");
+        }
+        if (inToken) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
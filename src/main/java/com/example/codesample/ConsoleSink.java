@@ -0,0 +1,148 @@
+/**
+ * ConsoleSink
+ * This class writes messages to the console from a background thread, so callers never wait on
+ * console output. Messages are buffered and written in batches, in the order they were received.
+ * Call flush before prompting for input so that every message is shown before the prompt.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public final class ConsoleSink implements OutputSink, Closeable {
+    /**
+     * Marker queued by close to stop the writer thread, never equal to a message.
+     */
+    private static final Object CLOSE = new Object();
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Messages waiting to be written, followed by CLOSE once the sink is closed.
+     */
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Writer out;
+    private final Thread writer;
+    /**
+     * Number of messages received, number written and flushed to the output, and number of
+     * threads waiting in flush, guarded by this sink.
+     */
+    private long received;
+    private long written;
+    private int flushing;
+    private volatile boolean closed;
+
+    public ConsoleSink() {
+        this(System.out, Charset.defaultCharset());
+    }
+
+    public ConsoleSink(OutputStream out, Charset charset) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, charset), 8192);
+        this.writer = new Thread(this::writeMessages, "console-sink");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void message(String message) {
+        if (closed) {
+            throw new IllegalStateException("Console sink is closed");
+        }
+        synchronized (this) {
+            received++;
+        }
+        queue.add(message);
+    }
+
+    @Override
+    public void flush() {
+        synchronized (this) {
+            long target = received;
+            boolean interrupted = false;
+            flushing++;
+            while ((written < target) && writer.isAlive()) {
+                try {
+                    wait(100);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            flushing--;
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Writes every pending message and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeMessages() {
+        List<Object> batch = new ArrayList<>(BATCH_SIZE);
+        String lineSeparator = System.lineSeparator();
+        boolean stop = false;
+        int unflushed = 0;
+
+        try {
+            while (!stop) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+
+                for (Object message : batch) {
+                    if (message == CLOSE) {
+                        stop = true;
+                        break;
+                    }
+                    out.write((String) message);
+                    out.write(lineSeparator);
+                }
+                unflushed += stop ? batch.size() - 1 : batch.size();
+                // batches are only counted as written once flushed, which a waiting flush cannot put off
+                if (queue.isEmpty() || stop || isFlushing()) {
+                    out.flush();
+                    written(unflushed);
+                    unflushed = 0;
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException | IOException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private synchronized boolean isFlushing() {
+        return flushing > 0;
+    }
+
+    private synchronized void written(int count) {
+        written += count;
+        if (written == received) {
+            notifyAll();
+        }
+    }
+}
@@ -13,20 +13,32 @@ public class CuttingDiet extends Diet {
     /**
      * Daily calorie intake factoring in deficit of calories for cut.
      */
-    private double reducedCalories;
+    private volatile double reducedCalories;
     /**
      * Deficit of calories to be factored in to user's calorie intake.
      */
-    private int deficitCalories;
+    private volatile int deficitCalories;
+
+    /**
+     * Share of the TDEE cut from a new plan's daily calories.
+     */
+    static final double DEFAULT_DEFICIT = .20;
 
     private static final long serialVersionUID = 1L;
 
     public CuttingDiet(double tdee, double bmi, MacroDiets diet) {
         super(tdee, bmi, false, diet);
-        this.deficitCalories = (int) (tdee * .20);
+        this.deficitCalories = (int) (tdee * DEFAULT_DEFICIT);
         this.reducedCalories = tdee - this.deficitCalories;
+    }
 
-        System.out.println("Cutting diet plan created. Calorie deficit set to 20% of TDEE");
+    /**
+     * Restores a stored cutting diet plan.
+     */
+    CuttingDiet(double tdee, double bmi, MacroDiets diet, int deficitCalories) {
+        super(tdee, bmi, false, diet);
+        this.deficitCalories = deficitCalories;
+        this.reducedCalories = tdee - deficitCalories;
     }
 
     /**
@@ -34,14 +46,14 @@ public class CuttingDiet extends Diet {
      */
     @Override
     public void expectedProgress() {
-        double[] expectedWeekMonthYear = calculateWeightChange(deficitCalories);
+        WeightProjection projection = new WeightProjection().project(deficitCalories);
 
         System.out.printf("Expected weight lost in a week: %.2f lbs %.2f kg %n"
                         + "Expected weight lost in a month: %.2f lbs %.2f kg %n"
                         + "Expected weight lost in a year: %.2f lbs % .2f kg  %n",
-                expectedWeekMonthYear[0], Conversions.poundsToKilograms(expectedWeekMonthYear[0]),
-                expectedWeekMonthYear[1], Conversions.poundsToKilograms(expectedWeekMonthYear[1]),
-                expectedWeekMonthYear[2], Conversions.poundsToKilograms(expectedWeekMonthYear[2]));
+                projection.getWeekPounds(), projection.getWeekKilograms(),
+                projection.getMonthPounds(), projection.getMonthKilograms(),
+                projection.getYearPounds(), projection.getYearKilograms());
 
     }
 
@@ -49,33 +61,43 @@ public class CuttingDiet extends Diet {
      * Changes a user's daily calorie intake based on what option is passed.
      *
      * @param option Integer denoting calorie intake option user chooses
+     * @return True if the deficit was set, false if the option is not valid
      */
     @Override
-    public void changeCalorieIntake(int option) {
+    public boolean changeCalorieIntake(int option) {
+        synchronized (lock()) {
+            return applyCalorieIntake(option);
+        }
+    }
+
+    private boolean applyCalorieIntake(int option) {
         double percentage;
         switch (option) {
             case 1:
                 percentage = .10;
-                System.out.println("Calorie deficit set at 10%");
                 break;
             case 2:
                 percentage = .20;
-                System.out.println("Calorie deficit set at 20%");
                 break;
             case 3:
                 percentage = .30;
-                System.out.println("Calorie deficit set at 30%");
                 break;
             case 4:
                 percentage = .40;
-                System.out.println("Calorie deficit set at 40%");
                 break;
             default:
-                System.out.println("Not a valid option. No Action");
-                return;
+                return false;
         }
         this.deficitCalories = (int) (getTdee() * percentage);
         this.reducedCalories = getTdee() - this.deficitCalories;
+        changed();
+        return true;
+    }
+
+    @Override
+    public String displayCalorieOffset() {
+        return "Calorie deficit set at " + Math.round(100 * deficitCalories / getTdee()) + "% ("
+                + deficitCalories + " calories)";
     }
 
     /**
@@ -97,6 +119,11 @@ public class CuttingDiet extends Diet {
         return this.reducedCalories;
     }
 
+    @Override
+    public int getCalorieOffset() {
+        return deficitCalories;
+    }
+
 }
 
 
@@ -13,10 +13,6 @@ import java.io.Serializable;
 
 public abstract class Diet implements Serializable {
 
-    /**
-     * Calories required to lose/gain 1 lbs of weight in a week.
-     */
-    private static final double CALORIES_REQUIRED = 3500;
     /**
      * Total Daily Energy Expenditure.
      * Amount of calories user should consume factoring in exercise
@@ -34,7 +30,15 @@ public abstract class Diet implements Serializable {
     /**
      * Enum that holds the value for diet that alter users Macronutrient ratios.
      */
-    private MacroDiets diets;
+    private volatile MacroDiets diets;
+    /**
+     * User that owns this diet plan, notified whenever the plan changes.
+     */
+    private transient volatile User owner;
+    /**
+     * Snapshot of the current plan, replaced on every change and computed on first use.
+     */
+    private transient volatile DietPlan plan;
 
     private static final long serialVersionUID = 1L;
 
@@ -49,10 +53,30 @@ public abstract class Diet implements Serializable {
 
     public abstract double getDailyCalories();
 
-    public abstract void changeCalorieIntake(int option);
+    /**
+     * Changes the calorie surplus/deficit based on what option is passed.
+     *
+     * @param option Integer denoting calorie intake option user chooses
+     * @return True if the diet plan changed, false if the option takes no action or is not valid
+     */
+    public abstract boolean changeCalorieIntake(int option);
+
+    /**
+     * Describes the current calorie surplus/deficit.
+     *
+     * @return Calorie surplus/deficit as a string
+     */
+    public abstract String displayCalorieOffset();
 
     public abstract String changeCalorieOffset();
 
+    /**
+     * Returns the calories added to or removed from the TDEE to get the daily calorie intake.
+     *
+     * @return Calorie surplus when bulking, calorie deficit when cutting
+     */
+    public abstract int getCalorieOffset();
+
 
     public double getTdee() {
 
@@ -68,36 +92,68 @@ public abstract class Diet implements Serializable {
         return diets;
     }
 
+    void setOwner(User owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Returns the lock guarding changes to this diet plan.
+     * Changes to the plans of different users never wait for each other
+     *
+     * @return Owning user, or the diet itself while it has no owner
+     */
+    protected Object lock() {
+        User user = owner;
+        return (user != null) ? user : this;
+    }
+
+    /**
+     * Recomputes the plan snapshot and notifies the owning user that the diet plan has changed.
+     * Called while holding the lock
+     */
+    protected void changed() {
+        this.plan = DietPlan.of(this);
+        if (owner != null) {
+            owner.dietChanged();
+        }
+    }
+
+    /**
+     * Returns an immutable snapshot of the current plan. Safe to call from any thread.
+     *
+     * @return Current diet plan
+     */
+    public DietPlan getPlan() {
+        DietPlan current = plan;
+        if (current == null) {
+            synchronized (lock()) {
+                current = plan;
+                if (current == null) {
+                    current = DietPlan.of(this);
+                    plan = current;
+                }
+            }
+        }
+        return current;
+    }
+
     /**
      * Displays a user's BMI(Body Mass Index) and weight category placement.
      *
      * @return Formatted BMI variable and weight category as a string
      */
     public String displayBmi() {
-        String weightRange;
-
-        if (this.bmi < 18.5) {
-            weightRange = "(underweight)";
-        } else if ((this.bmi >= 18.5) && (this.bmi <= 24.9)) {
-            weightRange = "(healthy)";
-        } else if ((this.bmi >= 25) && (this.bmi <= 29.9)) {
-            weightRange = "(overweight)";
-        } else {
-            weightRange = "(obese)";
-        }
-
-        return String.format("%.2f", this.bmi) + weightRange;
+        return String.format("%.2f", this.bmi) + "(" + getPlan().getBmiCategory() + ")";
     }
 
     /**
      * Displays all user diet plan details.
      */
     public void displayDietdetails() {
-        int carbsInGrams = (int) (diets.getCarbs() * getDailyCalories()) / 4; //4 calories per gram of carbs
-        int proteinInGrams = (int) (diets.getProtein() * getDailyCalories()) / 4; // 4 calories per gram of protein
-        int fatInGrams = (int) (diets.getFat() * getDailyCalories()) / 9; // 9 calories per gram of fat
+        DietPlan current = getPlan();
+        MacroDiets macroDiet = current.getMacroDiet();
 
-        System.out.println(diets.getName() + " Diet: " + diets.displayMacroPercentages());
+        System.out.println(macroDiet.getName() + " Diet: " + macroDiet.displayMacroPercentages());
         System.out.printf("TDEE(Total Daily Energy Expenditure): %.2f %n"
                 + "Daily calorie intake: %.2f %n"
                 + "BMI(Body Mass Index): %s %n"
@@ -106,36 +162,42 @@ public abstract class Diet implements Serializable {
                 + "Carbs: %sg %n"
                 + "Protein: %sg %n"
                 + "Fat: %sg %n"
-                + "--------------- %n", this.tdee, getDailyCalories(), displayBmi(), carbsInGrams, proteinInGrams, fatInGrams);
+                + "--------------- %n", current.getTdee(), current.getDailyCalories(), displayBmi(),
+                current.getCarbs(), current.getProtein(), current.getFat());
     }
 
     /**
      * Changes user's Macronutrient ratio based on what diet option the user chooses.
      *
      * @param dietOption integer value denoting user's diet choice
+     * @return True if the option is valid and the diet is now active, otherwise false
      */
-    public void changeMacroDiet(int dietOption) {
+    public boolean changeMacroDiet(int dietOption) {
+        synchronized (lock()) {
+            return applyMacroDiet(dietOption);
+        }
+    }
+
+    private boolean applyMacroDiet(int dietOption) {
 
         switch (dietOption) {
             case 1:
-                System.out.println("Paleo diet active");
                 this.diets = MacroDiets.PALEO;
                 break;
             case 2:
-                System.out.println("Keto diet active");
                 this.diets = MacroDiets.KETO;
                 break;
             case 3:
-                System.out.println("Atkins diet active");
                 this.diets = MacroDiets.ATKINS;
                 break;
             case 4:
-                System.out.println("Default diet active");
                 this.diets = MacroDiets.DEFAULT;
                 break;
             default:
-                System.out.println("Not a valid option");
+                return false;
         }
+        changed();
+        return true;
     }
 
     /**
@@ -146,18 +208,19 @@ public abstract class Diet implements Serializable {
      * @throws ArithmeticException If the calorieOffset variable is less than 0
      */
     public double[] calculateWeightChange(int calorieOffset) throws ArithmeticException {
-        if (calorieOffset < 0) {
-            throw new ArithmeticException("parameter cannot be less than 0");
-        }
-
-        double weeklyCalories = calorieOffset * 7;
+        WeightProjection projection = new WeightProjection().project(calorieOffset);
 
+        return new double[]{projection.getWeekPounds(), projection.getMonthPounds(), projection.getYearPounds()};
+    }
 
-        double expectedWeek = weeklyCalories / CALORIES_REQUIRED;
-        double expectedMonth = (expectedWeek * 4.345);
-        double expectedYear = (expectedMonth * 12);
-
-        return new double[]{expectedWeek, expectedMonth, expectedYear};
+    /**
+     * Projects the weight gained/lost with the current calorie surplus/deficit without allocating.
+     *
+     * @param projection Projection to overwrite
+     * @return The given projection
+     */
+    public WeightProjection projectWeightChange(WeightProjection projection) {
+        return projection.project(getCalorieOffset());
     }
 
     public boolean isBulking() {
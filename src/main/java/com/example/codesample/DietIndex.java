@@ -0,0 +1,362 @@
+/**
+ * DietIndex
+ * This class keeps secondary indexes over a UserSystem's users so they can be found by diet instead of
+ * by username, e.g. every cutting user on a keto diet with a BMI from 25 to 30.
+ *
+ * Users are bucketed by bulking/cutting and macronutrient diet, and every bucket keeps users sorted by
+ * BMI, TDEE and age. The index listens to the UserSystem and moves a user whenever they are added,
+ * deleted or their diet changes. A query visits only the buckets it selects and walks the sorted range
+ * of its most selective range condition, so its cost grows with the number of users in that range rather
+ * than with the number of users stored. Further range conditions filter that walk. The most selective
+ * range is found by stepping through every constrained range in turn until one of them ends, which costs
+ * at most one step per range condition for every user in the smallest range.
+ *
+ * The index is safe to query while users change; a query sees each user either before or after a change.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public final class DietIndex implements UserListener {
+    private static final MacroDiets[] MACRO_DIETS = MacroDiets.values();
+    static final int BMI = 0;
+    static final int TDEE = 1;
+    static final int AGE = 2;
+    private static final int DIMENSIONS = 3;
+
+    /**
+     * Sorted users of every bucket, indexed by bucket then dimension.
+     */
+    private final NavigableMap<Key, User>[][] buckets;
+    /**
+     * Where each indexed user currently is, keyed by username.
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes every user of a UserSystem and keeps the index up to date with its changes.
+     * Create the index before the UserSystem is shared between threads.
+     *
+     * @param userSystem Users to index
+     */
+    @SuppressWarnings("unchecked")
+    public DietIndex(UserSystem userSystem) {
+        this.buckets = new NavigableMap[2 * MACRO_DIETS.length][DIMENSIONS];
+        for (NavigableMap<Key, User>[] bucket : buckets) {
+            for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+                bucket[dimension] = new ConcurrentSkipListMap<>();
+            }
+        }
+        userSystem.addListener(this);
+        for (User user : userSystem.getUsers()) {
+            userAdded(user);
+        }
+    }
+
+    @Override
+    public void userAdded(User user) {
+        index(user);
+    }
+
+    @Override
+    public void userDeleted(User user) {
+        entries.computeIfPresent(user.getUserName(), (userName, entry) -> {
+            entry.remove(buckets);
+            return null;
+        });
+    }
+
+    @Override
+    public void userChanged(User user) {
+        index(user);
+    }
+
+    /**
+     * Returns the number of indexed users.
+     *
+     * @return Number of indexed users
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Starts a query matching every indexed user until conditions are added.
+     *
+     * @return New query
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    private void index(User user) {
+        entries.compute(user.getUserName(), (userName, old) -> {
+            if (old != null) {
+                old.remove(buckets);
+            }
+            Entry entry = new Entry(user);
+            entry.add(buckets);
+            return entry;
+        });
+    }
+
+    private static int bucket(boolean bulking, MacroDiets macroDiet) {
+        return (bulking ? MACRO_DIETS.length : 0) + macroDiet.ordinal();
+    }
+
+    /**
+     * Position of a user in one sorted dimension: the indexed value, then the username to keep keys unique.
+     * A null username sorts after every username, to bound ranges.
+     */
+    private static final class Key implements Comparable<Key> {
+        private final double value;
+        private final String userName;
+
+        private Key(double value, String userName) {
+            this.value = value;
+            this.userName = userName;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int compare = Double.compare(value, other.value);
+            if (compare != 0) {
+                return compare;
+            }
+            if (userName == null) {
+                return (other.userName == null) ? 0 : 1;
+            }
+            return (other.userName == null) ? -1 : userName.compareTo(other.userName);
+        }
+    }
+
+    /**
+     * Indexed values of a user, kept so the user can be removed from the index after their diet changes.
+     */
+    private static final class Entry {
+        private final User user;
+        private final int bucket;
+        private final Key[] keys = new Key[DIMENSIONS];
+
+        private Entry(User user) {
+            DietPlan plan = user.getDietPlan();
+            this.user = user;
+            this.bucket = bucket(plan.isBulking(), plan.getMacroDiet());
+            keys[BMI] = new Key(plan.getBmi(), user.getUserName());
+            keys[TDEE] = new Key(plan.getTdee(), user.getUserName());
+            keys[AGE] = new Key(user.getPerson().getAge(), user.getUserName());
+        }
+
+        private void add(NavigableMap<Key, User>[][] buckets) {
+            for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+                buckets[bucket][dimension].put(keys[dimension], user);
+            }
+        }
+
+        private void remove(NavigableMap<Key, User>[][] buckets) {
+            for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+                buckets[bucket][dimension].remove(keys[dimension]);
+            }
+        }
+    }
+
+    /**
+     * Conjunction of conditions on indexed users. Range bounds are inclusive.
+     */
+    public final class Query implements Iterable<User> {
+        private Boolean bulking;
+        private EnumSet<MacroDiets> macroDiets = EnumSet.allOf(MacroDiets.class);
+        private final double[] min = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        private final double[] max = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+
+        private Query() {
+        }
+
+        public Query bulking() {
+            this.bulking = Boolean.TRUE;
+            return this;
+        }
+
+        public Query cutting() {
+            this.bulking = Boolean.FALSE;
+            return this;
+        }
+
+        /**
+         * Matches users on any of the given macronutrient diets.
+         */
+        public Query macroDiet(MacroDiets first, MacroDiets... rest) {
+            this.macroDiets = EnumSet.of(first, rest);
+            return this;
+        }
+
+        public Query bmi(double from, double to) {
+            return range(BMI, from, to);
+        }
+
+        public Query tdee(double from, double to) {
+            return range(TDEE, from, to);
+        }
+
+        public Query age(int from, int to) {
+            return range(AGE, from, to);
+        }
+
+        private Query range(int dimension, double from, double to) {
+            if (Double.isNaN(from) || Double.isNaN(to)) {
+                throw new IllegalArgumentException("Range bounds cannot be NaN");
+            }
+            min[dimension] = Math.max(min[dimension], from);
+            max[dimension] = Math.min(max[dimension], to);
+            return this;
+        }
+
+        /**
+         * Collects every matching user.
+         *
+         * @return Matching users
+         */
+        public List<User> list() {
+            List<User> users = new ArrayList<>();
+            iterator().forEachRemaining(users::add);
+            return users;
+        }
+
+        /**
+         * Iterates over the matching users. Users are ordered by bucket, then by the walked dimension.
+         *
+         * @return Iterator over matching users
+         */
+        @Override
+        public Iterator<User> iterator() {
+            for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+                if (min[dimension] > max[dimension]) {
+                    return Collections.emptyIterator();
+                }
+            }
+            int walked = walkedDimension();
+            return new Matches(ranges(walked).iterator(), walked);
+        }
+
+        /**
+         * Picks the range condition matching the fewest users in the selected buckets, by stepping through
+         * every constrained range in turn until one ends. Without range conditions, BMI is walked.
+         *
+         * @return Dimension to walk
+         */
+        int walkedDimension() {
+            List<Integer> constrained = new ArrayList<>(DIMENSIONS);
+            for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+                if ((min[dimension] != Double.NEGATIVE_INFINITY) || (max[dimension] != Double.POSITIVE_INFINITY)) {
+                    constrained.add(dimension);
+                }
+            }
+            if (constrained.isEmpty()) {
+                return BMI;
+            }
+            if (constrained.size() == 1) {
+                return constrained.get(0);
+            }
+
+            List<Iterator<Iterator<Map.Entry<Key, User>>>> walks = new ArrayList<>(constrained.size());
+            List<Iterator<Map.Entry<Key, User>>> current = new ArrayList<>(constrained.size());
+            for (int dimension : constrained) {
+                walks.add(ranges(dimension).iterator());
+                current.add(Collections.emptyIterator());
+            }
+            while (true) {
+                for (int i = 0; i < constrained.size(); i++) {
+                    Iterator<Map.Entry<Key, User>> range = current.get(i);
+                    while (!range.hasNext()) {
+                        if (!walks.get(i).hasNext()) {
+                            return constrained.get(i);
+                        }
+                        range = walks.get(i).next();
+                        current.set(i, range);
+                    }
+                    range.next();
+                }
+            }
+        }
+
+        /**
+         * @return Sorted range of a dimension in every selected bucket
+         */
+        private List<Iterator<Map.Entry<Key, User>>> ranges(int dimension) {
+            List<Iterator<Map.Entry<Key, User>>> ranges = new ArrayList<>();
+            for (MacroDiets macroDiet : macroDiets) {
+                if (bulking == null || !bulking) {
+                    ranges.add(range(buckets[bucket(false, macroDiet)][dimension], dimension));
+                }
+                if (bulking == null || bulking) {
+                    ranges.add(range(buckets[bucket(true, macroDiet)][dimension], dimension));
+                }
+            }
+            return ranges;
+        }
+
+        private Iterator<Map.Entry<Key, User>> range(NavigableMap<Key, User> sorted, int dimension) {
+            return sorted.subMap(new Key(min[dimension], ""), true, new Key(max[dimension], null), true)
+                    .entrySet().iterator();
+        }
+
+        /**
+         * Walks the ranges one after another, skipping users outside the other range conditions.
+         */
+        private final class Matches implements Iterator<User> {
+            private final Iterator<Iterator<Map.Entry<Key, User>>> ranges;
+            private final int walked;
+            private Iterator<Map.Entry<Key, User>> current = Collections.emptyIterator();
+            private User next;
+
+            private Matches(Iterator<Iterator<Map.Entry<Key, User>>> ranges, int walked) {
+                this.ranges = ranges;
+                this.walked = walked;
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    while (!current.hasNext()) {
+                        if (!ranges.hasNext()) {
+                            return false;
+                        }
+                        current = ranges.next();
+                    }
+                    User user = current.next().getValue();
+                    if (matchesOthers(user)) {
+                        next = user;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public User next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                User user = next;
+                next = null;
+                return user;
+            }
+
+            private boolean matchesOthers(User user) {
+                DietPlan plan = user.getDietPlan();
+                return ((walked == BMI) || within(BMI, plan.getBmi()))
+                        && ((walked == TDEE) || within(TDEE, plan.getTdee()))
+                        && ((walked == AGE) || within(AGE, user.getPerson().getAge()));
+            }
+
+            private boolean within(int dimension, double value) {
+                return (value >= min[dimension]) && (value <= max[dimension]);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * DietPlan
+ * This class is an immutable snapshot of everything derived from a diet plan: daily calories,
+ * macronutrient grams, BMI category and expected weight change.
+ * A diet computes its snapshot once per change and keeps it, so views and reports read it without
+ * recalculating and without locking, from any thread.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.util.List;
+
+public final class DietPlan {
+    /**
+     * BMI weight categories from lowest to highest BMI.
+     */
+    public static final List<String> BMI_CATEGORIES = List.of("underweight", "healthy", "overweight", "obese");
+
+    private final boolean bulking;
+    private final MacroDiets macroDiet;
+    private final double tdee;
+    private final double dailyCalories;
+    private final int calorieOffset;
+    private final double bmi;
+    /**
+     * Weight category for the BMI, e.g. healthy.
+     */
+    private final String bmiCategory;
+    /**
+     * Daily macronutrient intake (in grams).
+     */
+    private final int carbs;
+    private final int protein;
+    private final int fat;
+    /**
+     * Expected weight gained/lost (in lbs) in a week, a month and a year.
+     */
+    private final double weekPounds;
+    private final double monthPounds;
+    private final double yearPounds;
+
+    private DietPlan(Diet diet) {
+        this.bulking = diet.isBulking();
+        this.macroDiet = diet.getDiets();
+        this.tdee = diet.getTdee();
+        this.dailyCalories = diet.getDailyCalories();
+        this.calorieOffset = diet.getCalorieOffset();
+        this.bmi = diet.getBmi();
+        this.bmiCategory = bmiCategory(bmi);
+
+        this.carbs = (int) (macroDiet.getCarbs() * dailyCalories) / 4; //4 calories per gram of carbs
+        this.protein = (int) (macroDiet.getProtein() * dailyCalories) / 4; // 4 calories per gram of protein
+        this.fat = (int) (macroDiet.getFat() * dailyCalories) / 9; // 9 calories per gram of fat
+
+        WeightProjection projection = new WeightProjection().project(calorieOffset);
+        this.weekPounds = projection.getWeekPounds();
+        this.monthPounds = projection.getMonthPounds();
+        this.yearPounds = projection.getYearPounds();
+    }
+
+    /**
+     * Computes the snapshot of a diet's current state. Callers hold the diet's lock.
+     */
+    static DietPlan of(Diet diet) {
+        return new DietPlan(diet);
+    }
+
+    /**
+     * Finds the weight category of a BMI.
+     *
+     * @param bmi Body Mass Index
+     * @return underweight, healthy, overweight or obese
+     */
+    static String bmiCategory(double bmi) {
+        return BMI_CATEGORIES.get(bmiCategoryIndex(bmi));
+    }
+
+    /**
+     * Finds the position of a BMI's weight category in BMI_CATEGORIES.
+     */
+    static int bmiCategoryIndex(double bmi) {
+        if (bmi < 18.5) {
+            return 0;
+        } else if ((bmi >= 18.5) && (bmi <= 24.9)) {
+            return 1;
+        } else if ((bmi >= 25) && (bmi <= 29.9)) {
+            return 2;
+        } else {
+            return 3;
+        }
+    }
+
+    public boolean isBulking() {
+        return bulking;
+    }
+
+    public MacroDiets getMacroDiet() {
+        return macroDiet;
+    }
+
+    public double getTdee() {
+        return tdee;
+    }
+
+    public double getDailyCalories() {
+        return dailyCalories;
+    }
+
+    public int getCalorieOffset() {
+        return calorieOffset;
+    }
+
+    public double getBmi() {
+        return bmi;
+    }
+
+    public String getBmiCategory() {
+        return bmiCategory;
+    }
+
+    public int getCarbs() {
+        return carbs;
+    }
+
+    public int getProtein() {
+        return protein;
+    }
+
+    public int getFat() {
+        return fat;
+    }
+
+    public double getWeekPounds() {
+        return weekPounds;
+    }
+
+    public double getMonthPounds() {
+        return monthPounds;
+    }
+
+    public double getYearPounds() {
+        return yearPounds;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Food
+ * This class holds a food from the food table and the calories and macronutrients in one portion of it.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+public final class Food {
+    private final String name;
+    /**
+     * Size of one portion (in grams).
+     */
+    private final double portionGrams;
+    /**
+     * Macronutrients in one portion (in grams).
+     */
+    private final double carbs;
+    private final double protein;
+    private final double fat;
+    /**
+     * Calories in one portion.
+     */
+    private final double calories;
+
+    /**
+     * Creates a food whose calories are worked out from its macronutrients,
+     * 4 per gram of carbs or protein and 9 per gram of fat.
+     *
+     * @throws IllegalArgumentException If the portion is not positive or a macronutrient is negative
+     */
+    public Food(String name, double portionGrams, double carbs, double protein, double fat) {
+        this(name, portionGrams, (4 * carbs) + (4 * protein) + (9 * fat), carbs, protein, fat);
+    }
+
+    /**
+     * Creates a food with measured calories, which also count fibre, alcohol and rounding that the
+     * macronutrients leave out.
+     *
+     * @throws IllegalArgumentException If the portion is not positive or the calories or a macronutrient are negative
+     */
+    public Food(String name, double portionGrams, double calories, double carbs, double protein, double fat) {
+        if ((portionGrams <= 0) || !(calories >= 0) || (carbs < 0) || (protein < 0) || (fat < 0)) {
+            throw new IllegalArgumentException("Not a valid food: " + name);
+        }
+        this.name = name;
+        this.portionGrams = portionGrams;
+        this.calories = calories;
+        this.carbs = carbs;
+        this.protein = protein;
+        this.fat = fat;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getPortionGrams() {
+        return portionGrams;
+    }
+
+    public double getCarbs() {
+        return carbs;
+    }
+
+    public double getProtein() {
+        return protein;
+    }
+
+    public double getFat() {
+        return fat;
+    }
+
+    /**
+     * @return Calories in one portion
+     */
+    public double getCalories() {
+        return calories;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + Math.round(portionGrams) + " g)";
+    }
+}
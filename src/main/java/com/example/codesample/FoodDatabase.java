@@ -0,0 +1,483 @@
+/**
+ * FoodDatabase
+ * This class holds a read-only table of foods with their calories and macronutrients per 100 g,
+ * kept in a memory-mapped file so that opening it only reads the header.
+ *
+ * The file holds fixed-width records sorted by lower case name, the names themselves, and a trie
+ * over the first TRIE_DEPTH bytes of every name. Each trie node holds the range of records starting
+ * with its prefix, so a type-ahead search walks the trie for the start of the prefix and binary
+ * searches the node's range for the rest of it. Lookups read the mapping in place and are thread-safe.
+ *
+ * Databases are created from CSV rows of the form name,calories,carbs,protein,fat
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StreamCorruptedException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+public final class FoodDatabase implements Closeable {
+    /**
+     * Identifies a food database file ("FDPF").
+     */
+    private static final int MAGIC = 0x46445046;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    /**
+     * Bytes of each name covered by the trie. Longer prefixes are binary searched.
+     */
+    static final int TRIE_DEPTH = 5;
+
+    // header fields
+    private static final int MAGIC_FIELD = 0;
+    private static final int VERSION_FIELD = 4;
+    private static final int COUNT_FIELD = 8;
+    private static final int NODE_COUNT_FIELD = 12;
+    private static final int NAMES_FIELD = 16;
+    private static final int NODES_FIELD = 24;
+
+    // record fields, names are stored as the lower case key followed by the name as given
+    private static final int RECORD_SIZE = 24;
+    private static final int NAME_OFFSET = 0;
+    private static final int KEY_LENGTH = 4;
+    private static final int NAME_LENGTH = 6;
+    private static final int CALORIES = 8;
+    private static final int CARBS = 12;
+    private static final int PROTEIN = 16;
+    private static final int FAT = 20;
+
+    // trie node fields, the children of a node are consecutive and sorted by label
+    private static final int NODE_SIZE = 16;
+    private static final int LABEL = 0;
+    private static final int CHILD_COUNT = 2;
+    private static final int FIRST = 4;
+    private static final int END = 8;
+    private static final int FIRST_CHILD = 12;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int names;
+    private final int nodes;
+
+    /**
+     * Opens a database. Only the header is read.
+     *
+     * @param file File created by create
+     * @throws IOException If the file cannot be opened or is not a food database, or its header
+     *                     does not match the size of the file
+     */
+    public FoodDatabase(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        if (channel.size() > Integer.MAX_VALUE) {
+            channel.close();
+            throw new StreamCorruptedException(file + " is too large to be a food database");
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if ((buffer.capacity() < HEADER_SIZE) || (buffer.getInt(MAGIC_FIELD) != MAGIC)
+                || (buffer.getInt(VERSION_FIELD) != VERSION)) {
+            channel.close();
+            throw new StreamCorruptedException(file + " is not a food database");
+        }
+        // lookups trust these offsets, so they must lay out the records, names and trie exactly as create does
+        int count = buffer.getInt(COUNT_FIELD);
+        int nodeCount = buffer.getInt(NODE_COUNT_FIELD);
+        long names = buffer.getLong(NAMES_FIELD);
+        long nodes = buffer.getLong(NODES_FIELD);
+        if ((count < 0) || (nodeCount < 1) || (names != HEADER_SIZE + ((long) count * RECORD_SIZE))
+                || (nodes < names) || (nodes + ((long) nodeCount * NODE_SIZE) != buffer.capacity())) {
+            channel.close();
+            throw new StreamCorruptedException(file + " has a food database header that does not match its size");
+        }
+        this.count = count;
+        this.names = (int) names;
+        this.nodes = (int) nodes;
+    }
+
+    /**
+     * Finds the foods whose name starts with a prefix, ignoring case.
+     *
+     * @param prefix Start of the name
+     * @param limit  Most foods to return
+     * @return Ids of the foods in name order
+     */
+    public int[] search(String prefix, int limit) {
+        byte[] key = key(prefix);
+        int[] range = range(key);
+        int end = (int) Math.min(range[1], (long) range[0] + limit);
+        int[] ids = new int[Math.max(0, end - range[0])];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = range[0] + i;
+        }
+        return ids;
+    }
+
+    /**
+     * Counts the foods whose name starts with a prefix, ignoring case.
+     *
+     * @param prefix Start of the name
+     * @return Number of matching foods
+     */
+    public int count(String prefix) {
+        int[] range = range(key(prefix));
+        return range[1] - range[0];
+    }
+
+    /**
+     * Finds a food by its whole name, ignoring case.
+     *
+     * @param name Name of the food
+     * @return Id of the first food with the name, or -1 if there is none
+     */
+    public int find(String name) {
+        byte[] key = key(name);
+        int[] range = range(key);
+        return ((range[0] < range[1]) && (keyLength(range[0]) == key.length)) ? range[0] : -1;
+    }
+
+    /**
+     * Walks the trie for the first TRIE_DEPTH bytes of the key, then narrows the node's range
+     * to the records starting with the rest of the key.
+     *
+     * @return First (inclusive) and last (exclusive) id of the records starting with the key
+     */
+    private int[] range(byte[] key) {
+        int node = 0;
+        int depth = 0;
+        while ((depth < key.length) && (depth < TRIE_DEPTH)) {
+            node = child(node, key[depth]);
+            if (node < 0) {
+                return new int[]{0, 0};
+            }
+            depth++;
+        }
+        int first = buffer.getInt(nodeOffset(node) + FIRST);
+        int end = buffer.getInt(nodeOffset(node) + END);
+        if (depth == key.length) {
+            return new int[]{first, end};
+        }
+
+        int low = first;
+        int high = end;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(middle, key, false) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int start = low;
+        high = end;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(middle, key, true) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return new int[]{start, low};
+    }
+
+    /**
+     * Binary searches the children of a node for a label.
+     *
+     * @return Child node, or -1 if the node has no child with the label
+     */
+    private int child(int node, byte label) {
+        int offset = nodeOffset(node);
+        int low = buffer.getInt(offset + FIRST_CHILD);
+        int high = low + buffer.getChar(offset + CHILD_COUNT) - 1;
+        int target = label & 0xFF;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int found = buffer.getChar(nodeOffset(middle) + LABEL);
+            if (found < target) {
+                low = middle + 1;
+            } else if (found > target) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares a record's key with a search key as unsigned bytes.
+     *
+     * @param prefix If true only the first key.length bytes of the record's key are compared
+     */
+    private int compare(int id, byte[] key, boolean prefix) {
+        int keyOffset = names + buffer.getInt(recordOffset(id) + NAME_OFFSET);
+        int length = keyLength(id);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (buffer.get(keyOffset + i) & 0xFF) - (key[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return prefix ? Math.min(length, key.length) - key.length : length - key.length;
+    }
+
+    private int recordOffset(int id) {
+        return HEADER_SIZE + (id * RECORD_SIZE);
+    }
+
+    private int nodeOffset(int node) {
+        return nodes + (node * NODE_SIZE);
+    }
+
+    private int keyLength(int id) {
+        return buffer.getChar(recordOffset(id) + KEY_LENGTH);
+    }
+
+    private static byte[] key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException If there is no food with the id
+     */
+    public String getName(int id) {
+        int record = recordOffset(checkId(id));
+        int offset = names + buffer.getInt(record + NAME_OFFSET) + buffer.getChar(record + KEY_LENGTH);
+        byte[] name = new byte[buffer.getChar(record + NAME_LENGTH)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = buffer.get(offset + i);
+        }
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Nutrients of a food per 100 g.
+     *
+     * @throws IndexOutOfBoundsException If there is no food with the id
+     */
+    public double getCalories(int id) {
+        return buffer.getFloat(recordOffset(checkId(id)) + CALORIES);
+    }
+
+    public double getCarbs(int id) {
+        return buffer.getFloat(recordOffset(checkId(id)) + CARBS);
+    }
+
+    public double getProtein(int id) {
+        return buffer.getFloat(recordOffset(checkId(id)) + PROTEIN);
+    }
+
+    public double getFat(int id) {
+        return buffer.getFloat(recordOffset(checkId(id)) + FAT);
+    }
+
+    /**
+     * Returns a food as a 100 g serving with its stored calories, e.g. to build a FoodTable for a MealPlanner.
+     *
+     * @throws IndexOutOfBoundsException If there is no food with the id
+     */
+    public Food getFood(int id) {
+        return new Food(getName(id), 100, getCalories(id), getCarbs(id), getProtein(id), getFat(id));
+    }
+
+    private int checkId(int id) {
+        if ((id < 0) || (id >= count)) {
+            throw new IndexOutOfBoundsException("No food with id " + id);
+        }
+        return id;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Creates a database from CSV rows of the form name,calories,carbs,protein,fat with values per 100 g.
+     * The last four columns are the numbers, so names may contain commas. A first row starting with
+     * "name" is taken as a header and skipped, as are blank lines.
+     *
+     * @param csv  Rows to read
+     * @param file File to create, replacing any existing file
+     * @return Number of foods written
+     * @throws IOException           If the rows cannot be read or the file cannot be written
+     * @throws InvalidInputException If a row is not valid
+     */
+    public static int create(Reader csv, File file) throws IOException {
+        BufferedReader reader = (csv instanceof BufferedReader) ? (BufferedReader) csv : new BufferedReader(csv);
+        List<Row> rows = new ArrayList<>();
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || ((lineNumber == 1) && line.toLowerCase(Locale.ROOT).startsWith("name"))) {
+                continue;
+            }
+            rows.add(Row.parse(line, lineNumber));
+        }
+        rows.sort(Comparator.comparing((Row row) -> row.key, Arrays::compareUnsigned));
+
+        List<int[]> trie = buildTrie(rows);
+        long namesOffset = HEADER_SIZE + ((long) rows.size() * RECORD_SIZE);
+        long namesSize = 0;
+        for (Row row : rows) {
+            namesSize += row.key.length + row.name.length;
+        }
+        long nodesOffset = namesOffset + namesSize;
+        long size = nodesOffset + ((long) trie.size() * NODE_SIZE);
+        if (size > Integer.MAX_VALUE) {
+            throw new InvalidInputException("Too many foods for a single food database");
+        }
+
+        try (FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            int nameOffset = 0;
+            for (int id = 0; id < rows.size(); id++) {
+                Row row = rows.get(id);
+                int record = HEADER_SIZE + (id * RECORD_SIZE);
+                target.putInt(record + NAME_OFFSET, nameOffset);
+                target.putChar(record + KEY_LENGTH, (char) row.key.length);
+                target.putChar(record + NAME_LENGTH, (char) row.name.length);
+                target.putFloat(record + CALORIES, row.calories);
+                target.putFloat(record + CARBS, row.carbs);
+                target.putFloat(record + PROTEIN, row.protein);
+                target.putFloat(record + FAT, row.fat);
+                target.position((int) namesOffset + nameOffset);
+                target.put(row.key);
+                target.put(row.name);
+                nameOffset += row.key.length + row.name.length;
+            }
+            for (int node = 0; node < trie.size(); node++) {
+                int[] fields = trie.get(node);
+                int offset = (int) nodesOffset + (node * NODE_SIZE);
+                target.putChar(offset + LABEL, (char) fields[0]);
+                target.putChar(offset + CHILD_COUNT, (char) fields[4]);
+                target.putInt(offset + FIRST, fields[1]);
+                target.putInt(offset + END, fields[2]);
+                target.putInt(offset + FIRST_CHILD, fields[3]);
+            }
+
+            // the header goes last so a partly written file is never taken for a database
+            target.putInt(VERSION_FIELD, VERSION);
+            target.putInt(COUNT_FIELD, rows.size());
+            target.putInt(NODE_COUNT_FIELD, trie.size());
+            target.putLong(NAMES_FIELD, namesOffset);
+            target.putLong(NODES_FIELD, nodesOffset);
+            target.putInt(MAGIC_FIELD, MAGIC);
+            target.force();
+        }
+        return rows.size();
+    }
+
+    /**
+     * Lays out the trie breadth first, so the children of each node are consecutive.
+     *
+     * @return Nodes as label, first record, end record, first child, child count
+     */
+    private static List<int[]> buildTrie(List<Row> rows) {
+        List<int[]> trie = new ArrayList<>();
+        trie.add(new int[]{0, 0, rows.size(), 0, 0});
+        List<Integer> depths = new ArrayList<>();
+        depths.add(0);
+
+        for (int node = 0; node < trie.size(); node++) {
+            int[] fields = trie.get(node);
+            int depth = depths.get(node);
+            fields[3] = trie.size();
+            if (depth == TRIE_DEPTH) {
+                continue;
+            }
+            int id = fields[1];
+            // names no longer than the prefix sort first and belong to no child
+            while ((id < fields[2]) && (rows.get(id).key.length <= depth)) {
+                id++;
+            }
+            while (id < fields[2]) {
+                int label = rows.get(id).key[depth] & 0xFF;
+                int first = id;
+                while ((id < fields[2]) && ((rows.get(id).key[depth] & 0xFF) == label)) {
+                    id++;
+                }
+                trie.add(new int[]{label, first, id, 0, 0});
+                depths.add(depth + 1);
+                fields[4]++;
+            }
+        }
+        return trie;
+    }
+
+    /**
+     * A food read from a CSV row.
+     */
+    private static final class Row {
+        private final byte[] key;
+        private final byte[] name;
+        private final float calories;
+        private final float carbs;
+        private final float protein;
+        private final float fat;
+
+        private Row(String name, float calories, float carbs, float protein, float fat) {
+            this.key = key(name);
+            this.name = name.trim().getBytes(StandardCharsets.UTF_8);
+            this.calories = calories;
+            this.carbs = carbs;
+            this.protein = protein;
+            this.fat = fat;
+        }
+
+        private static Row parse(String line, long lineNumber) {
+            String[] columns = new String[5];
+            int end = line.length();
+            for (int column = 4; column > 0; column--) {
+                int comma = line.lastIndexOf(',', end - 1);
+                if (comma < 0) {
+                    throw new InvalidInputException("Line " + lineNumber + ": expected name,calories,carbs,protein,fat");
+                }
+                columns[column] = line.substring(comma + 1, end).trim();
+                end = comma;
+            }
+            columns[0] = line.substring(0, end).trim();
+
+            float[] values = new float[4];
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = Float.parseFloat(columns[i + 1]);
+                }
+            } catch (NumberFormatException e) {
+                throw new InvalidInputException("Line " + lineNumber + ": not a number");
+            }
+            for (float value : values) {
+                if (!(value >= 0) || (value > 1000)) {
+                    throw new InvalidInputException("Line " + lineNumber + ": not a valid amount per 100 g");
+                }
+            }
+            if (columns[0].isEmpty() || (columns[0].length() > Character.MAX_VALUE / 4)) {
+                throw new InvalidInputException("Line " + lineNumber + ": not a valid name");
+            }
+            return new Row(columns[0], values[0], values[1], values[2], values[3]);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * FoodTable
+ * This class holds the foods meal plans are made from.
+ * The standard table covers common staples with a portion size and its macronutrients.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.util.List;
+
+public final class FoodTable {
+    private static final FoodTable STANDARD = new FoodTable(List.of(
+            new Food("Oats", 40, 27, 5, 3),
+            new Food("Brown rice", 150, 35, 4, 1),
+            new Food("Whole wheat bread", 64, 24, 8, 2),
+            new Food("Pasta", 140, 43, 8, 1),
+            new Food("Potato", 170, 37, 4, 0),
+            new Food("Sweet potato", 130, 26, 2, 0),
+            new Food("Banana", 118, 27, 1, 0),
+            new Food("Apple", 182, 25, 0, 0),
+            new Food("Blueberries", 148, 21, 1, 0),
+            new Food("Broccoli", 150, 10, 4, 0),
+            new Food("Spinach", 100, 4, 3, 0),
+            new Food("Black beans", 172, 41, 15, 1),
+            new Food("Lentils", 198, 40, 18, 1),
+            new Food("Chicken breast", 120, 0, 37, 4),
+            new Food("Salmon", 120, 0, 30, 15),
+            new Food("Lean beef", 120, 0, 31, 12),
+            new Food("Tuna", 100, 0, 26, 1),
+            new Food("Eggs", 100, 1, 13, 10),
+            new Food("Greek yogurt", 170, 6, 17, 1),
+            new Food("Whole milk", 244, 12, 8, 8),
+            new Food("Cheddar", 28, 0, 7, 9),
+            new Food("Tofu", 126, 4, 20, 11),
+            new Food("Whey protein", 30, 3, 24, 1),
+            new Food("Almonds", 28, 6, 6, 14),
+            new Food("Peanut butter", 32, 7, 7, 16),
+            new Food("Avocado", 100, 9, 2, 15),
+            new Food("Olive oil", 14, 0, 0, 14),
+            new Food("Butter", 14, 0, 0, 12),
+            new Food("Bacon", 35, 0, 12, 14),
+            new Food("Dark chocolate", 28, 13, 2, 12)));
+
+    private final List<Food> foods;
+
+    /**
+     * @throws IllegalArgumentException If the table is empty
+     */
+    public FoodTable(List<Food> foods) {
+        if (foods.isEmpty()) {
+            throw new IllegalArgumentException("Food table cannot be empty");
+        }
+        this.foods = List.copyOf(foods);
+    }
+
+    /**
+     * @return Table of common staples
+     */
+    public static FoodTable standard() {
+        return STANDARD;
+    }
+
+    public List<Food> getFoods() {
+        return foods;
+    }
+
+    public int size() {
+        return foods.size();
+    }
+}
@@ -0,0 +1,728 @@
+/**
+ * HeapUserStore
+ * This class keeps users on the heap and stores them in a .dat file encoded by UserCodec.
+ * The file ends with a username index that is mapped when users are loaded, and each user is
+ * decoded from its own record only the first time it is needed. Records are grouped into CRC32C
+ * checksummed segments (see UserSegments) which are checked on load without decoding any user,
+ * so damage to the file costs only the users in the damaged segments. Since segments decode
+ * independently, decoding every user at once is split over the cores. Changes can optionally be
+ * journaled so they reach the disk before the file is rewritten.
+ * The store is thread-safe: reads take no lock, and writes to a username lock one of a set of
+ * stripes so that writes to different users rarely wait for each other. Each stripe keeps its
+ * users in a PackedUserMap, keyed by usernames packed into longs.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+public class HeapUserStore implements UserStore {
+    /**
+     * Identifies an indexed .dat file ("FDPU"). Files written before the index existed start
+     * with the Java serialization stream header instead.
+     */
+    private static final int MAGIC = 0x46445055;
+    private static final int VERSION = 2;
+    /**
+     * Version of files whose records are not grouped into checksummed segments. These still load.
+     */
+    private static final int UNSEGMENTED_VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    /**
+     * Index position, index entry count, CRC32C of the index and magic number at the very end of the file.
+     * Unsegmented files have no index checksum.
+     */
+    static final int TRAILER_SIZE = 20;
+    private static final int UNSEGMENTED_TRAILER_SIZE = 16;
+    /**
+     * Number of locks that writes to different usernames are spread over.
+     */
+    private static final int LOCK_STRIPES = 64;
+    /**
+     * Users that have been decoded, added or changed, keyed by username in one map per lock stripe.
+     * These take precedence over the records in the file
+     */
+    private final PackedUserMap[] users;
+    /**
+     * Usernames deleted since the file was written, hiding their records in the file's index.
+     */
+    private final Set<String> removed;
+    /**
+     * Locks serializing writes and decoding per username, so reads never need a lock.
+     */
+    private final Object[] locks;
+    /**
+     * File that stores a snapshot of all users between runs.
+     */
+    private final File dataFile;
+    /**
+     * Open .dat file and its index, null until an indexed file has been loaded.
+     */
+    private volatile Base base;
+    private final AtomicInteger size;
+    /**
+     * Write-ahead journal of changes, null unless journaling is enabled.
+     */
+    private UserJournal journal;
+    /**
+     * Outcome of checking the .dat file on the last load.
+     */
+    private volatile RecoveryReport recovery = RecoveryReport.CLEAN;
+
+    public HeapUserStore(File dataFile) {
+        this.users = new PackedUserMap[LOCK_STRIPES];
+        this.removed = ConcurrentHashMap.newKeySet();
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            users[i] = new PackedUserMap();
+            locks[i] = new Object();
+        }
+        this.dataFile = dataFile;
+        this.size = new AtomicInteger();
+    }
+
+    private static int stripe(String userName) {
+        int h = userName.hashCode();
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    private Object lockFor(String userName) {
+        return locks[stripe(userName)];
+    }
+
+    private PackedUserMap usersFor(String userName) {
+        return users[stripe(userName)];
+    }
+
+    /**
+     * Copies the users held on the heap into a list.
+     */
+    private List<User> heapUsers() {
+        List<User> heapUsers = new ArrayList<>();
+        for (PackedUserMap stripeUsers : users) {
+            stripeUsers.addValuesTo(heapUsers);
+        }
+        return heapUsers;
+    }
+
+    @Override
+    public User get(String userName) {
+        PackedUserMap stripeUsers = usersFor(userName);
+        User user = stripeUsers.get(userName);
+        if ((user != null) || (base == null) || removed.contains(userName)) {
+            return user;
+        }
+
+        synchronized (lockFor(userName)) {
+            // another thread may have decoded or deleted the user while this one waited
+            user = stripeUsers.get(userName);
+            if ((user != null) || removed.contains(userName)) {
+                return user;
+            }
+            user = decode(userName);
+            if (user != null) {
+                stripeUsers.put(userName, user);
+            }
+            return user;
+        }
+    }
+
+    private User decode(String userName) {
+        while (true) {
+            Base current = base;
+            int entry = current.index.find(userName);
+            if (entry < 0) {
+                return null;
+            }
+            try {
+                return UserCodec.decode(readRecord(current.channel, current.index, entry));
+            } catch (ClosedChannelException e) {
+                if (base == current) {
+                    throw new UncheckedIOException("Could not read user " + userName, e);
+                }
+                // a compaction replaced the file, read the user from the new one
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read user " + userName, e);
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(String userName) {
+        Base current = base;
+        return usersFor(userName).containsKey(userName)
+                || ((current != null) && !removed.contains(userName) && (current.index.find(userName) >= 0));
+    }
+
+    @Override
+    public void put(User user) {
+        String userName = checkLimit(user.getUserName());
+        synchronized (lockFor(userName)) {
+            if (!contains(userName)) {
+                size.incrementAndGet();
+            }
+            usersFor(userName).put(userName, user);
+            removed.remove(userName);
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(User user) {
+        String userName = checkLimit(user.getUserName());
+        synchronized (lockFor(userName)) {
+            if (contains(userName)) {
+                return false;
+            }
+            size.incrementAndGet();
+            usersFor(userName).put(userName, user);
+            removed.remove(userName);
+            return true;
+        }
+    }
+
+    private static String checkLimit(String userName) {
+        if (userName.length() > UserIndex.USERNAME_LIMIT) {
+            throw new InvalidInputException("Username has exceeded character limit");
+        }
+        return userName;
+    }
+
+    @Override
+    public User remove(String userName) {
+        synchronized (lockFor(userName)) {
+            User user = get(userName);
+            if (user != null) {
+                removed.add(userName);
+                usersFor(userName).remove(userName);
+                size.decrementAndGet();
+            }
+            return user;
+        }
+    }
+
+    @Override
+    public void update(User user) {
+        // users are held by reference, the change is already stored
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Copies every stored user into a list, decoding any user that has not been needed yet.
+     *
+     * @return List of stored users
+     */
+    @Override
+    public List<User> snapshot() {
+        Base current = base;
+        if ((current != null) && !decodeAll(ForkJoinPool.commonPool())) {
+            for (int entry = 0; entry < current.index.count(); entry++) {
+                get(current.index.userName(entry));
+            }
+        }
+        return heapUsers();
+    }
+
+    /**
+     * Decodes every user that has not been needed yet, so later retrievals never touch the file.
+     */
+    @Override
+    public void preload() {
+        decodeAll(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Decodes the users of every segment of the file in parallel. Each task reads a run of whole
+     * segments front to back, and users are merged into the map under their stripe lock, which
+     * threads decoding different segments rarely share.
+     *
+     * @param pool Pool running the decoding tasks
+     * @return True if every user was decoded, false if the file has no segments or was replaced meanwhile
+     */
+    boolean decodeAll(ForkJoinPool pool) {
+        Base current = base;
+        if ((current == null) || !current.segmented) {
+            return false;
+        }
+        try {
+            List<Long> positions = new ArrayList<>();
+            ByteBuffer header = ByteBuffer.allocate(UserSegments.HEADER_SIZE);
+            for (long position = HEADER_SIZE; position < current.indexOffset; ) {
+                positions.add(position);
+                header.clear();
+                readFully(current.channel, header, position);
+                position += UserSegments.HEADER_SIZE + header.getInt(4);
+            }
+            pool.invoke(new Decoder(current, positions, 0, positions.size()));
+            return true;
+        } catch (IOException e) {
+            return decodingAbandoned(current, e);
+        } catch (UncheckedIOException e) {
+            return decodingAbandoned(current, e.getCause());
+        }
+    }
+
+    /**
+     * @return False if reading failed because a compaction replaced the file, in which case users
+     * not decoded yet are read one by one
+     */
+    private boolean decodingAbandoned(Base current, IOException e) {
+        if ((e instanceof ClosedChannelException) && (base != current)) {
+            return false;
+        }
+        throw new UncheckedIOException("Could not read users", e);
+    }
+
+    /**
+     * Decodes a run of segments, splitting it while it holds more than one.
+     */
+    private final class Decoder extends RecursiveAction {
+        private final Base base;
+        private final List<Long> positions;
+        private final int from;
+        private final int to;
+
+        private Decoder(Base base, List<Long> positions, int from, int to) {
+            this.base = base;
+            this.positions = positions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Decoder(base, positions, from, middle), new Decoder(base, positions, middle, to));
+                return;
+            }
+            try {
+                for (int segment = from; segment < to; segment++) {
+                    decodeSegment(positions.get(segment));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void decodeSegment(long position) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(UserSegments.HEADER_SIZE);
+            readFully(base.channel, header, position);
+            ByteBuffer payload = ByteBuffer.allocate(header.getInt(4));
+            readFully(base.channel, payload, position + UserSegments.HEADER_SIZE);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload.array()));
+            int records = header.getInt(8);
+            for (int record = 0; record < records; record++) {
+                User user = UserCodec.read(in);
+                String userName = user.getUserName();
+                synchronized (lockFor(userName)) {
+                    // users changed, added or deleted since loading take precedence over the file
+                    PackedUserMap stripeUsers = usersFor(userName);
+                    if (!stripeUsers.containsKey(userName) && !removed.contains(userName)) {
+                        stripeUsers.put(userName, user);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of users held on the heap.
+     *
+     * @return Number of users decoded, added or changed since loading
+     */
+    int heapSize() {
+        int heapSize = 0;
+        for (PackedUserMap stripeUsers : users) {
+            heapSize += stripeUsers.size();
+        }
+        return heapSize;
+    }
+
+    /**
+     * Maps the index of the .dat file, then replays any journaled changes made after it was written.
+     * Files written before the index existed are read in full.
+     *
+     * @throws IOException If the file or journal cannot be read
+     */
+    @Override
+    public void load() throws IOException {
+        if (dataFile.isFile()) {
+            if (isIndexed(dataFile)) {
+                loadIndexed();
+            } else {
+                loadLegacy();
+            }
+        }
+
+        UserJournal.replay(dataFile, this);
+    }
+
+    /**
+     * @return True if the file or its journal exists
+     */
+    @Override
+    public boolean hasSavedUsers() {
+        return dataFile.isFile() || UserJournal.journalFile(dataFile).exists()
+                || UserJournal.rotatedFile(dataFile).exists();
+    }
+
+    private static boolean isIndexed(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return (file.length() >= HEADER_SIZE + UNSEGMENTED_TRAILER_SIZE) && (in.readInt() == MAGIC);
+        }
+    }
+
+    /**
+     * Maps the index, then checks the checksum of every segment. Users whose records are in a damaged
+     * segment are dropped and reported; if the index itself is damaged, users are read from the intact
+     * segments instead. Damaged ranges are copied to a .quarantine file next to the .dat file, which
+     * is then rewritten without them.
+     */
+    private void loadIndexed() throws IOException {
+        Base opened;
+        try {
+            opened = openBase(dataFile);
+        } catch (StreamCorruptedException e) {
+            if (readVersion(dataFile) == UNSEGMENTED_VERSION) {
+                throw e;
+            }
+            recoverWithoutIndex();
+            return;
+        }
+        base = opened;
+        size.set(opened.index.count());
+        if (!opened.segmented) {
+            return;
+        }
+
+        UserSegments.Check check = UserSegments.check(opened.channel, HEADER_SIZE, opened.indexOffset, null);
+        List<String> lost = new ArrayList<>();
+        if (!check.getDamaged().isEmpty()) {
+            UserIndex index = opened.index;
+            for (int entry = 0; entry < index.count(); entry++) {
+                if (check.isDamaged(index.recordOffset(entry))) {
+                    String userName = index.userName(entry);
+                    lost.add(userName);
+                    removed.add(userName);
+                }
+            }
+            size.addAndGet(-lost.size());
+        }
+        recovery = recover(opened.channel, check, lost, false);
+    }
+
+    private void recoverWithoutIndex() throws IOException {
+        try (FileChannel channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+            UserSegments.Check check = UserSegments.check(channel, HEADER_SIZE, channel.size(), (payload, records) -> {
+                byte[] bytes = new byte[payload.remaining()];
+                payload.get(bytes);
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+                for (int record = 0; record < records; record++) {
+                    put(UserCodec.read(in));
+                }
+            });
+            recovery = recover(channel, check, List.of(), true);
+        }
+    }
+
+    /**
+     * Copies damaged ranges to the quarantine file and rewrites the .dat file without them.
+     */
+    private RecoveryReport recover(FileChannel channel, UserSegments.Check check, List<String> lost,
+                                   boolean indexRebuilt) throws IOException {
+        if (check.getDamaged().isEmpty() && !indexRebuilt) {
+            return new RecoveryReport(check.getSegments(), 0, 0, lost, false, null);
+        }
+
+        File quarantine = new File(dataFile.getPath() + ".quarantine");
+        long damagedBytes = 0;
+        try (FileChannel out = FileChannel.open(quarantine.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (long[] range : check.getDamaged()) {
+                for (long position = range[0]; position < range[1]; ) {
+                    position += channel.transferTo(position, range[1] - position, out);
+                }
+                damagedBytes += range[1] - range[0];
+            }
+        }
+        writeSnapshot(capture());
+        return new RecoveryReport(check.getSegments(), check.getDamaged().size(), damagedBytes, lost, indexRebuilt,
+                check.getDamaged().isEmpty() ? null : quarantine);
+    }
+
+    @Override
+    public RecoveryReport getRecoveryReport() {
+        return recovery;
+    }
+
+    private static int readVersion(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readInt();
+            return in.readInt();
+        }
+    }
+
+    /**
+     * Opens a .dat file and maps its index, checking the index checksum of segmented files.
+     *
+     * @throws StreamCorruptedException If the trailer or index is damaged
+     */
+    private static Base openBase(File file) throws IOException {
+        boolean segmented = readVersion(file) != UNSEGMENTED_VERSION;
+        int trailerSize = segmented ? TRAILER_SIZE : UNSEGMENTED_TRAILER_SIZE;
+        FileChannel newChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long fileSize = newChannel.size();
+            if (fileSize < HEADER_SIZE + trailerSize) {
+                throw new StreamCorruptedException(file + " has no index");
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(trailerSize);
+            readFully(newChannel, trailer, fileSize - trailerSize);
+            trailer.flip();
+
+            long indexOffset = trailer.getLong();
+            int count = trailer.getInt();
+            int checksum = segmented ? trailer.getInt() : 0;
+            long indexSize = (long) count * UserIndex.ENTRY_SIZE;
+            if ((trailer.getInt() != MAGIC) || (count < 0) || (indexOffset < HEADER_SIZE)
+                    || (indexOffset + indexSize > fileSize - trailerSize)) {
+                throw new StreamCorruptedException(file + " has no index");
+            }
+
+            MappedByteBuffer entries = newChannel.map(FileChannel.MapMode.READ_ONLY, indexOffset, indexSize);
+            if (segmented) {
+                CRC32C crc = new CRC32C();
+                crc.update(entries.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    throw new StreamCorruptedException(file + " has a damaged index");
+                }
+            }
+            return new Base(newChannel, new UserIndex(entries, count), indexOffset, segmented);
+        } catch (IOException e) {
+            newChannel.close();
+            throw e;
+        }
+    }
+
+    private void loadLegacy() throws IOException {
+        try (ObjectInputStream loadUsers = new ObjectInputStream(new BufferedInputStream(new FileInputStream(dataFile)))) {
+            boolean eof = false;
+            while (!eof) {
+                try {
+                    put((User) loadUsers.readObject());
+                } catch (EOFException e) {
+                    eof = true;
+                }
+            }
+        } catch (ClassNotFoundException e) {
+            throw new InvalidClassException(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes every user to the .dat file. When journaling, the journal is compacted into the file instead.
+     *
+     * @throws IOException If the file cannot be written
+     */
+    @Override
+    public void save() throws IOException {
+        if (journal != null) {
+            journal.compact();
+            return;
+        }
+        writeSnapshot(capture());
+        UserJournal.journalFile(dataFile).delete();
+        UserJournal.rotatedFile(dataFile).delete();
+    }
+
+    /**
+     * Saves like save. Only capturing the users holds the stripe locks, for as long as it takes
+     * to copy the user map; encoding and writing them does not block readers or writers.
+     *
+     * @return Size of the new .dat file
+     * @throws IOException If the file cannot be written
+     */
+    @Override
+    public long checkpoint() throws IOException {
+        save();
+        return dataFile.length();
+    }
+
+    /**
+     * Captures the current state so it can be written while the store keeps changing.
+     * Users are captured by reference; a later change to one of them is also journaled.
+     *
+     * @return State to pass to writeSnapshot
+     */
+    Snapshot capture() {
+        return capture(0);
+    }
+
+    /**
+     * Holds every stripe lock while copying, so no write is half captured.
+     */
+    private Snapshot capture(int stripe) {
+        if (stripe == LOCK_STRIPES) {
+            return new Snapshot(base, heapUsers(), new HashSet<>(removed));
+        }
+        synchronized (locks[stripe]) {
+            return capture(stripe + 1);
+        }
+    }
+
+    /**
+     * Writes a captured state to a temporary file which then replaces the .dat file, so a crash
+     * while writing never leaves a partially written file behind. Records of users that were never
+     * decoded are copied from the current file as they are.
+     *
+     * @param snapshot State returned by capture
+     * @throws IOException If the file cannot be written
+     */
+    synchronized void writeSnapshot(Snapshot snapshot) throws IOException {
+        File tempFile = new File(dataFile.getPath() + ".tmp");
+        Map<String, long[]> entries = new TreeMap<>();
+
+        try (FileOutputStream file = new FileOutputStream(tempFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            UserSegments.Writer segments = new UserSegments.Writer(out, HEADER_SIZE);
+
+            Set<String> heapUsers = new HashSet<>();
+            for (User user : snapshot.users) {
+                heapUsers.add(user.getUserName());
+                byte[] record = UserCodec.encode(user);
+                entries.put(user.getUserName(), new long[]{segments.append(record), record.length});
+            }
+
+            if (snapshot.base != null) {
+                UserIndex index = snapshot.base.index;
+                for (int entry = 0; entry < index.count(); entry++) {
+                    String userName = index.userName(entry);
+                    if (!heapUsers.contains(userName) && !snapshot.removed.contains(userName)) {
+                        byte[] record = readRecord(snapshot.base.channel, index, entry);
+                        entries.put(userName, new long[]{segments.append(record), record.length});
+                    }
+                }
+            }
+
+            long position = segments.finish();
+
+            CRC32C crc = new CRC32C();
+            DataOutputStream index = new DataOutputStream(new CheckedOutputStream(out, crc));
+            for (Map.Entry<String, long[]> entry : entries.entrySet()) {
+                UserIndex.writeEntry(index, entry.getKey(), entry.getValue()[0], (int) entry.getValue()[1]);
+            }
+            index.flush();
+            out.writeLong(position);
+            out.writeInt(entries.size());
+            out.writeInt((int) crc.getValue());
+            out.writeInt(MAGIC);
+            out.flush();
+            file.getFD().sync();
+        }
+
+        Files.move(tempFile.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        Base old = base;
+        base = openBase(dataFile);
+        // only deletions captured in the new file can be forgotten, later ones still hide its records
+        removed.removeAll(snapshot.removed);
+        if (old != null) {
+            old.channel.close();
+        }
+    }
+
+    private static byte[] readRecord(FileChannel channel, UserIndex index, int entry) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(index.recordLength(entry));
+        readFully(channel, record, index.recordOffset(entry));
+        return record.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    @Override
+    public UserListener openJournal(long compactionThreshold) throws IOException {
+        if (journal == null) {
+            journal = new UserJournal(this, dataFile, compactionThreshold);
+        }
+        return journal;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        synchronized (this) {
+            if (base != null) {
+                base.channel.close();
+            }
+        }
+    }
+
+    /**
+     * Open .dat file together with its mapped index, replaced as a whole after every save.
+     */
+    private static final class Base {
+        private final FileChannel channel;
+        private final UserIndex index;
+        /**
+         * Position of the index, which follows the last record.
+         */
+        private final long indexOffset;
+        /**
+         * True if the records are grouped into checksummed segments.
+         */
+        private final boolean segmented;
+
+        private Base(FileChannel channel, UserIndex index, long indexOffset, boolean segmented) {
+            this.channel = channel;
+            this.index = index;
+            this.indexOffset = indexOffset;
+            this.segmented = segmented;
+        }
+    }
+
+    /**
+     * State of the store captured for writing a new .dat file.
+     */
+    static final class Snapshot {
+        private final Base base;
+        private final List<User> users;
+        private final Set<String> removed;
+
+        private Snapshot(Base base, List<User> users, Set<String> removed) {
+            this.base = base;
+            this.users = users;
+            this.removed = removed;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * ImportReport
+ * This class holds the outcome of a bulk import: how many users were created and
+ * which rows were rejected and why.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.util.Collections;
+import java.util.List;
+
+public final class ImportReport {
+    /**
+     * Number of users created.
+     */
+    private final int imported;
+    /**
+     * Rejected rows in the order they appear in the input.
+     */
+    private final List<Rejection> rejections;
+
+    ImportReport(int imported, List<Rejection> rejections) {
+        this.imported = imported;
+        this.rejections = Collections.unmodifiableList(rejections);
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public List<Rejection> getRejections() {
+        return rejections;
+    }
+
+    @Override
+    public String toString() {
+        return imported + " users imported, " + rejections.size() + " rows rejected";
+    }
+
+    /**
+     * A row that did not become a user.
+     */
+    public static final class Rejection {
+        /**
+         * Line of the row in the input, starting at 1.
+         */
+        private final long line;
+        /**
+         * Username given in the row, or null if the row has no columns.
+         */
+        private final String userName;
+        /**
+         * Every reason the row was rejected, separated by "; ".
+         */
+        private final String reason;
+
+        Rejection(long line, String userName, String reason) {
+            this.line = line;
+            this.userName = userName;
+            this.reason = reason;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getUserName() {
+            return userName;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + " (" + userName + "): " + reason;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ * Json
+ * This class writes and reads the small JSON documents exchanged by UserServer.
+ * Requests are flat objects whose values are strings, numbers, booleans or null; nested values are rejected.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class Json {
+    private final StringBuilder out = new StringBuilder(256);
+    /**
+     * True when the next value written is the first of its object.
+     */
+    private boolean first = true;
+
+    Json() {
+        out.append('{');
+    }
+
+    Json field(String name, String value) {
+        name(name);
+        if (value == null) {
+            out.append("null");
+        } else {
+            quote(value);
+        }
+        return this;
+    }
+
+    Json field(String name, double value) {
+        name(name);
+        if (Double.isFinite(value)) {
+            out.append(value);
+        } else {
+            out.append("null");
+        }
+        return this;
+    }
+
+    Json field(String name, long value) {
+        name(name);
+        out.append(value);
+        return this;
+    }
+
+    Json field(String name, boolean value) {
+        name(name);
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * Starts a nested object, closed by end.
+     */
+    Json object(String name) {
+        name(name);
+        out.append('{');
+        first = true;
+        return this;
+    }
+
+    Json end() {
+        out.append('}');
+        first = false;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out + "}";
+    }
+
+    private void name(String name) {
+        if (!first) {
+            out.append(',');
+        }
+        first = false;
+        quote(name);
+        out.append(':');
+    }
+
+    private void quote(String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Parses a flat JSON object.
+     *
+     * @param text JSON text
+     * @return Every field's value as text, or null for JSON null, in document order
+     * @throws InvalidInputException If the text is not a flat JSON object
+     */
+    static Map<String, String> parseObject(String text) {
+        return new Parser(text).parseObject();
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int position;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        private Map<String, String> parseObject() {
+            Map<String, String> fields = new LinkedHashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                position++;
+            } else {
+                do {
+                    String name = parseString();
+                    expect(':');
+                    fields.put(name, parseValue());
+                } while (accept(','));
+                expect('}');
+            }
+            if (peek() != 0) {
+                throw error("Unexpected content");
+            }
+            return fields;
+        }
+
+        private String parseValue() {
+            char c = peek();
+            if (c == '"') {
+                return parseString();
+            }
+            int start = position;
+            while ((position < text.length()) && (",}] \t\r\n".indexOf(text.charAt(position)) < 0)) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.equals("true") || literal.equals("false") || literal.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+                return literal;
+            }
+            throw error("Unsupported value");
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("Bad escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Bad escape");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        /**
+         * Skips whitespace and returns the next character, or 0 at the end of the text.
+         */
+        private char peek() {
+            while ((position < text.length()) && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            return (position < text.length()) ? text.charAt(position) : 0;
+        }
+
+        private boolean accept(char c) {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private InvalidInputException error(String message) {
+            return new InvalidInputException("Malformed JSON: " + message + " at " + position);
+        }
+    }
+}
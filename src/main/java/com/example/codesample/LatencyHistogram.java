@@ -0,0 +1,144 @@
+/**
+ * LatencyHistogram
+ * This class records latencies in nanoseconds into log-linear buckets, in the manner of an HDR
+ * histogram: values below 32 get a bucket each, and every power of two above that is split into
+ * 16 buckets, so any recorded value is known to within about 6%. Recording is one atomic increment
+ * into a fixed array, whatever the value, and percentiles are read from a copy of the counts.
+ *
+ * Calls of similar latency land in the same bucket, so the buckets are striped: each thread counts
+ * into one of several copies of the array, picked by its id, and the copies are added up on read.
+ * Threads timing the same operation thus rarely update the same cache line. The number of calls
+ * and their total latency are kept in LongAdders.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+final class LatencyHistogram {
+    private static final int LINEAR = 32;
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Largest value told apart from larger ones, about 36 minutes in nanoseconds.
+     */
+    static final long MAX_VALUE = (1L << 41) - 1;
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+    /**
+     * Copies of the buckets, a power of two of about twice the processors, at most 64.
+     */
+    private static final int STRIPES = Math.min(64,
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2));
+
+    /**
+     * Bucket counts of every stripe, one stripe after another.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @return Bucket holding a value from 0 to MAX_VALUE
+     */
+    static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * @return Largest value held by a bucket
+     */
+    static long highestValue(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Records a latency, clamping negative values to 0 and large ones to MAX_VALUE.
+     *
+     * @param nanos Latency in nanoseconds
+     */
+    void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet((stripe() * BUCKETS) + index(value));
+        count.increment();
+        total.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * @return Stripe of the calling thread
+     */
+    private static int stripe() {
+        long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (STRIPES - 1);
+    }
+
+    /**
+     * @return Number of recorded latencies
+     */
+    long count() {
+        return count.sum();
+    }
+
+    /**
+     * @return Mean recorded latency in nanoseconds, 0 if nothing was recorded
+     */
+    double mean() {
+        long count = count();
+        return (count == 0) ? 0 : (double) total.sum() / count;
+    }
+
+    /**
+     * @return Largest recorded latency in nanoseconds
+     */
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the latency below which a percentage of the recorded latencies fall.
+     *
+     * @param percentile Percentage from 0 to 100
+     * @return Highest latency of the bucket holding the percentile, in nanoseconds, 0 if nothing was recorded
+     */
+    long percentile(double percentile) {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            for (int i = 0; i < BUCKETS; i++) {
+                copy[i] += counts.get((stripe * BUCKETS) + i);
+            }
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            count += copy[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += copy[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max());
+            }
+        }
+        return max();
+    }
+}
@@ -9,6 +9,15 @@
 
 package com.example.codesample;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.InputMismatchException;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
@@ -22,10 +31,70 @@ class Main {
      * Scanner that handles all user input until the program terminates.
      */
     private static Scanner scanner = new Scanner(System.in);
+    /**
+     * Shows messages from the user system without holding up user input.
+     * Flushed before each prompt that follows a message
+     */
+    private static ConsoleSink console = new ConsoleSink();
+    /**
+     * Port the HTTP API listens on unless another is given.
+     */
+    private static final int DEFAULT_PORT = 8080;
+    /**
+     * Time between background saves of changed users.
+     */
+    private static final Duration CHECKPOINT_INTERVAL = Duration.ofSeconds(30);
 
+    /**
+     * Runs the interactive menus, or with --serve [port] serves users over HTTP until Enter is pressed,
+     * or with --batch [file] runs the commands in the file (or piped to stdin) and saves once at the end.
+     * Outside batch mode changed users are saved in the background every CHECKPOINT_INTERVAL and on exit.
+     * A server decodes every stored user while loading, so no request waits for the file.
+     * Metrics of every run are registered with JMX, and a server prints them when it stops.
+     * Users are kept in Users.dat, or split into N shard files next to it when -Dshards=N is set;
+     * users saved under another shard count are then resharded on start.
+     *
+     * @param args Command line arguments
+     */
     public static void main(String[] args) {
-        UserSystem userSystem = new UserSystem();
-        userSystem.loadUsers();
+        Integer shards = Integer.getInteger("shards");
+        UserSystem userSystem = (shards != null) ? new UserSystem(new File("Users.dat"), shards)
+                : new UserSystem(new File("Users.dat"));
+        userSystem.enableMetrics().register("Users");
+        boolean batchMode = (args.length > 0) && args[0].equals("--batch");
+        boolean serveMode = (args.length > 0) && args[0].equals("--serve");
+        // a server's users are not at the console, so only the interactive menus show messages
+        if (!batchMode && !serveMode) {
+            userSystem.setOutputSink(console);
+        }
+        userSystem.loadUsers(serveMode);
+
+        if (batchMode) {
+            long failed = batch(userSystem, (args.length > 1) ? args[1] : "-");
+            userSystem.saveUsers();
+            userSystem.close();
+            console.close();
+            if (failed > 0) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        userSystem.enableJournal();
+        Checkpointer checkpointer = new Checkpointer(userSystem, CHECKPOINT_INTERVAL);
+
+        if (serveMode) {
+            RecoveryReport recovery = userSystem.getRecoveryReport();
+            if (!recovery.isClean()) {
+                System.out.println("Stored users were damaged: " + recovery);
+            }
+            serve(userSystem, (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_PORT);
+            stopCheckpoints(checkpointer);
+            System.out.print(userSystem.getMetrics().dump());
+            userSystem.close();
+            console.close();
+            return;
+        }
 
         int option = 0;
         boolean quit = false;
@@ -65,11 +134,60 @@ class Main {
         }
         if (!quit) {
             userMenu(user, userSystem);
-            userSystem.saveUsers();
         }
+        stopCheckpoints(checkpointer);
+        userSystem.close();
+        console.close();
         scanner.close();
     }
 
+    /**
+     * Runs a command script, reporting failed commands on stderr.
+     *
+     * @return Number of failed commands, or 1 if the script cannot be read
+     */
+    private static long batch(UserSystem userSystem, String file) {
+        try (ConsoleSink errors = new ConsoleSink(System.err, Charset.defaultCharset());
+             Reader script = file.equals("-") ? new InputStreamReader(System.in, Charset.defaultCharset())
+                     : Files.newBufferedReader(Paths.get(file), Charset.defaultCharset())) {
+            CommandBatch commands = new CommandBatch(userSystem, console, errors);
+            long failed = commands.run(script);
+            console.message(commands.getExecuted() + " commands run, " + failed + " failed");
+            return failed;
+        } catch (IOException e) {
+            System.err.println("Cannot read " + file + ": " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Stops background saves, saving any changes made since the last one.
+     */
+    private static void stopCheckpoints(Checkpointer checkpointer) {
+        try {
+            checkpointer.close();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static void serve(UserSystem userSystem, int port) {
+        // Without TCP_NODELAY keep-alive requests wait on delayed ACKs; -D on the command line still wins
+        if (System.getProperty(UserServer.NODELAY_PROPERTY) == null) {
+            System.setProperty(UserServer.NODELAY_PROPERTY, "true");
+        }
+        try (UserServer server = new UserServer(userSystem, new InetSocketAddress(port))) {
+            server.start();
+            System.out.println("Serving users on port " + server.getPort() + ". Press Enter to stop...");
+            scanner.nextLine();
+        } catch (IOException e) {
+            System.out.println("Cannot serve on port " + port + ": " + e.getMessage());
+        } catch (NoSuchElementException e) {
+            // Input closed, stop serving
+        }
+    }
+
     private static void displayMainMenu() {
         System.out.printf("Fitness Plan Generator %n"
                 + "---------------------- %n"
@@ -84,10 +202,12 @@ class Main {
             try {
                 System.out.println("Enter username (10 character limit): ");
                 String userName = userSystem.checkCharLimit(scanner.nextLine(), 10);
+                console.flush();
                 if (!userSystem.validateUsername(userName)) {
 
                     System.out.println("Enter name (25 character limit): ");
                     String name = userSystem.checkCharLimit(scanner.nextLine(), 25);
+                    console.flush();
                     System.out.println("Gender? male/female: ");
                     char gender = scanner.next().charAt(0);
                     System.out.println("Enter age: ");
@@ -194,11 +314,13 @@ class Main {
 
     private static void userMenu(User user, UserSystem userSystem) {
 
+        console.flush();
         displayUserMenu();
 
         int option = 0;
 
         while (option != 8) {
+            console.flush();
             System.out.println("Enter User option: ");
             try {
                 option = scanner.nextInt();
@@ -207,14 +329,19 @@ class Main {
                         user.displayUserDetails();
                         break;
                     case 2:
-                        user.changeDietPlan();
+                        Diet diet = user.changeDietPlan();
+                        console.message("Switched to a " + (diet.isBulking() ? "Bulking" : "Cutting") + " diet plan");
                         break;
                     case 3:
                         System.out.println(user.getDiet().changeCalorieOffset());
                         System.out.println("Enter Option:");
 
                         int calorieOption = scanner.nextInt();
-                        user.getDiet().changeCalorieIntake(calorieOption);
+                        if (user.changeCalorieIntake(calorieOption)) {
+                            console.message(user.getDiet().displayCalorieOffset());
+                        } else {
+                            console.message("No Action Taken");
+                        }
                         break;
                     case 4:
                         user.getDiet().expectedProgress();
@@ -230,7 +357,11 @@ class Main {
                                 MacroDiets.DEFAULT.displayMacroPercentages());
                         int dietOption = scanner.nextInt();
 
-                        user.getDiet().changeMacroDiet(dietOption);
+                        if (user.changeMacroDiet(dietOption)) {
+                            console.message(user.getDiet().getDiets().getName() + " diet active");
+                        } else {
+                            console.message("Not a valid option");
+                        }
                         break;
                     case 6:
                         System.out.println("are you sure you want to delete this account? yes/no");
@@ -0,0 +1,503 @@
+/**
+ * MappedUserStore
+ * This class keeps users in fixed-width records inside a memory-mapped file instead of on the heap.
+ * The records form an open-addressing hash table keyed by username, so opening the store only maps
+ * the file, lookups read fields in place and diet changes write single fields back to the record.
+ * Users returned by the store are views built from their record; changes reach the record through
+ * UserSystem's change notifications. Single diet figures can also be read by username straight from
+ * the record, without building a user. Every change is written in place, so journaling is a no-op.
+ * This class is not thread-safe.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MappedUserStore implements UserStore {
+    /**
+     * Identifies a mapped user store file ("FDPM").
+     */
+    private static final int MAGIC = 0x4644504D;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 128;
+    /**
+     * Character limits enforced by UserSystem, which fix the width of the string fields.
+     */
+    static final int USERNAME_LIMIT = 10;
+    static final int NAME_LIMIT = 25;
+    private static final int INITIAL_CAPACITY = 1024;
+    /**
+     * Largest table that fits in a single mapping (about 5.8 million users at the maximum load).
+     */
+    private static final int MAX_CAPACITY = 1 << 23;
+    private static final double MAX_LOAD = 0.7;
+
+    // header fields
+    private static final int MAGIC_FIELD = 0;
+    private static final int VERSION_FIELD = 4;
+    private static final int CAPACITY_FIELD = 8;
+    private static final int COUNT_FIELD = 12;
+    private static final int USED_FIELD = 16;
+
+    // record fields
+    private static final int STATE = 0;
+    private static final int FLAGS = 1;
+    private static final int MACRO_DIET = 2;
+    private static final int USERNAME_LENGTH = 3;
+    private static final int NAME_LENGTH = 4;
+    private static final int GENDER = 6;
+    private static final int AGE = 8;
+    private static final int CALORIE_OFFSET = 12;
+    private static final int HEIGHT = 16;
+    private static final int WEIGHT = 24;
+    private static final int TDEE = 32;
+    private static final int BMI = 40;
+    private static final int USERNAME = 48;
+    private static final int NAME = USERNAME + (2 * USERNAME_LIMIT);
+
+    private static final byte EMPTY = 0;
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 2;
+    private static final byte BULKING = 1;
+
+    private static final MacroDiets[] MACRO_DIETS = MacroDiets.values();
+
+    /**
+     * Journal of a store that writes every change to its record as it happens, so there is nothing to log.
+     */
+    private static final UserListener IN_PLACE = new UserListener() {
+        @Override
+        public void userAdded(User user) {
+        }
+
+        @Override
+        public void userDeleted(User user) {
+        }
+
+        @Override
+        public void userChanged(User user) {
+        }
+    };
+
+    private final File file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    /**
+     * Number of record slots, always a power of two.
+     */
+    private int capacity;
+    /**
+     * Number of live records.
+     */
+    private int count;
+    /**
+     * Number of live and deleted records, which both lengthen probe sequences.
+     */
+    private int used;
+
+    /**
+     * Opens the store, creating its file if it does not exist. Only the header is read.
+     *
+     * @param file File holding the records
+     * @throws IOException If the file cannot be opened or is not a mapped user store
+     */
+    public MappedUserStore(File file) throws IOException {
+        this.file = file;
+        open();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        if (channel.size() == 0) {
+            map(INITIAL_CAPACITY);
+            buffer.putInt(MAGIC_FIELD, MAGIC);
+            buffer.putInt(VERSION_FIELD, VERSION);
+            buffer.putInt(CAPACITY_FIELD, INITIAL_CAPACITY);
+            capacity = INITIAL_CAPACITY;
+            return;
+        }
+
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if ((header.getInt(MAGIC_FIELD) != MAGIC) || (header.getInt(VERSION_FIELD) != VERSION)) {
+            channel.close();
+            throw new StreamCorruptedException(file + " is not a mapped user store");
+        }
+        capacity = header.getInt(CAPACITY_FIELD);
+        count = header.getInt(COUNT_FIELD);
+        used = header.getInt(USED_FIELD);
+        map(capacity);
+    }
+
+    private void map(int slots) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + ((long) slots * RECORD_SIZE));
+    }
+
+    private static int recordOffset(int slot) {
+        return HEADER_SIZE + (slot * RECORD_SIZE);
+    }
+
+    private static int hash(String userName) {
+        int h = userName.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Finds the slot holding a username by probing the table in place.
+     *
+     * @return Slot of the username's record, or -1 if it is not stored
+     */
+    private int find(String userName) {
+        int mask = capacity - 1;
+        for (int slot = hash(userName) & mask, probes = 0; probes < capacity; slot = (slot + 1) & mask, probes++) {
+            int record = recordOffset(slot);
+            byte state = buffer.get(record + STATE);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if ((state == LIVE) && matches(record, userName)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(int record, String userName) {
+        int length = buffer.get(record + USERNAME_LENGTH);
+        if (length != userName.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.getChar(record + USERNAME + (2 * i)) != userName.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the first deleted or empty slot on a username's probe sequence.
+     */
+    private int insertionSlot(String userName) {
+        int mask = capacity - 1;
+        int slot = hash(userName) & mask;
+        while (buffer.get(recordOffset(slot) + STATE) == LIVE) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @Override
+    public User get(String userName) {
+        int slot = find(userName);
+        return (slot < 0) ? null : read(recordOffset(slot));
+    }
+
+    @Override
+    public boolean contains(String userName) {
+        return find(userName) >= 0;
+    }
+
+    /**
+     * @return Offset of a username's record
+     * @throws UserNotFoundException If the username is not stored
+     */
+    private int recordOf(String userName) {
+        int slot = find(userName);
+        if (slot < 0) {
+            throw new UserNotFoundException("Username does not exist");
+        }
+        return recordOffset(slot);
+    }
+
+    /**
+     * Reads a user's daily calorie intake from its record, without building the user.
+     *
+     * @param userName User's username
+     * @return TDEE plus the surplus of a bulking user, or minus the deficit of a cutting one
+     * @throws UserNotFoundException If the username is not stored
+     */
+    public double getDailyCalories(String userName) {
+        int record = recordOf(userName);
+        double tdee = buffer.getDouble(record + TDEE);
+        int calorieOffset = buffer.getInt(record + CALORIE_OFFSET);
+        return ((buffer.get(record + FLAGS) & BULKING) != 0) ? tdee + calorieOffset : tdee - calorieOffset;
+    }
+
+    /**
+     * Reads a user's TDEE from its record, without building the user.
+     *
+     * @param userName User's username
+     * @return User's TDEE
+     * @throws UserNotFoundException If the username is not stored
+     */
+    public double getTdee(String userName) {
+        return buffer.getDouble(recordOf(userName) + TDEE);
+    }
+
+    /**
+     * Reads a user's BMI from its record, without building the user.
+     *
+     * @param userName User's username
+     * @return User's BMI
+     * @throws UserNotFoundException If the username is not stored
+     */
+    public double getBmi(String userName) {
+        return buffer.getDouble(recordOf(userName) + BMI);
+    }
+
+    /**
+     * Reads a user's macronutrient diet from its record, without building the user.
+     *
+     * @param userName User's username
+     * @return User's macronutrient diet
+     * @throws UserNotFoundException If the username is not stored
+     */
+    public MacroDiets getMacroDiet(String userName) {
+        return macroDiet(recordOf(userName));
+    }
+
+    @Override
+    public void put(User user) {
+        String userName = user.getUserName();
+        if ((userName.length() > USERNAME_LIMIT) || (user.getPerson().getName().length() > NAME_LIMIT)) {
+            throw new InvalidInputException("Username/name have exceeded character limit");
+        }
+
+        int slot = find(userName);
+        if (slot < 0) {
+            if ((used + 1) > (capacity * MAX_LOAD)) {
+                // rehash in place when deleted records rather than live ones fill the table
+                resize(((count + 1) > (capacity * MAX_LOAD / 2)) ? capacity * 2 : capacity);
+            }
+            slot = insertionSlot(userName);
+            if (buffer.get(recordOffset(slot) + STATE) == EMPTY) {
+                used++;
+            }
+            count++;
+            writeCounts();
+        }
+        write(recordOffset(slot), user);
+    }
+
+    @Override
+    public User remove(String userName) {
+        int slot = find(userName);
+        if (slot < 0) {
+            return null;
+        }
+        int record = recordOffset(slot);
+        User user = read(record);
+        buffer.put(record + STATE, DELETED);
+        count--;
+        writeCounts();
+        return user;
+    }
+
+    /**
+     * Writes only the diet plan fields of a user's record.
+     */
+    @Override
+    public void update(User user) {
+        int slot = find(user.getUserName());
+        if (slot >= 0) {
+            int record = recordOffset(slot);
+            Diet diet = user.getDiet();
+            buffer.put(record + FLAGS, diet.isBulking() ? BULKING : 0);
+            buffer.put(record + MACRO_DIET, (byte) diet.getDiets().ordinal());
+            buffer.putInt(record + CALORIE_OFFSET, diet.getCalorieOffset());
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public List<User> snapshot() {
+        List<User> users = new ArrayList<>(count);
+        for (int slot = 0; slot < capacity; slot++) {
+            int record = recordOffset(slot);
+            if (buffer.get(record + STATE) == LIVE) {
+                users.add(read(record));
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Records are read in place when they are needed, so nothing is loaded up front.
+     */
+    @Override
+    public void load() {
+    }
+
+    /**
+     * Records are read in place when needed, so load never reads anything.
+     *
+     * @return False
+     */
+    @Override
+    public boolean hasSavedUsers() {
+        return false;
+    }
+
+    /**
+     * Flushes changed records to the file.
+     */
+    @Override
+    public void save() {
+        buffer.force();
+    }
+
+    /**
+     * Every change is already written to its record, so the journal ignores them.
+     *
+     * @return Listener ignoring every change
+     */
+    @Override
+    public UserListener openJournal(long compactionThreshold) {
+        return IN_PLACE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void writeCounts() {
+        buffer.putInt(COUNT_FIELD, count);
+        buffer.putInt(USED_FIELD, used);
+    }
+
+    private void write(int record, User user) {
+        Person person = user.getPerson();
+        Diet diet = user.getDiet();
+
+        buffer.put(record + FLAGS, diet.isBulking() ? BULKING : 0);
+        buffer.put(record + MACRO_DIET, (byte) diet.getDiets().ordinal());
+        buffer.putChar(record + GENDER, person.getGender());
+        buffer.putInt(record + AGE, person.getAge());
+        buffer.putInt(record + CALORIE_OFFSET, diet.getCalorieOffset());
+        buffer.putDouble(record + HEIGHT, person.getHeight());
+        buffer.putDouble(record + WEIGHT, person.getWeight());
+        buffer.putDouble(record + TDEE, diet.getTdee());
+        buffer.putDouble(record + BMI, diet.getBmi());
+        writeString(record + USERNAME_LENGTH, record + USERNAME, user.getUserName());
+        writeString(record + NAME_LENGTH, record + NAME, person.getName());
+        // the record only becomes visible to lookups once every field is written
+        buffer.put(record + STATE, LIVE);
+    }
+
+    private void writeString(int lengthField, int field, String value) {
+        buffer.put(lengthField, (byte) value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer.putChar(field + (2 * i), value.charAt(i));
+        }
+    }
+
+    private String readString(int lengthField, int field) {
+        char[] chars = new char[buffer.get(lengthField)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = buffer.getChar(field + (2 * i));
+        }
+        return new String(chars);
+    }
+
+    private User read(int record) {
+        Person person = new Person(readString(record + NAME_LENGTH, record + NAME),
+                buffer.getChar(record + GENDER), buffer.getDouble(record + HEIGHT),
+                buffer.getDouble(record + WEIGHT), buffer.getInt(record + AGE));
+
+        double tdee = buffer.getDouble(record + TDEE);
+        double bmi = buffer.getDouble(record + BMI);
+        MacroDiets macroDiet = macroDiet(record);
+        int calorieOffset = buffer.getInt(record + CALORIE_OFFSET);
+        Diet diet = (buffer.get(record + FLAGS) & BULKING) != 0
+                ? new BulkingDiet(tdee, bmi, macroDiet, calorieOffset)
+                : new CuttingDiet(tdee, bmi, macroDiet, calorieOffset);
+
+        return new User(readString(record + USERNAME_LENGTH, record + USERNAME), person, diet);
+    }
+
+    /**
+     * @throws UncheckedIOException If the record holds no valid macro diet, i.e. the file is damaged
+     */
+    private MacroDiets macroDiet(int record) {
+        byte ordinal = buffer.get(record + MACRO_DIET);
+        if ((ordinal < 0) || (ordinal >= MACRO_DIETS.length)) {
+            throw new UncheckedIOException(new StreamCorruptedException(file + " has a damaged record of "
+                    + readString(record + USERNAME_LENGTH, record + USERNAME) + ": unknown macro diet " + ordinal));
+        }
+        return MACRO_DIETS[ordinal];
+    }
+
+    /**
+     * Rehashes every live record into a new file, which then replaces the current one.
+     * Deleted records are dropped along the way.
+     */
+    private void resize(int newCapacity) {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Mapped user store is full");
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileChannel tempChannel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer target = tempChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + ((long) newCapacity * RECORD_SIZE));
+            int mask = newCapacity - 1;
+            byte[] record = new byte[RECORD_SIZE];
+
+            for (int slot = 0; slot < capacity; slot++) {
+                int offset = recordOffset(slot);
+                if (buffer.get(offset + STATE) != LIVE) {
+                    continue;
+                }
+                buffer.position(offset);
+                buffer.get(record);
+                int newSlot = hash(readString(offset + USERNAME_LENGTH, offset + USERNAME)) & mask;
+                while (target.get(recordOffset(newSlot) + STATE) != EMPTY) {
+                    newSlot = (newSlot + 1) & mask;
+                }
+                target.position(recordOffset(newSlot));
+                target.put(record);
+            }
+
+            target.putInt(MAGIC_FIELD, MAGIC);
+            target.putInt(VERSION_FIELD, VERSION);
+            target.putInt(CAPACITY_FIELD, newCapacity);
+            target.putInt(COUNT_FIELD, count);
+            target.putInt(USED_FIELD, count);
+            target.force();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not resize " + file, e);
+        }
+
+        try {
+            channel.close();
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not resize " + file, e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * MealPlan
+ * This class holds a day of food picked to match a diet's macronutrient targets: how many servings
+ * of each food, and how close the totals come to the targets.
+ * Plans are immutable and shared between every user with the same targets.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.util.Collections;
+import java.util.List;
+
+public final class MealPlan {
+    /**
+     * Macronutrient targets the plan was picked for (in grams).
+     */
+    private final int targetCarbs;
+    private final int targetProtein;
+    private final int targetFat;
+    private final List<Serving> servings;
+    /**
+     * Macronutrients of every serving together (in grams).
+     */
+    private final double carbs;
+    private final double protein;
+    private final double fat;
+    /**
+     * Calories of every serving together.
+     */
+    private final double calories;
+    /**
+     * True if every macronutrient is within the planner's tolerance of its target.
+     */
+    private final boolean withinTolerance;
+
+    MealPlan(int targetCarbs, int targetProtein, int targetFat, List<Serving> servings, boolean withinTolerance) {
+        this.targetCarbs = targetCarbs;
+        this.targetProtein = targetProtein;
+        this.targetFat = targetFat;
+        this.servings = Collections.unmodifiableList(servings);
+        this.withinTolerance = withinTolerance;
+
+        double totalCarbs = 0;
+        double totalProtein = 0;
+        double totalFat = 0;
+        double totalCalories = 0;
+        for (Serving serving : servings) {
+            totalCarbs += serving.count * serving.food.getCarbs();
+            totalProtein += serving.count * serving.food.getProtein();
+            totalFat += serving.count * serving.food.getFat();
+            totalCalories += serving.count * serving.food.getCalories();
+        }
+        this.carbs = totalCarbs;
+        this.protein = totalProtein;
+        this.fat = totalFat;
+        this.calories = totalCalories;
+    }
+
+    public int getTargetCarbs() {
+        return targetCarbs;
+    }
+
+    public int getTargetProtein() {
+        return targetProtein;
+    }
+
+    public int getTargetFat() {
+        return targetFat;
+    }
+
+    public List<Serving> getServings() {
+        return servings;
+    }
+
+    public double getCarbs() {
+        return carbs;
+    }
+
+    public double getProtein() {
+        return protein;
+    }
+
+    public double getFat() {
+        return fat;
+    }
+
+    public double getCalories() {
+        return calories;
+    }
+
+    public boolean isWithinTolerance() {
+        return withinTolerance;
+    }
+
+    /**
+     * Displays every serving followed by the totals against the targets.
+     *
+     * @return Plan as a string, one serving per line
+     */
+    public String displayMealPlan() {
+        StringBuilder display = new StringBuilder();
+        String newLine = System.lineSeparator();
+        for (Serving serving : servings) {
+            display.append(serving).append(newLine);
+        }
+        display.append(String.format("Carbs: %.0f/%d g Protein: %.0f/%d g Fat: %.0f/%d g (%.0f calories)",
+                carbs, targetCarbs, protein, targetProtein, fat, targetFat, getCalories()));
+        return display.toString();
+    }
+
+    /**
+     * A number of servings of one food.
+     */
+    public static final class Serving {
+        private final Food food;
+        private final int count;
+
+        Serving(Food food, int count) {
+            this.food = food;
+            this.count = count;
+        }
+
+        public Food getFood() {
+            return food;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return count + " x " + food;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ * MealPlanner
+ * This class turns a diet's daily macronutrient grams into a meal plan of whole servings from a food table.
+ *
+ * Plans are found with a depth first branch and bound over the number of servings of each food. A branch
+ * is cut when it overshoots a target by more than the tolerance, or when even the most the remaining
+ * foods can add can neither bring every target within tolerance nor beat the closest plan found so far.
+ * Every plan visited is checked against the tolerance, and the search stops at the first plan within
+ * it, or after a fixed number of nodes with the closest plan found.
+ *
+ * Targets are rounded to QUANTUM grams before solving and plans are kept by rounded targets,
+ * so thousands of users on the same diet with similar calories share one solved plan. Plans are solved
+ * outside the map, so a long solve never holds up lookups of other targets; two threads asking for the
+ * same new targets at once may both solve them, and the first plan stored is kept.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class MealPlanner {
+    /**
+     * Targets are rounded to a multiple of this many grams.
+     */
+    static final int QUANTUM = 5;
+    /**
+     * Each macronutrient may miss its rounded target by this share of the target, or MIN_TOLERANCE grams
+     * if that is more.
+     */
+    static final double TOLERANCE = .10;
+    static final double MIN_TOLERANCE = 5;
+    /**
+     * Most servings of a single food, and most different foods, in a plan.
+     */
+    static final int MAX_SERVINGS = 4;
+    static final int MAX_FOODS = 8;
+    /**
+     * Nodes searched before settling for the closest plan found.
+     */
+    static final int NODE_LIMIT = 200_000;
+
+    /**
+     * Foods from most to least calories per serving, so big servings are placed before the small ones
+     * that fine tune the totals.
+     */
+    private final Food[] foods;
+    private final double[] carbs;
+    private final double[] protein;
+    private final double[] fat;
+    /**
+     * Most grams of each macronutrient that the foods from an index onwards can add.
+     */
+    private final double[] carbsLeft;
+    private final double[] proteinLeft;
+    private final double[] fatLeft;
+    /**
+     * Solved plans keyed by rounded targets.
+     */
+    private final ConcurrentHashMap<Long, MealPlan> plans = new ConcurrentHashMap<>();
+
+    public MealPlanner(FoodTable table) {
+        this.foods = table.getFoods().toArray(new Food[0]);
+        Arrays.sort(foods, Comparator.comparingDouble(Food::getCalories).reversed());
+
+        int n = foods.length;
+        this.carbs = new double[n];
+        this.protein = new double[n];
+        this.fat = new double[n];
+        this.carbsLeft = new double[n + 1];
+        this.proteinLeft = new double[n + 1];
+        this.fatLeft = new double[n + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            carbs[i] = foods[i].getCarbs();
+            protein[i] = foods[i].getProtein();
+            fat[i] = foods[i].getFat();
+            carbsLeft[i] = carbsLeft[i + 1] + (MAX_SERVINGS * carbs[i]);
+            proteinLeft[i] = proteinLeft[i + 1] + (MAX_SERVINGS * protein[i]);
+            fatLeft[i] = fatLeft[i + 1] + (MAX_SERVINGS * fat[i]);
+        }
+    }
+
+    /**
+     * Finds a meal plan for a user's current diet.
+     *
+     * @param user User to plan meals for
+     * @return Shared meal plan
+     */
+    public MealPlan plan(User user) {
+        return plan(user.getDietPlan());
+    }
+
+    /**
+     * Finds a meal plan for a diet plan's macronutrient grams.
+     *
+     * @param dietPlan Diet plan to plan meals for
+     * @return Shared meal plan
+     */
+    public MealPlan plan(DietPlan dietPlan) {
+        return plan(dietPlan.getCarbs(), dietPlan.getProtein(), dietPlan.getFat());
+    }
+
+    /**
+     * Finds a meal plan for daily macronutrient targets, solving it if no plan with the same rounded
+     * targets has been solved yet.
+     *
+     * @param carbs   Carbohydrates (in grams)
+     * @param protein Protein (in grams)
+     * @param fat     Fat (in grams)
+     * @return Shared meal plan, the closest found if none is within tolerance
+     * @throws IllegalArgumentException If a target is negative
+     */
+    public MealPlan plan(int carbs, int protein, int fat) {
+        if ((carbs < 0) || (protein < 0) || (fat < 0)) {
+            throw new IllegalArgumentException("Targets cannot be negative");
+        }
+        int c = Math.round(carbs / (float) QUANTUM);
+        int p = Math.round(protein / (float) QUANTUM);
+        int f = Math.round(fat / (float) QUANTUM);
+        long key = ((long) c << 42) | ((long) p << 21) | f;
+
+        MealPlan plan = plans.get(key);
+        if (plan == null) {
+            plan = new Search(c * QUANTUM, p * QUANTUM, f * QUANTUM).solve();
+            MealPlan solved = plans.putIfAbsent(key, plan);
+            if (solved != null) {
+                plan = solved;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * @return Number of different plans solved so far
+     */
+    public int size() {
+        return plans.size();
+    }
+
+    /**
+     * State of one solve.
+     */
+    private final class Search {
+        private final double targetCarbs;
+        private final double targetProtein;
+        private final double targetFat;
+        private final double maxCarbs;
+        private final double maxProtein;
+        private final double maxFat;
+        private final double carbsTolerance;
+        private final double proteinTolerance;
+        private final double fatTolerance;
+
+        private final int[] servings = new int[foods.length];
+        private final int[] best = new int[foods.length];
+        private double bestError = Double.MAX_VALUE;
+        private boolean found;
+        private int nodes;
+
+        private Search(int targetCarbs, int targetProtein, int targetFat) {
+            this.targetCarbs = targetCarbs;
+            this.targetProtein = targetProtein;
+            this.targetFat = targetFat;
+            this.carbsTolerance = Math.max(TOLERANCE * targetCarbs, MIN_TOLERANCE);
+            this.proteinTolerance = Math.max(TOLERANCE * targetProtein, MIN_TOLERANCE);
+            this.fatTolerance = Math.max(TOLERANCE * targetFat, MIN_TOLERANCE);
+            this.maxCarbs = targetCarbs + carbsTolerance;
+            this.maxProtein = targetProtein + proteinTolerance;
+            this.maxFat = targetFat + fatTolerance;
+        }
+
+        private MealPlan solve() {
+            search(0, 0, 0, 0, 0);
+
+            List<MealPlan.Serving> plan = new ArrayList<>();
+            for (int i = 0; i < foods.length; i++) {
+                if (best[i] > 0) {
+                    plan.add(new MealPlan.Serving(foods[i], best[i]));
+                }
+            }
+            return new MealPlan((int) targetCarbs, (int) targetProtein, (int) targetFat, plan, found);
+        }
+
+        /**
+         * Tries every number of servings of the food at index, then moves on to the next food.
+         * Every node is a complete plan, with no servings of the remaining foods.
+         */
+        private void search(int index, double c, double p, double f, int used) {
+            if (found || (++nodes > NODE_LIMIT)) {
+                return;
+            }
+            // a plan within tolerance may have a larger error than a closer plan outside it, so check every plan
+            found = (Math.abs(c - targetCarbs) <= carbsTolerance)
+                    && (Math.abs(p - targetProtein) <= proteinTolerance)
+                    && (Math.abs(f - targetFat) <= fatTolerance);
+            double error = error(c, p, f);
+            if (found || (error < bestError)) {
+                bestError = error;
+                System.arraycopy(servings, 0, best, 0, servings.length);
+                if (found) {
+                    return;
+                }
+            }
+            if ((index == foods.length) || (used == MAX_FOODS)
+                    || (!canFit(index, c, p, f) && (lowerBound(index, c, p, f) >= bestError))) {
+                return;
+            }
+
+            for (int count = MAX_SERVINGS; count > 0; count--) {
+                double nc = c + (count * carbs[index]);
+                double np = p + (count * protein[index]);
+                double nf = f + (count * fat[index]);
+                if ((nc <= maxCarbs) && (np <= maxProtein) && (nf <= maxFat)) {
+                    servings[index] = count;
+                    search(index + 1, nc, np, nf, used + 1);
+                    servings[index] = 0;
+                }
+            }
+            search(index + 1, c, p, f, used);
+        }
+
+        /**
+         * Distance from the targets in calories.
+         */
+        private double error(double c, double p, double f) {
+            return (4 * Math.abs(c - targetCarbs)) + (4 * Math.abs(p - targetProtein)) + (9 * Math.abs(f - targetFat));
+        }
+
+        /**
+         * @return False if even the most the foods from index onwards can add leaves a target short of its tolerance
+         */
+        private boolean canFit(int index, double c, double p, double f) {
+            return (c + carbsLeft[index] >= targetCarbs - carbsTolerance)
+                    && (p + proteinLeft[index] >= targetProtein - proteinTolerance)
+                    && (f + fatLeft[index] >= targetFat - fatTolerance);
+        }
+
+        /**
+         * Least error any plan adding servings of the foods from index onwards can have: grams over a target
+         * cannot be taken back, and grams short of a target beyond what the remaining foods hold cannot be made up.
+         */
+        private double lowerBound(int index, double c, double p, double f) {
+            return (4 * (Math.max(0, c - targetCarbs) + Math.max(0, targetCarbs - c - carbsLeft[index])))
+                    + (4 * (Math.max(0, p - targetProtein) + Math.max(0, targetProtein - p - proteinLeft[index])))
+                    + (9 * (Math.max(0, f - targetFat) + Math.max(0, targetFat - f - fatLeft[index])));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * OutputSink
+ * This interface receives the messages the program shows its user, such as a diet plan being created,
+ * so that domain classes never write to the console themselves.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+@FunctionalInterface
+public interface OutputSink {
+    /**
+     * Sink that discards every message, for library and batch use.
+     */
+    OutputSink NONE = message -> {
+    };
+
+    /**
+     * Receives a single line message.
+     *
+     * @param message Message without a trailing line separator
+     */
+    void message(String message);
+
+    /**
+     * Waits until every message received so far has been shown.
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,256 @@
+/**
+ * PackedUserMap
+ * This class maps usernames to users with open addressing, packing each username into two longs
+ * instead of holding a map node and a String key per user. A username of up to USERNAME_LIMIT
+ * ASCII characters takes 7 bits per character: the first nine go into one long, the last one and
+ * the length into the other. Keys sit side by side in one long[] and users at the same slot in a
+ * User[], so a lookup probes neighbouring slots without following a single reference.
+ * Usernames that cannot be packed are kept in a small HashMap on the side.
+ *
+ * Writes must be serialized by the caller and take the map's write lock. Reads take no lock:
+ * they probe optimistically and only retry under the read lock if a write ran meanwhile.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+final class PackedUserMap {
+    private static final int BITS = 7;
+    private static final int FIRST_CHARS = 9;
+    private static final int MIN_CAPACITY = 16;
+
+    private final StampedLock lock = new StampedLock();
+    /**
+     * Two longs per slot; a slot is empty when its second long is 0, which no packed username is.
+     */
+    private long[] keys;
+    private User[] values;
+    private int packed;
+    private final Map<String, User> unpacked = new HashMap<>();
+
+    PackedUserMap() {
+        this.keys = new long[2 * MIN_CAPACITY];
+        this.values = new User[MIN_CAPACITY];
+    }
+
+    /**
+     * @return First nine characters of a username packed into a long
+     */
+    private static long low(String userName) {
+        long key = 0;
+        for (int i = 0, n = Math.min(userName.length(), FIRST_CHARS); i < n; i++) {
+            key |= (long) userName.charAt(i) << (i * BITS);
+        }
+        return key;
+    }
+
+    /**
+     * @return Length and tenth character of a username packed into a long, or 0 if the username cannot be packed
+     */
+    private static long high(String userName) {
+        int length = userName.length();
+        if (length > UserIndex.USERNAME_LIMIT) {
+            return 0;
+        }
+        for (int i = 0; i < length; i++) {
+            if (userName.charAt(i) >= (1 << BITS)) {
+                return 0;
+            }
+        }
+        long key = (long) (length + 1) << BITS;
+        return (length > FIRST_CHARS) ? key | userName.charAt(FIRST_CHARS) : key;
+    }
+
+    private static int slot(long low, long high, int mask) {
+        long h = (low ^ (high * 0x9E3779B97F4A7C15L)) * 0xBF58476D1CE4E5B9L;
+        return (int) (h ^ (h >>> 31)) & mask;
+    }
+
+    User get(String userName) {
+        long high = high(userName);
+        if (high == 0) {
+            long stamp = lock.readLock();
+            try {
+                return unpacked.get(userName);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        long low = low(userName);
+
+        long stamp = lock.tryOptimisticRead();
+        User user = find(low, high);
+        if (lock.validate(stamp)) {
+            return user;
+        }
+        stamp = lock.readLock();
+        try {
+            return find(low, high);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    boolean containsKey(String userName) {
+        return get(userName) != null;
+    }
+
+    /**
+     * Probes for a packed username. Reads the arrays into locals and bounds every probe,
+     * since an optimistic read may see them while a write resizes or shifts slots.
+     */
+    private User find(long low, long high) {
+        long[] keys = this.keys;
+        User[] values = this.values;
+        if (keys.length != 2 * values.length) {
+            return null;
+        }
+        int mask = values.length - 1;
+        for (int slot = slot(low, high, mask), probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+            long slotHigh = keys[2 * slot + 1];
+            if (slotHigh == 0) {
+                return null;
+            }
+            if ((slotHigh == high) && (keys[2 * slot] == low)) {
+                return values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps a username to a user.
+     *
+     * @return User previously mapped to the username, or null
+     */
+    User put(String userName, User user) {
+        long high = high(userName);
+        long stamp = lock.writeLock();
+        try {
+            if (high == 0) {
+                return unpacked.put(userName, user);
+            }
+            long low = low(userName);
+            int mask = values.length - 1;
+            int slot = slot(low, high, mask);
+            while (keys[2 * slot + 1] != 0) {
+                if ((keys[2 * slot + 1] == high) && (keys[2 * slot] == low)) {
+                    User previous = values[slot];
+                    values[slot] = user;
+                    return previous;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[2 * slot] = low;
+            keys[2 * slot + 1] = high;
+            values[slot] = user;
+            if (++packed * 4 > values.length * 3) {
+                resize(values.length * 2);
+            }
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Unmaps a username, shifting back the slots that probed past it so no tombstone is left.
+     *
+     * @return User that was mapped to the username, or null
+     */
+    User remove(String userName) {
+        long high = high(userName);
+        long stamp = lock.writeLock();
+        try {
+            if (high == 0) {
+                return unpacked.remove(userName);
+            }
+            long low = low(userName);
+            int mask = values.length - 1;
+            int slot = slot(low, high, mask);
+            while ((keys[2 * slot + 1] != high) || (keys[2 * slot] != low)) {
+                if (keys[2 * slot + 1] == 0) {
+                    return null;
+                }
+                slot = (slot + 1) & mask;
+            }
+            User previous = values[slot];
+
+            int hole = slot;
+            for (int next = (hole + 1) & mask; keys[2 * next + 1] != 0; next = (next + 1) & mask) {
+                int home = slot(keys[2 * next], keys[2 * next + 1], mask);
+                // the entry at next may fill the hole only if its home slot does not lie between them
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[2 * hole] = keys[2 * next];
+                    keys[2 * hole + 1] = keys[2 * next + 1];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+            }
+            keys[2 * hole] = 0;
+            keys[2 * hole + 1] = 0;
+            values[hole] = null;
+            packed--;
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        User[] oldValues = values;
+        long[] newKeys = new long[2 * capacity];
+        User[] newValues = new User[capacity];
+        int mask = capacity - 1;
+        for (int old = 0; old < oldValues.length; old++) {
+            long high = oldKeys[2 * old + 1];
+            if (high != 0) {
+                int slot = slot(oldKeys[2 * old], high, mask);
+                while (newKeys[2 * slot + 1] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newKeys[2 * slot] = oldKeys[2 * old];
+                newKeys[2 * slot + 1] = high;
+                newValues[slot] = oldValues[old];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return packed + unpacked.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Adds every mapped user to a collection.
+     *
+     * @param users Collection receiving the users
+     */
+    void addValuesTo(Collection<User> users) {
+        long stamp = lock.readLock();
+        try {
+            for (User user : values) {
+                if (user != null) {
+                    users.add(user);
+                }
+            }
+            users.addAll(unpacked.values());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
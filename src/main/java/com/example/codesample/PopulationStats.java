@@ -0,0 +1,239 @@
+/**
+ * PopulationStats
+ * This class keeps running statistics over a UserSystem's users for dashboards: users per macronutrient
+ * diet, bulking vs cutting, mean and variance of TDEE and daily calories, and users per BMI category.
+ *
+ * The statistics listen to the UserSystem and are updated in constant time on every added, deleted or
+ * changed user, remembering each user's last contribution so it can be taken back. Means and variances
+ * use Welford's method, which stays accurate as users are removed. Readers take an immutable
+ * snapshot, also in constant time, whose numbers all describe the same moment.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class PopulationStats implements UserListener {
+    private static final MacroDiets[] MACRO_DIETS = MacroDiets.values();
+
+    /**
+     * Last contribution of every user, keyed by username. Guarded by this.
+     */
+    private final Map<String, Contribution> contributions = new HashMap<>();
+    private final long[] macroDietCounts = new long[MACRO_DIETS.length];
+    private final long[] bmiCategoryCounts = new long[DietPlan.BMI_CATEGORIES.size()];
+    private long bulking;
+    private final RunningStatistic tdee = new RunningStatistic();
+    private final RunningStatistic dailyCalories = new RunningStatistic();
+
+    /**
+     * Computes the statistics of every user of a UserSystem and keeps them up to date with its changes.
+     * Create the statistics before the UserSystem is shared between threads.
+     *
+     * @param userSystem Users to follow
+     */
+    public PopulationStats(UserSystem userSystem) {
+        userSystem.addListener(this);
+        for (User user : userSystem.getUsers()) {
+            userAdded(user);
+        }
+    }
+
+    @Override
+    public void userAdded(User user) {
+        update(user);
+    }
+
+    @Override
+    public void userDeleted(User user) {
+        synchronized (this) {
+            Contribution old = contributions.remove(user.getUserName());
+            if (old != null) {
+                apply(old, -1);
+            }
+        }
+    }
+
+    @Override
+    public void userChanged(User user) {
+        update(user);
+    }
+
+    private void update(User user) {
+        Contribution contribution = new Contribution(user.getDietPlan());
+        synchronized (this) {
+            Contribution old = contributions.put(user.getUserName(), contribution);
+            if (old != null) {
+                apply(old, -1);
+            }
+            apply(contribution, 1);
+        }
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        macroDietCounts[contribution.macroDiet] += sign;
+        bmiCategoryCounts[contribution.bmiCategory] += sign;
+        if (contribution.bulking) {
+            bulking += sign;
+        }
+        if (sign > 0) {
+            tdee.add(contribution.tdee);
+            dailyCalories.add(contribution.dailyCalories);
+        } else {
+            tdee.remove(contribution.tdee);
+            dailyCalories.remove(contribution.dailyCalories);
+        }
+    }
+
+    /**
+     * Copies the current statistics.
+     *
+     * @return Statistics of every user at a single moment
+     */
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Count, mean and sum of squared differences from the mean of a changing set of values.
+     */
+    private static final class RunningStatistic {
+        private long count;
+        private double mean;
+        private double squares;
+
+        private void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            squares += delta * (value - mean);
+        }
+
+        private void remove(double value) {
+            if (count == 1) {
+                count = 0;
+                mean = 0;
+                squares = 0;
+                return;
+            }
+            double delta = value - mean;
+            count--;
+            mean -= delta / count;
+            squares -= delta * (value - mean);
+        }
+
+        private double variance() {
+            return (count == 0) ? 0 : Math.max(0, squares / count);
+        }
+    }
+
+    /**
+     * Values a user adds to the statistics.
+     */
+    private static final class Contribution {
+        private final boolean bulking;
+        private final int macroDiet;
+        private final int bmiCategory;
+        private final double tdee;
+        private final double dailyCalories;
+
+        private Contribution(DietPlan plan) {
+            this.bulking = plan.isBulking();
+            this.macroDiet = plan.getMacroDiet().ordinal();
+            this.bmiCategory = DietPlan.bmiCategoryIndex(plan.getBmi());
+            this.tdee = plan.getTdee();
+            this.dailyCalories = plan.getDailyCalories();
+        }
+    }
+
+    /**
+     * Immutable copy of the statistics.
+     */
+    public static final class Snapshot {
+        private final long users;
+        private final long bulking;
+        private final Map<MacroDiets, Long> macroDiets;
+        private final Map<String, Long> bmiCategories;
+        private final double tdeeMean;
+        private final double tdeeVariance;
+        private final double dailyCaloriesMean;
+        private final double dailyCaloriesVariance;
+
+        private Snapshot(PopulationStats stats) {
+            this.users = stats.contributions.size();
+            this.bulking = stats.bulking;
+            Map<MacroDiets, Long> macroDiets = new EnumMap<>(MacroDiets.class);
+            for (MacroDiets macroDiet : MACRO_DIETS) {
+                macroDiets.put(macroDiet, stats.macroDietCounts[macroDiet.ordinal()]);
+            }
+            this.macroDiets = macroDiets;
+            Map<String, Long> bmiCategories = new HashMap<>();
+            for (int category = 0; category < stats.bmiCategoryCounts.length; category++) {
+                bmiCategories.put(DietPlan.BMI_CATEGORIES.get(category), stats.bmiCategoryCounts[category]);
+            }
+            this.bmiCategories = bmiCategories;
+            this.tdeeMean = stats.tdee.mean;
+            this.tdeeVariance = stats.tdee.variance();
+            this.dailyCaloriesMean = stats.dailyCalories.mean;
+            this.dailyCaloriesVariance = stats.dailyCalories.variance();
+        }
+
+        public long getUsers() {
+            return users;
+        }
+
+        public long getBulking() {
+            return bulking;
+        }
+
+        public long getCutting() {
+            return users - bulking;
+        }
+
+        public long getMacroDietCount(MacroDiets macroDiet) {
+            return macroDiets.get(macroDiet);
+        }
+
+        /**
+         * Returns the number of users in a BMI category.
+         *
+         * @param category One of DietPlan.BMI_CATEGORIES
+         * @return Number of users
+         * @throws IllegalArgumentException If the category is unknown
+         */
+        public long getBmiCategoryCount(String category) {
+            Long count = bmiCategories.get(category);
+            if (count == null) {
+                throw new IllegalArgumentException("Unknown BMI category " + category);
+            }
+            return count;
+        }
+
+        public double getTdeeMean() {
+            return tdeeMean;
+        }
+
+        /**
+         * Returns the population variance of TDEE.
+         */
+        public double getTdeeVariance() {
+            return tdeeVariance;
+        }
+
+        public double getDailyCaloriesMean() {
+            return dailyCaloriesMean;
+        }
+
+        /**
+         * Returns the population variance of daily calories.
+         */
+        public double getDailyCaloriesVariance() {
+            return dailyCaloriesVariance;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * RecoveryReport
+ * This class holds the outcome of checking a store's file on load: how many segments were intact,
+ * which ranges were damaged and set aside, and which users were lost with them. A sharded store
+ * also lists the files of another shard count whose users it moved into its shards.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public final class RecoveryReport {
+    /**
+     * Report of a load that found nothing to recover.
+     */
+    static final RecoveryReport CLEAN = new RecoveryReport(0, 0, 0, List.of(), false, null, List.of());
+
+    private final int segments;
+    private final int damagedRanges;
+    private final long damagedBytes;
+    /**
+     * Usernames whose records were in a damaged range, in index order.
+     */
+    private final List<String> lostUserNames;
+    /**
+     * True if the index was damaged and users were read from the intact segments instead,
+     * in which case the usernames of lost users are not known.
+     */
+    private final boolean indexRebuilt;
+    /**
+     * File the damaged ranges were copied to, or null if nothing was damaged.
+     */
+    private final File quarantine;
+    /**
+     * Files of another shard count whose users were resharded, renamed with a .resharded suffix.
+     */
+    private final List<File> resharded;
+
+    RecoveryReport(int segments, int damagedRanges, long damagedBytes, List<String> lostUserNames,
+                   boolean indexRebuilt, File quarantine) {
+        this(segments, damagedRanges, damagedBytes, lostUserNames, indexRebuilt, quarantine, List.of());
+    }
+
+    private RecoveryReport(int segments, int damagedRanges, long damagedBytes, List<String> lostUserNames,
+                           boolean indexRebuilt, File quarantine, List<File> resharded) {
+        this.segments = segments;
+        this.damagedRanges = damagedRanges;
+        this.damagedBytes = damagedBytes;
+        this.lostUserNames = Collections.unmodifiableList(lostUserNames);
+        this.indexRebuilt = indexRebuilt;
+        this.quarantine = quarantine;
+        this.resharded = Collections.unmodifiableList(resharded);
+    }
+
+    /**
+     * Combines the reports of several files, e.g. the shards of a ShardedUserStore.
+     *
+     * @param reports Reports to combine
+     * @return Report adding up every count, naming the quarantine file of the first damaged file
+     */
+    static RecoveryReport combine(List<RecoveryReport> reports) {
+        int segments = 0;
+        int damagedRanges = 0;
+        long damagedBytes = 0;
+        List<String> lostUserNames = new ArrayList<>();
+        boolean indexRebuilt = false;
+        File quarantine = null;
+        for (RecoveryReport report : reports) {
+            segments += report.segments;
+            damagedRanges += report.damagedRanges;
+            damagedBytes += report.damagedBytes;
+            lostUserNames.addAll(report.lostUserNames);
+            indexRebuilt |= report.indexRebuilt;
+            if (quarantine == null) {
+                quarantine = report.quarantine;
+            }
+        }
+        return new RecoveryReport(segments, damagedRanges, damagedBytes, lostUserNames, indexRebuilt, quarantine);
+    }
+
+    /**
+     * @param resharded Files whose users were resharded
+     * @return Copy of this report listing the resharded files
+     */
+    RecoveryReport withResharded(List<File> resharded) {
+        return new RecoveryReport(segments, damagedRanges, damagedBytes, lostUserNames, indexRebuilt, quarantine,
+                resharded);
+    }
+
+    /**
+     * @return True if the file was intact
+     */
+    public boolean isClean() {
+        return (damagedRanges == 0) && !indexRebuilt;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    public int getDamagedRanges() {
+        return damagedRanges;
+    }
+
+    public long getDamagedBytes() {
+        return damagedBytes;
+    }
+
+    public List<String> getLostUserNames() {
+        return lostUserNames;
+    }
+
+    public boolean isIndexRebuilt() {
+        return indexRebuilt;
+    }
+
+    public File getQuarantine() {
+        return quarantine;
+    }
+
+    public List<File> getResharded() {
+        return resharded;
+    }
+
+    @Override
+    public String toString() {
+        if (isClean()) {
+            return segments + " segments checked, no damage found";
+        }
+        String lost = indexRebuilt ? "index damaged, users read from intact segments"
+                : lostUserNames.size() + " users lost " + lostUserNames;
+        return segments + " segments intact, " + damagedRanges + " damaged ranges (" + damagedBytes + " bytes"
+                + ((quarantine != null) ? " moved to " + quarantine : "") + "), " + lost;
+    }
+}
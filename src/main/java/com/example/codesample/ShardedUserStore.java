@@ -0,0 +1,380 @@
+/**
+ * ShardedUserStore
+ * This class partitions users by username hash over a number of HeapUserStores, each with its own
+ * user map, locks, .dat file and journal. Users.dat split into 8 shards is kept in Users-0-of-8.dat
+ * to Users-7-of-8.dat; with a single shard the file is Users.dat itself.
+ *
+ * Writes to different shards never share a lock, and shards are loaded, saved and compacted
+ * independently and in parallel. A save only rewrites the shards whose users changed since
+ * their last save.
+ *
+ * When the shard count changes, users stored under the old count (e.g. a single Users.dat) are
+ * resharded on load: they are read, written to the new shard files, and the old files are renamed
+ * with a .resharded suffix. The files resharded are listed in the recovery report.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class ShardedUserStore implements UserStore {
+    /**
+     * Largest number of shards, bounding the files kept open at once.
+     */
+    static final int MAX_SHARDS = 256;
+
+    private final File dataFile;
+    private final HeapUserStore[] shards;
+    /**
+     * True for every shard with changes that have not been saved.
+     */
+    private final AtomicBoolean[] dirty;
+    /**
+     * Files of another layout moved into the shards by the last load.
+     */
+    private volatile List<File> resharded = List.of();
+    /**
+     * Listener forwarding changes to the shards' journals, null until opened.
+     */
+    private UserListener journal;
+
+    /**
+     * @param dataFile File the shard files are named after, e.g. Users.dat
+     * @param shards   Number of shards, from 1 to MAX_SHARDS
+     */
+    public ShardedUserStore(File dataFile, int shards) {
+        if ((shards < 1) || (shards > MAX_SHARDS)) {
+            throw new IllegalArgumentException("Shard count must be from 1 to " + MAX_SHARDS + ": " + shards);
+        }
+        this.dataFile = dataFile;
+        this.shards = new HeapUserStore[shards];
+        this.dirty = new AtomicBoolean[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            this.shards[shard] = new HeapUserStore(shardFile(dataFile, shard, shards));
+            this.dirty[shard] = new AtomicBoolean();
+        }
+    }
+
+    /**
+     * @return File holding one shard of a store split into a number of shards
+     */
+    static File shardFile(File dataFile, int shard, int shards) {
+        if (shards == 1) {
+            return dataFile;
+        }
+        return new File(dataFile.getAbsoluteFile().getParentFile(),
+                baseName(dataFile) + "-" + shard + "-of-" + shards + ".dat");
+    }
+
+    private static String baseName(File dataFile) {
+        String name = dataFile.getName();
+        return name.endsWith(".dat") ? name.substring(0, name.length() - 4) : name;
+    }
+
+    /**
+     * Picks a username's shard from the high bits of its mixed hash code, so the shard does not
+     * decide the lock stripe a HeapUserStore picks from the low bits.
+     */
+    static int shardOf(String userName, int shards) {
+        long mixed = (userName.hashCode() * 0x9E3779B9L) & 0xFFFFFFFFL;
+        return (int) ((mixed * shards) >>> 32);
+    }
+
+    private int shardOf(String userName) {
+        return shardOf(userName, shards.length);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public User get(String userName) {
+        return shards[shardOf(userName)].get(userName);
+    }
+
+    @Override
+    public boolean contains(String userName) {
+        return shards[shardOf(userName)].contains(userName);
+    }
+
+    @Override
+    public void put(User user) {
+        int shard = shardOf(user.getUserName());
+        shards[shard].put(user);
+        dirty[shard].set(true);
+    }
+
+    @Override
+    public boolean putIfAbsent(User user) {
+        int shard = shardOf(user.getUserName());
+        if (!shards[shard].putIfAbsent(user)) {
+            return false;
+        }
+        dirty[shard].set(true);
+        return true;
+    }
+
+    @Override
+    public User remove(String userName) {
+        int shard = shardOf(userName);
+        User user = shards[shard].remove(userName);
+        if (user != null) {
+            dirty[shard].set(true);
+        }
+        return user;
+    }
+
+    @Override
+    public void update(User user) {
+        int shard = shardOf(user.getUserName());
+        shards[shard].update(user);
+        dirty[shard].set(true);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (HeapUserStore shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    @Override
+    public List<User> snapshot() {
+        List<User> users = new ArrayList<>(size());
+        for (HeapUserStore shard : shards) {
+            users.addAll(shard.snapshot());
+        }
+        return users;
+    }
+
+    /**
+     * Loads every shard in parallel, then reshards any users stored under another shard count.
+     * Shards with journaled changes are saved by the next save.
+     *
+     * @throws IOException If a shard or the users to reshard cannot be read
+     */
+    @Override
+    public void load() throws IOException {
+        resharded = List.of();
+        forEachShard(shard -> {
+            shards[shard].load();
+            File shardFile = shardFile(dataFile, shard, shards.length);
+            if (UserJournal.journalFile(shardFile).exists() || UserJournal.rotatedFile(shardFile).exists()) {
+                dirty[shard].set(true);
+            }
+        });
+
+        List<File> oldFiles = filesOfOtherLayouts();
+        if (!oldFiles.isEmpty()) {
+            reshard(oldFiles);
+            resharded = List.copyOf(oldFiles);
+        }
+    }
+
+    /**
+     * @return True if a shard or a file of another layout has saved users
+     */
+    @Override
+    public boolean hasSavedUsers() {
+        for (HeapUserStore shard : shards) {
+            if (shard.hasSavedUsers()) {
+                return true;
+            }
+        }
+        return !filesOfOtherLayouts().isEmpty();
+    }
+
+    /**
+     * @return .dat files of the store split into a different number of shards, or the single file
+     * if there are several shards now, from the least to the most recently written
+     */
+    private List<File> filesOfOtherLayouts() {
+        Pattern shardName = Pattern.compile(Pattern.quote(baseName(dataFile)) + "-(\\d+)-of-(\\d+)\\.dat");
+        List<File> files = new ArrayList<>();
+        File[] siblings = dataFile.getAbsoluteFile().getParentFile().listFiles();
+        for (File file : (siblings != null) ? siblings : new File[0]) {
+            Matcher matcher = shardName.matcher(file.getName());
+            if (matcher.matches() && (Integer.parseInt(matcher.group(2)) != shards.length)) {
+                files.add(file);
+            }
+        }
+        if ((shards.length > 1) && dataFile.isFile()) {
+            files.add(dataFile);
+        }
+        files.sort(Comparator.comparingLong(ShardedUserStore::lastWritten).thenComparing(File::getName));
+        return files;
+    }
+
+    /**
+     * @return Time a .dat file or its journal was last written, in milliseconds since the epoch
+     */
+    private static long lastWritten(File file) {
+        return Math.max(file.lastModified(), Math.max(UserJournal.journalFile(file).lastModified(),
+                UserJournal.rotatedFile(file).lastModified()));
+    }
+
+    /**
+     * Moves users from the files of another layout into the shards, and renames those files once the
+     * shards are written so they are not resharded again. Users also found in the shards are replaced,
+     * and files are applied from the least to the most recently written, so a user saved under several
+     * layouts keeps the newest copy whatever order the directory lists them in.
+     */
+    private void reshard(List<File> oldFiles) throws IOException {
+        for (File oldFile : oldFiles) {
+            try (HeapUserStore old = new HeapUserStore(oldFile)) {
+                old.load();
+                for (User user : old.snapshot()) {
+                    put(user);
+                }
+            }
+        }
+        save();
+
+        for (File oldFile : oldFiles) {
+            Files.move(oldFile.toPath(), new File(oldFile.getPath() + ".resharded").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            // the journals' changes are in the shards now
+            UserJournal.journalFile(oldFile).delete();
+            UserJournal.rotatedFile(oldFile).delete();
+        }
+    }
+
+    @Override
+    public void preload() {
+        for (HeapUserStore shard : shards) {
+            shard.preload();
+        }
+    }
+
+    /**
+     * Combines the reports of every shard, listing the files resharded by the last load.
+     */
+    @Override
+    public RecoveryReport getRecoveryReport() {
+        List<RecoveryReport> reports = new ArrayList<>();
+        for (HeapUserStore shard : shards) {
+            reports.add(shard.getRecoveryReport());
+        }
+        return RecoveryReport.combine(reports).withResharded(resharded);
+    }
+
+    /**
+     * Saves the shards changed since their last save, in parallel.
+     *
+     * @throws IOException If a shard cannot be written
+     */
+    @Override
+    public void save() throws IOException {
+        saveChanged();
+    }
+
+    /**
+     * @return Total size of the shard files written
+     */
+    @Override
+    public long checkpoint() throws IOException {
+        return saveChanged();
+    }
+
+    private long saveChanged() throws IOException {
+        AtomicLong written = new AtomicLong();
+        forEachShard(shard -> {
+            if (dirty[shard].getAndSet(false)) {
+                try {
+                    written.addAndGet(shards[shard].checkpoint());
+                } catch (IOException | RuntimeException e) {
+                    dirty[shard].set(true);
+                    throw e;
+                }
+            }
+        });
+        return written.get();
+    }
+
+    /**
+     * Opens a journal per shard, so each shard's journal is compacted on its own.
+     *
+     * @return Listener forwarding every change to its shard's journal, the same one on every call
+     */
+    @Override
+    public synchronized UserListener openJournal(long compactionThreshold) throws IOException {
+        if (journal != null) {
+            return journal;
+        }
+        UserListener[] journals = new UserListener[shards.length];
+        for (int shard = 0; shard < shards.length; shard++) {
+            journals[shard] = shards[shard].openJournal(compactionThreshold);
+        }
+        journal = new UserListener() {
+            @Override
+            public void userAdded(User user) {
+                journals[shardOf(user.getUserName())].userAdded(user);
+            }
+
+            @Override
+            public void userDeleted(User user) {
+                journals[shardOf(user.getUserName())].userDeleted(user);
+            }
+
+            @Override
+            public void userChanged(User user) {
+                journals[shardOf(user.getUserName())].userChanged(user);
+            }
+        };
+        return journal;
+    }
+
+    @Override
+    public void close() throws IOException {
+        forEachShard(shard -> shards[shard].close());
+    }
+
+    /**
+     * Work done on one shard.
+     */
+    private interface ShardAction {
+        void run(int shard) throws IOException;
+    }
+
+    /**
+     * Runs an action on every shard in parallel and waits for all of them.
+     *
+     * @throws IOException The first failure of an action
+     */
+    private void forEachShard(ShardAction action) throws IOException {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(shards.length);
+        for (int shard = 0; shard < shards.length; shard++) {
+            int index = shard;
+            tasks.add(ForkJoinTask.adapt(() -> {
+                try {
+                    action.run(index);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        try {
+            ForkJoinTask.invokeAll(tasks);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -9,6 +9,8 @@
  */
 package com.example.codesample;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 public class User implements Serializable {
@@ -24,7 +26,11 @@ public class User implements Serializable {
      * User's current diet plan.
      * Also holds Macronutrient ratio diets
      */
-    private Diet diet;
+    private volatile Diet diet;
+    /**
+     * Receives a notification whenever this user's diet plan changes.
+     */
+    private transient volatile UserListener listener;
 
     private static final long serialVersionUID = 1L;
 
@@ -32,17 +38,45 @@ public class User implements Serializable {
         this.userName = userName;
         this.person = person;
         this.diet = diet;
+        diet.setOwner(this);
     }
 
     public String getUserName() {
         return userName;
     }
 
+    /**
+     * Returns an immutable snapshot of the user's current diet plan.
+     *
+     * @return Current diet plan
+     */
+    public DietPlan getDietPlan() {
+        return this.diet.getPlan();
+    }
+
     public Diet getDiet() {
 
         return diet;
     }
 
+    public Person getPerson() {
+        return person;
+    }
+
+    void setListener(UserListener listener) {
+        this.listener = listener;
+    }
+
+    UserListener getListener() {
+        return listener;
+    }
+
+    void dietChanged() {
+        if (listener != null) {
+            listener.userChanged(this);
+        }
+    }
+
 
     /**
      * Displays both user's personal statistics and diet plan information.
@@ -52,25 +86,56 @@ public class User implements Serializable {
         this.diet.displayDietdetails();
     }
 
+    /**
+     * Changes the calorie surplus/deficit of the user's current diet plan.
+     * Unlike calling the diet directly, this cannot race with a change of diet plan
+     *
+     * @param option Integer denoting calorie intake option user chooses
+     * @return True if the diet plan changed, otherwise false
+     */
+    public synchronized boolean changeCalorieIntake(int option) {
+        return this.diet.changeCalorieIntake(option);
+    }
+
+    /**
+     * Changes the Macronutrient ratio of the user's current diet plan.
+     * Unlike calling the diet directly, this cannot race with a change of diet plan
+     *
+     * @param dietOption integer value denoting user's diet choice
+     * @return True if the option is valid and the diet is now active, otherwise false
+     */
+    public synchronized boolean changeMacroDiet(int dietOption) {
+        return this.diet.changeMacroDiet(dietOption);
+    }
+
     /**
      * Switches to bulking/cutting diet plan depending on user's current plan.
+     * Changes to one user's diet are serialized by locking the user
+     *
+     * @return New diet plan
      */
-    public void changeDietPlan() {
+    public synchronized Diet changeDietPlan() {
         double tdee = this.diet.getTdee();
         double bmi = this.diet.getBmi();
 
         if (this.diet.isBulking()) {
-            System.out.println("Switching to a Cutting diet plan");
             setDiet(new CuttingDiet(tdee, bmi, getDiet().getDiets()));
         } else {
-            System.out.println("Switching to a Bulking diet plan");
             setDiet(new BulkingDiet(tdee, bmi, getDiet().getDiets()));
         }
+        dietChanged();
+        return this.diet;
     }
 
     private void setDiet(Diet diet) {
+        this.diet.setOwner(null);
         this.diet = diet;
+        diet.setOwner(this);
     }
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        diet.setOwner(this);
+    }
 
 }
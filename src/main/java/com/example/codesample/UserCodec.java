@@ -0,0 +1,173 @@
+/**
+ * UserCodec
+ * This class writes and reads users in a compact binary layout instead of Java serialization.
+ * Every record starts with a format version so the layout can change without breaking stored data,
+ * and records written with ObjectOutputStream before the codec existed can still be read.
+ *
+ * Layout of version 1:
+ * version(byte) flags(byte) userName(UTF) name(UTF) gender(char) age(varint) height(double)
+ * weight(double) tdee(double) bmi(double) macroDiet(byte) calorieOffset(varint)
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.*;
+
+public final class UserCodec {
+    /**
+     * Version written at the start of every record.
+     */
+    static final byte VERSION = 1;
+    /**
+     * First byte of a record written with ObjectOutputStream.
+     */
+    private static final byte JAVA_SERIALIZATION = (byte) 0xAC;
+    private static final int BULKING = 1;
+
+    private static final MacroDiets[] MACRO_DIETS = MacroDiets.values();
+
+    private UserCodec() {
+        throw new AssertionError("Cannot Instantiate UserCodec...");
+    }
+
+    /**
+     * Encodes a user into a new byte array.
+     *
+     * @param user User to encode
+     * @return Encoded user
+     */
+    public static byte[] encode(User user) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try {
+            write(new DataOutputStream(bytes), user);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a user from a byte array holding a single record of any supported version.
+     *
+     * @param bytes Encoded user
+     * @return Decoded user
+     * @throws IOException If the bytes are not a valid record
+     */
+    public static User decode(byte[] bytes) throws IOException {
+        if ((bytes.length > 0) && (bytes[0] == JAVA_SERIALIZATION)) {
+            return deserialize(bytes);
+        }
+        return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Writes a user to the output.
+     *
+     * @param out  Output to write to
+     * @param user User to write
+     * @throws IOException If the output cannot be written
+     */
+    public static void write(DataOutput out, User user) throws IOException {
+        Person person = user.getPerson();
+        Diet diet = user.getDiet();
+
+        out.writeByte(VERSION);
+        out.writeByte(diet.isBulking() ? BULKING : 0);
+        out.writeUTF(user.getUserName());
+        out.writeUTF(person.getName());
+        out.writeChar(person.getGender());
+        writeVarInt(out, person.getAge());
+        out.writeDouble(person.getHeight());
+        out.writeDouble(person.getWeight());
+        out.writeDouble(diet.getTdee());
+        out.writeDouble(diet.getBmi());
+        out.writeByte(diet.getDiets().ordinal());
+        writeVarInt(out, diet.getCalorieOffset());
+    }
+
+    /**
+     * Reads a user written by the codec.
+     *
+     * @param in Input positioned at the start of a record
+     * @return Decoded user
+     * @throws IOException If the input cannot be read or holds an unknown version
+     */
+    public static User read(DataInput in) throws IOException {
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported user record version " + version);
+        }
+
+        int flags = in.readByte();
+        String userName = in.readUTF();
+        String name = in.readUTF();
+        char gender = in.readChar();
+        int age = readVarInt(in);
+        double height = in.readDouble();
+        double weight = in.readDouble();
+        double tdee = in.readDouble();
+        double bmi = in.readDouble();
+        int macroDiet = in.readByte();
+        int calorieOffset = readVarInt(in);
+
+        if ((macroDiet < 0) || (macroDiet >= MACRO_DIETS.length)) {
+            throw new StreamCorruptedException("Unknown macro diet " + macroDiet);
+        }
+        Diet diet = ((flags & BULKING) != 0)
+                ? new BulkingDiet(tdee, bmi, MACRO_DIETS[macroDiet], calorieOffset)
+                : new CuttingDiet(tdee, bmi, MACRO_DIETS[macroDiet], calorieOffset);
+
+        return new User(userName, new Person(name, gender, height, weight, age), diet);
+    }
+
+    /**
+     * Writes a signed int using one byte per 7 bits of its zigzag encoding.
+     */
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        int zigzag = (value << 1) ^ (value >> 31);
+        while ((zigzag & ~0x7F) != 0) {
+            out.writeByte((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        out.writeByte(zigzag);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int zigzag = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readByte();
+            zigzag |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    /**
+     * Encodes a user with ObjectOutputStream, the format used before the codec existed.
+     *
+     * @param user User to encode
+     * @return Serialized user
+     */
+    static byte[] serialize(User user) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(user);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static User deserialize(byte[] bytes) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (User) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new InvalidClassException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * UserImporter
+ * This class creates users in bulk from CSV rows of the form
+ * username,name,gender,height,weight,age,goal,activityLevel
+ * where goal is 1 to bulk or 2 to cut, as in Main.
+ *
+ * Rows are read in batches. Each batch is parsed, validated with the same rules as UserSystem.addUser
+ * and given its diet plan in parallel, then inserted in input order so that when a username appears
+ * more than once the first row wins. Nothing is printed per user; rejected rows are collected in
+ * the returned report instead. Inserted rows and rejected input are counted in the UserSystem's
+ * metrics like calls to addUser.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import com.example.codesample.ImportReport.Rejection;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public final class UserImporter {
+    private static final int COLUMNS = 8;
+    private static final int DEFAULT_BATCH_SIZE = 8192;
+
+    private final UserSystem userSystem;
+    /**
+     * Number of rows parsed in parallel before being inserted.
+     */
+    private final int batchSize;
+
+    public UserImporter(UserSystem userSystem) {
+        this(userSystem, DEFAULT_BATCH_SIZE);
+    }
+
+    public UserImporter(UserSystem userSystem, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.userSystem = userSystem;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports every row of a UTF-8 CSV file.
+     *
+     * @param csv File to import
+     * @return Number of users created and every rejected row
+     * @throws IOException If the file cannot be read
+     */
+    public ImportReport importCsv(Path csv) throws IOException {
+        try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            return importCsv(reader);
+        }
+    }
+
+    /**
+     * Imports every row read from a CSV stream. A first row starting with "username" is taken as a header
+     * and skipped, as are blank lines.
+     *
+     * @param csv Rows to import
+     * @return Number of users created and every rejected row
+     * @throws IOException If the rows cannot be read
+     */
+    public ImportReport importCsv(Reader csv) throws IOException {
+        BufferedReader reader = (csv instanceof BufferedReader) ? (BufferedReader) csv : new BufferedReader(csv);
+        List<Rejection> rejections = new ArrayList<>();
+        String[] lines = new String[batchSize];
+        long[] lineNumbers = new long[batchSize];
+        Row[] rows = new Row[batchSize];
+        long lineNumber = 0;
+        int imported = 0;
+        int pending = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty() || ((lineNumber == 1) && isHeader(line))) {
+                continue;
+            }
+            lines[pending] = line;
+            lineNumbers[pending] = lineNumber;
+            if (++pending == batchSize) {
+                imported += importBatch(lines, lineNumbers, rows, pending, rejections);
+                pending = 0;
+            }
+        }
+        imported += importBatch(lines, lineNumbers, rows, pending, rejections);
+
+        return new ImportReport(imported, rejections);
+    }
+
+    private int importBatch(String[] lines, long[] lineNumbers, Row[] rows, int count, List<Rejection> rejections) {
+        IntStream.range(0, count).parallel().forEach(i -> rows[i] = parse(lines[i], lineNumbers[i]));
+
+        int imported = 0;
+        for (int i = 0; i < count; i++) {
+            Row row = rows[i];
+            if (row.user == null) {
+                rejections.add(row.rejection);
+                userSystem.inputRejected();
+            } else if (userSystem.addValidatedUser(row.user)) {
+                imported++;
+            } else {
+                rejections.add(new Rejection(row.line, row.user.getUserName(), "Username already taken"));
+            }
+            rows[i] = null;
+            lines[i] = null;
+        }
+        return imported;
+    }
+
+    /**
+     * Turns one CSV row into a user, or into the reasons it cannot be one.
+     */
+    private static Row parse(String line, long lineNumber) {
+        List<String> fields = split(line);
+        String userName = fields.get(0);
+
+        if (fields.size() != COLUMNS) {
+            return new Row(lineNumber, userName, "Expected " + COLUMNS + " columns but found " + fields.size());
+        }
+
+        Person person;
+        int fitnessGoal;
+        double activityLevel;
+        try {
+            String gender = fields.get(2);
+            if (gender.length() != 1) {
+                return new Row(lineNumber, userName, "Not a valid gender");
+            }
+            person = new Person(fields.get(1), gender.charAt(0), Double.parseDouble(fields.get(3)),
+                    Double.parseDouble(fields.get(4)), Integer.parseInt(fields.get(5)));
+            fitnessGoal = Integer.parseInt(fields.get(6));
+            activityLevel = Double.parseDouble(fields.get(7));
+        } catch (NumberFormatException e) {
+            return new Row(lineNumber, userName, "Not a valid number: " + e.getMessage());
+        }
+
+        String errors = UserSystem.validate(userName, person, fitnessGoal, activityLevel);
+        if (!errors.isEmpty()) {
+            return new Row(lineNumber, userName, errors.trim().replace(System.lineSeparator(), "; "));
+        }
+
+        return new Row(lineNumber, new User(userName, person, UserSystem.createDiet(person, activityLevel, fitnessGoal)));
+    }
+
+    private static boolean isHeader(String line) {
+        return line.regionMatches(true, 0, "username", 0, "username".length());
+    }
+
+    /**
+     * Splits a CSV row into trimmed fields. Fields may be quoted to hold commas, with "" standing for a quote.
+     */
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if ((i + 1 < line.length()) && (line.charAt(i + 1) == '"')) {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+
+        return fields;
+    }
+
+    /**
+     * Outcome of parsing a single row: either a user or a rejection.
+     */
+    private static final class Row {
+        private final long line;
+        private final User user;
+        private final Rejection rejection;
+
+        private Row(long line, User user) {
+            this.line = line;
+            this.user = user;
+            this.rejection = null;
+        }
+
+        private Row(long line, String userName, String reason) {
+            this.line = line;
+            this.user = null;
+            this.rejection = new Rejection(line, userName, reason);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * UserIndex
+ * This class reads the username index at the end of a .dat file in place. The index holds one
+ * fixed-width entry per stored user, sorted by username, giving the position and length of the
+ * user's record so it can be read without touching any other record.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+class UserIndex {
+    /**
+     * Longest username that fits in an index entry.
+     */
+    static final int USERNAME_LIMIT = 10;
+    static final int ENTRY_SIZE = 36;
+
+    private static final int USERNAME_LENGTH = 0;
+    private static final int USERNAME = 2;
+    private static final int RECORD_OFFSET = 24;
+    private static final int RECORD_LENGTH = 32;
+
+    /**
+     * Index entries, read in place from the mapped file.
+     */
+    private final ByteBuffer entries;
+    private final int count;
+
+    UserIndex(ByteBuffer entries, int count) {
+        this.entries = entries;
+        this.count = count;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * Binary searches the index for a username.
+     *
+     * @param userName Username to search
+     * @return Position of the username's entry, or -1 if it is not in the index
+     */
+    int find(String userName) {
+        int low = 0;
+        int high = count - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(middle, userName);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the username of an entry with a username the same way String.compareTo does.
+     */
+    private int compare(int entry, String userName) {
+        int position = entry * ENTRY_SIZE;
+        int length = entries.get(position + USERNAME_LENGTH);
+        int shorter = Math.min(length, userName.length());
+
+        for (int i = 0; i < shorter; i++) {
+            char c = entries.getChar(position + USERNAME + (2 * i));
+            if (c != userName.charAt(i)) {
+                return c - userName.charAt(i);
+            }
+        }
+        return length - userName.length();
+    }
+
+    String userName(int entry) {
+        int position = entry * ENTRY_SIZE;
+        char[] chars = new char[entries.get(position + USERNAME_LENGTH)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = entries.getChar(position + USERNAME + (2 * i));
+        }
+        return new String(chars);
+    }
+
+    long recordOffset(int entry) {
+        return entries.getLong((entry * ENTRY_SIZE) + RECORD_OFFSET);
+    }
+
+    int recordLength(int entry) {
+        return entries.getInt((entry * ENTRY_SIZE) + RECORD_LENGTH);
+    }
+
+    /**
+     * Writes one index entry.
+     *
+     * @param out          Output positioned at the entry
+     * @param userName     Username of the record
+     * @param recordOffset Position of the record in the file
+     * @param recordLength Length of the record in bytes
+     * @throws IOException If the entry cannot be written
+     */
+    static void writeEntry(DataOutput out, String userName, long recordOffset, int recordLength) throws IOException {
+        out.writeByte(userName.length());
+        out.writeByte(0);
+        for (int i = 0; i < USERNAME_LIMIT; i++) {
+            out.writeChar((i < userName.length()) ? userName.charAt(i) : 0);
+        }
+        out.writeShort(0);
+        out.writeLong(recordOffset);
+        out.writeInt(recordLength);
+    }
+}
@@ -0,0 +1,298 @@
+/**
+ * UserJournal
+ * This class appends every change made to a HeapUserStore's users to a write-ahead journal file,
+ * so that only the changed user is written instead of rewriting the whole .dat file.
+ * The journal is replayed on top of the last snapshot when users are loaded, and is compacted
+ * in the background into a new snapshot once it grows past a size limit.
+ *
+ * Every record carries a CRC32C of its type and payload. Records are flushed but not forced to disk,
+ * so after a crash the journal may end in a torn or garbage record; replay stops at the first record
+ * whose header, checksum or payload is not valid and cuts the journal back to the records before it.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+public class UserJournal implements UserListener, Closeable {
+    /**
+     * Record types of journals written before records were checksummed, still replayed.
+     */
+    private static final byte UNCHECKED_PUT = 1;
+    private static final byte UNCHECKED_DELETE = 2;
+    /**
+     * Record type for a user that was added or changed, followed by the full user.
+     */
+    private static final byte PUT = 3;
+    /**
+     * Record type for a deleted user, followed by the username.
+     */
+    private static final byte DELETE = 4;
+    /**
+     * Bytes taken by an unchecked record's type and payload length.
+     */
+    private static final int UNCHECKED_HEADER = 5;
+    /**
+     * Bytes taken by a record's type, payload length and CRC32C.
+     */
+    private static final int RECORD_HEADER = 9;
+    /**
+     * Largest payload taken for a record when replaying, well above any user that is written.
+     */
+    private static final int MAX_PAYLOAD = 1024 * 1024;
+    /**
+     * Journal size (in bytes) after which a background compaction is started.
+     */
+    static final long DEFAULT_COMPACTION_THRESHOLD = 4L * 1024 * 1024;
+    /**
+     * Store whose users are journaled and snapshotted on compaction.
+     */
+    private final HeapUserStore store;
+    /**
+     * Journal currently being appended to.
+     */
+    private final File journalFile;
+    /**
+     * Journal that was rotated out by a compaction that has not finished yet.
+     */
+    private final File rotatedFile;
+    /**
+     * Journal size that triggers a compaction.
+     */
+    private final long compactionThreshold;
+    /**
+     * Single background thread that writes snapshots.
+     */
+    private final ExecutorService compactor;
+    private DataOutputStream out;
+    private long journalSize;
+    private Future<?> compaction;
+
+    UserJournal(HeapUserStore store, File dataFile, long compactionThreshold) throws IOException {
+        this.store = store;
+        this.journalFile = journalFile(dataFile);
+        this.rotatedFile = rotatedFile(dataFile);
+        this.compactionThreshold = compactionThreshold;
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.journalSize = journalFile.length();
+        this.out = open();
+    }
+
+    static File journalFile(File dataFile) {
+        return new File(dataFile.getPath() + ".journal");
+    }
+
+    static File rotatedFile(File dataFile) {
+        return new File(dataFile.getPath() + ".journal.old");
+    }
+
+    /**
+     * Replays the journals belonging to a .dat file on top of the users loaded from it.
+     * A record cut short or damaged by a crash ends the replay of that journal.
+     *
+     * @param dataFile .dat file the journals belong to
+     * @param store    Store holding the users loaded from the last snapshot
+     * @return Number of records replayed
+     * @throws IOException If a journal cannot be read
+     */
+    static int replay(File dataFile, UserStore store) throws IOException {
+        return replayFile(rotatedFile(dataFile), store) + replayFile(journalFile(dataFile), store);
+    }
+
+    private static int replayFile(File journal, UserStore store) throws IOException {
+        if (!journal.isFile()) {
+            return 0;
+        }
+
+        int records = 0;
+        long length = journal.length();
+        long validLength = 0;
+        CRC32C crc = new CRC32C();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)))) {
+            while (length - validLength >= UNCHECKED_HEADER) {
+                byte type = in.readByte();
+                int payloadLength = in.readInt();
+                boolean checked = (type == PUT) || (type == DELETE);
+                int header = checked ? RECORD_HEADER : UNCHECKED_HEADER;
+                if ((!checked && (type != UNCHECKED_PUT) && (type != UNCHECKED_DELETE))
+                        || (payloadLength < 0) || (payloadLength > MAX_PAYLOAD)
+                        || (payloadLength > length - validLength - header)) {
+                    break;
+                }
+                int expectedCrc = checked ? in.readInt() : 0;
+                byte[] payload = new byte[payloadLength];
+                in.readFully(payload);
+                if (checked) {
+                    crc.reset();
+                    crc.update(type);
+                    crc.update(payload);
+                    if ((int) crc.getValue() != expectedCrc) {
+                        break;
+                    }
+                }
+
+                if ((type == PUT) || (type == UNCHECKED_PUT)) {
+                    User user;
+                    try {
+                        user = UserCodec.decode(payload);
+                    } catch (IOException | RuntimeException e) {
+                        break;
+                    }
+                    store.put(user);
+                } else {
+                    store.remove(new String(payload, StandardCharsets.UTF_8));
+                }
+                validLength += header + payloadLength;
+                records++;
+            }
+        }
+
+        // drop a record cut short or damaged by a crash so that new records are appended after the last whole one
+        if (length > validLength) {
+            try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+                file.setLength(validLength);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public void userAdded(User user) {
+        append(PUT, UserCodec.encode(user));
+    }
+
+    @Override
+    public void userDeleted(User user) {
+        append(DELETE, user.getUserName().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void userChanged(User user) {
+        append(PUT, UserCodec.encode(user));
+    }
+
+    private synchronized void append(byte type, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(type);
+        crc.update(payload);
+        try {
+            out.writeByte(type);
+            out.writeInt(payload.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to " + journalFile, e);
+        }
+        journalSize += RECORD_HEADER + payload.length;
+
+        if ((journalSize >= compactionThreshold) && ((compaction == null) || compaction.isDone())) {
+            compaction = compactor.submit(rotate());
+        }
+    }
+
+    /**
+     * Writes a new snapshot and discards the journal, waiting for it to finish.
+     */
+    public void compact() {
+        Future<?> pending;
+        synchronized (this) {
+            awaitCompaction();
+            pending = compactor.submit(rotate());
+            compaction = pending;
+        }
+        await(pending);
+    }
+
+    /**
+     * Starts a new journal and returns the task that snapshots the users at this point.
+     * Changes made after the rotation go to the new journal, so the snapshot may safely include them.
+     */
+    private Runnable rotate() {
+        try {
+            out.close();
+            if (rotatedFile.exists()) {
+                // an earlier compaction failed, keep its records until a snapshot succeeds
+                Files.write(rotatedFile.toPath(), Files.readAllBytes(journalFile.toPath()), StandardOpenOption.APPEND);
+                Files.delete(journalFile.toPath());
+            } else if (!journalFile.renameTo(rotatedFile)) {
+                throw new IOException("Could not rotate " + journalFile);
+            }
+            journalSize = 0;
+            out = open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        HeapUserStore.Snapshot snapshot = store.capture();
+        return () -> {
+            try {
+                store.writeSnapshot(snapshot);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write snapshot", e);
+            }
+            rotatedFile.delete();
+        };
+    }
+
+    /**
+     * Waits for a running compaction. A failed compaction is not reported here since its journal
+     * is kept and folded into the next one.
+     */
+    private void awaitCompaction() {
+        if (compaction != null) {
+            try {
+                await(compaction);
+            } catch (IllegalStateException e) {
+                compaction = null;
+            }
+        }
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Journal compaction failed", e.getCause());
+        }
+    }
+
+    private DataOutputStream open() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile, true)));
+    }
+
+    /**
+     * Waits for a running compaction and closes the journal file.
+     *
+     * @throws IOException If the journal cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        awaitCompaction();
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * UserListener
+ * This interface is implemented by components that need to observe every change made to the
+ * users held by a UserSystem (persistence, indexes, statistics).
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+public interface UserListener {
+
+    /**
+     * Called after a user has been stored in the UserSystem.
+     *
+     * @param user Newly added user
+     */
+    void userAdded(User user);
+
+    /**
+     * Called after a user has been removed from the UserSystem.
+     *
+     * @param user Removed user
+     */
+    void userDeleted(User user);
+
+    /**
+     * Called after a user's diet plan, calorie offset or macronutrient diet has changed.
+     *
+     * @param user User holding the new state
+     */
+    void userChanged(User user);
+}
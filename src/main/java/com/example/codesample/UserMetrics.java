@@ -0,0 +1,233 @@
+/**
+ * UserMetrics
+ * This class counts the calls, failures and latencies of a UserSystem's operations, along with the
+ * user input rejected by validation. Counters are LongAdders, which spread concurrent increments
+ * over cells instead of contending on one value, and latencies go into LatencyHistograms.
+ *
+ * Metrics can be read through JMX once registered, with an attribute per operation and statistic
+ * (e.g. RetrieveUserCount, RetrieveUserP99Micros) and a dump operation, or as text from dump.
+ * A UserSystem only records metrics once they are enabled; until then each operation pays one
+ * null check.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public final class UserMetrics implements DynamicMBean {
+    /**
+     * Domain of the registered MBeans' names.
+     */
+    static final String DOMAIN = "com.example.codesample";
+
+    /**
+     * UserSystem operations that are timed.
+     */
+    public enum Operation {
+        ADD_USER("AddUser"),
+        RETRIEVE_USER("RetrieveUser"),
+        DELETE_USER("DeleteUser"),
+        SAVE_USERS("SaveUsers"),
+        LOAD_USERS("LoadUsers");
+
+        private final String attributeName;
+
+        Operation(String attributeName) {
+            this.attributeName = attributeName;
+        }
+    }
+
+    /**
+     * Latencies and failures of every operation, indexed by ordinal. Calls are counted by the histogram.
+     */
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private final LongAdder[] failures = new LongAdder[Operation.values().length];
+    private final LongAdder validationFailures = new LongAdder();
+    /**
+     * Readers of every JMX attribute, in the order they are listed.
+     */
+    private final Map<String, Supplier<Object>> attributes = new LinkedHashMap<>();
+    private ObjectName objectName;
+
+    UserMetrics() {
+        for (Operation operation : Operation.values()) {
+            latencies[operation.ordinal()] = new LatencyHistogram();
+            failures[operation.ordinal()] = new LongAdder();
+
+            String name = operation.attributeName;
+            attributes.put(name + "Count", () -> getCount(operation));
+            attributes.put(name + "Failures", () -> getFailures(operation));
+            attributes.put(name + "MeanMicros", () -> latencies[operation.ordinal()].mean() / 1000);
+            attributes.put(name + "P50Micros", () -> getLatencyNanos(operation, 50) / 1000.0);
+            attributes.put(name + "P99Micros", () -> getLatencyNanos(operation, 99) / 1000.0);
+            attributes.put(name + "P999Micros", () -> getLatencyNanos(operation, 99.9) / 1000.0);
+            attributes.put(name + "MaxMicros", () -> latencies[operation.ordinal()].max() / 1000.0);
+        }
+        attributes.put("ValidationFailures", this::getValidationFailures);
+    }
+
+    /**
+     * Records a finished call of an operation.
+     *
+     * @param operation Operation called
+     * @param start     System.nanoTime() when the call started
+     * @param failed    True if the call threw or could not complete
+     */
+    void record(Operation operation, long start, boolean failed) {
+        latencies[operation.ordinal()].record(System.nanoTime() - start);
+        if (failed) {
+            failures[operation.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Records user input rejected by validation.
+     */
+    void validationFailed() {
+        validationFailures.increment();
+    }
+
+    public long getCount(Operation operation) {
+        return latencies[operation.ordinal()].count();
+    }
+
+    public long getFailures(Operation operation) {
+        return failures[operation.ordinal()].sum();
+    }
+
+    public long getValidationFailures() {
+        return validationFailures.sum();
+    }
+
+    /**
+     * Returns the latency below which a percentage of an operation's calls finished.
+     *
+     * @param operation  Operation to look up
+     * @param percentile Percentage from 0 to 100
+     * @return Latency in nanoseconds, accurate to about 6%, or 0 if the operation was not called
+     */
+    public long getLatencyNanos(Operation operation, double percentile) {
+        return latencies[operation.ordinal()].percentile(percentile);
+    }
+
+    /**
+     * Formats every metric as text, one operation per line.
+     *
+     * @return Plain text dump of the metrics
+     */
+    public String dump() {
+        StringBuilder dump = new StringBuilder();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram latency = latencies[operation.ordinal()];
+            dump.append(String.format("%-13s count=%d failures=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus%n",
+                    operation.attributeName, getCount(operation), getFailures(operation), latency.mean() / 1000,
+                    latency.percentile(50) / 1000.0, latency.percentile(99) / 1000.0,
+                    latency.percentile(99.9) / 1000.0, latency.max() / 1000.0));
+        }
+        dump.append("ValidationFailures count=").append(getValidationFailures()).append(System.lineSeparator());
+        return dump.toString();
+    }
+
+    @Override
+    public String toString() {
+        return dump();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as com.example.codesample:type=UserMetrics,name="{name}".
+     *
+     * @param name Name telling apart the UserSystems of one JVM
+     * @return Name the metrics were registered under
+     * @throws IllegalStateException If the name is taken or cannot be registered
+     */
+    public synchronized ObjectName register(String name) {
+        if (objectName != null) {
+            return objectName;
+        }
+        try {
+            ObjectName newName = new ObjectName(DOMAIN + ":type=UserMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newName);
+            objectName = newName;
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if registered.
+     */
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            // already gone
+        }
+        objectName = null;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Supplier<Object> reader = attributes.get(attribute);
+        if (reader == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return reader.get();
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        AttributeList list = new AttributeList();
+        for (String name : names) {
+            Supplier<Object> reader = attributes.get(name);
+            if (reader != null) {
+                list.add(new Attribute(name, reader.get()));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList list) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if ("dump".equals(actionName) && ((params == null) || (params.length == 0))) {
+            return dump();
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        MBeanAttributeInfo[] attributeInfo = new MBeanAttributeInfo[attributes.size()];
+        int i = 0;
+        for (Map.Entry<String, Supplier<Object>> attribute : attributes.entrySet()) {
+            String type = attribute.getValue().get().getClass().getName();
+            attributeInfo[i++] = new MBeanAttributeInfo(attribute.getKey(), type, attribute.getKey(),
+                    true, false, false);
+        }
+        MBeanOperationInfo dump = new MBeanOperationInfo("dump", "Every metric as text",
+                new MBeanParameterInfo[0], String.class.getName(), MBeanOperationInfo.INFO);
+        return new MBeanInfo(getClass().getName(), "Calls, failures and latencies of UserSystem operations",
+                attributeInfo, null, new MBeanOperationInfo[]{dump}, null);
+    }
+}
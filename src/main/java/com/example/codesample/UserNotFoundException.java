@@ -0,0 +1,18 @@
+/**
+ * UserNotFoundException
+ * This class contains a custom exception that is thrown when a username is looked up
+ * in the Usersystem class but no user has it
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+public class UserNotFoundException extends InvalidInputException {
+
+    public UserNotFoundException(String message) {
+        super(message);
+    }
+
+}
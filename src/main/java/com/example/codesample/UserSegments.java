@@ -0,0 +1,264 @@
+/**
+ * UserSegments
+ * This class writes and checks the segments that hold the user records of a .dat file.
+ * Each segment is a header of magic number, payload length, record count and CRC32C of the payload,
+ * followed by about TARGET_SIZE bytes of records, so damage to the file is confined to the segments
+ * it touches.
+ *
+ * Checking a file maps it in large windows and checksums every payload in place with CRC32C,
+ * without decoding a single record, so it runs as fast as the file can be read. After a damaged
+ * segment the check resumes at the next position holding a whole segment with a valid checksum.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+final class UserSegments {
+    /**
+     * Starts every segment ("FDPS").
+     */
+    static final int MAGIC = 0x46445053;
+    static final int HEADER_SIZE = 16;
+    /**
+     * A segment is closed once its records reach this many bytes.
+     */
+    static final int TARGET_SIZE = 64 * 1024;
+    /**
+     * Largest payload taken for a segment when checking, well above any segment that is written.
+     */
+    private static final int MAX_SIZE = 16 * 1024 * 1024;
+    /**
+     * Bytes of the file mapped at a time when checking.
+     */
+    private static final long WINDOW = 256L * 1024 * 1024;
+
+    private UserSegments() {
+        throw new AssertionError("Cannot Instantiate UserSegments...");
+    }
+
+    /**
+     * Receives the payload of every intact segment.
+     */
+    interface Visitor {
+        void visit(ByteBuffer payload, int records) throws IOException;
+    }
+
+    /**
+     * Groups records into segments as they are written.
+     */
+    static final class Writer {
+        private final DataOutputStream out;
+        private final Buffer segment = new Buffer();
+        private final CRC32C crc = new CRC32C();
+        private long position;
+        private int records;
+
+        /**
+         * @param out      Stream the segments are written to
+         * @param position Position in the file the first segment starts at
+         */
+        Writer(DataOutputStream out, long position) {
+            this.out = out;
+            this.position = position;
+        }
+
+        /**
+         * Adds a record to the current segment, writing the segment once it is full.
+         *
+         * @return Position of the record in the file
+         */
+        long append(byte[] record) throws IOException {
+            long offset = position + HEADER_SIZE + segment.size();
+            segment.write(record);
+            records++;
+            if (segment.size() >= TARGET_SIZE) {
+                flush();
+            }
+            return offset;
+        }
+
+        /**
+         * Writes the last segment.
+         *
+         * @return Position in the file after the last segment
+         */
+        long finish() throws IOException {
+            if (records > 0) {
+                flush();
+            }
+            return position;
+        }
+
+        private void flush() throws IOException {
+            crc.reset();
+            crc.update(segment.array(), 0, segment.size());
+            out.writeInt(MAGIC);
+            out.writeInt(segment.size());
+            out.writeInt(records);
+            out.writeInt((int) crc.getValue());
+            segment.writeTo(out);
+            position += HEADER_SIZE + segment.size();
+            segment.reset();
+            records = 0;
+        }
+    }
+
+    /**
+     * Byte stream that lends out its array for checksumming.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+        private Buffer() {
+            super(TARGET_SIZE + 512);
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+    }
+
+    /**
+     * Checks every segment between two positions of a file.
+     *
+     * @param channel File to check
+     * @param start   Position of the first segment
+     * @param end     Position after the last segment
+     * @param visitor Receives every intact segment, or null
+     * @return Number of intact segments and the damaged ranges
+     * @throws IOException If the file cannot be read or the visitor fails
+     */
+    static Check check(FileChannel channel, long start, long end, Visitor visitor) throws IOException {
+        return new Check(channel, end).run(start, visitor);
+    }
+
+    /**
+     * Result of checking a file's segments.
+     */
+    static final class Check {
+        private final FileChannel channel;
+        private final long end;
+        private final CRC32C crc = new CRC32C();
+        private MappedByteBuffer window;
+        private long windowStart;
+        private int segments;
+        /**
+         * Start (inclusive) and end (exclusive) of every damaged range, in file order.
+         */
+        private final List<long[]> damaged = new ArrayList<>();
+
+        private Check(FileChannel channel, long end) {
+            this.channel = channel;
+            this.end = end;
+        }
+
+        private Check run(long start, Visitor visitor) throws IOException {
+            long position = start;
+            long damageStart = -1;
+            while (position < end) {
+                int length = segmentLength(position);
+                if (length < 0) {
+                    if (damageStart < 0) {
+                        damageStart = position;
+                    }
+                    position++;
+                    continue;
+                }
+                if (damageStart >= 0) {
+                    damaged.add(new long[]{damageStart, position});
+                    damageStart = -1;
+                }
+                segments++;
+                if (visitor != null) {
+                    ByteBuffer header = bytes(position, HEADER_SIZE);
+                    int records = header.getInt(header.position() + 8);
+                    visitor.visit(bytes(position + HEADER_SIZE, length - HEADER_SIZE), records);
+                }
+                position += length;
+            }
+            if (damageStart >= 0) {
+                damaged.add(new long[]{damageStart, end});
+            }
+            return this;
+        }
+
+        /**
+         * @return Length of the whole segment at a position, or -1 if there is no intact segment there
+         */
+        private int segmentLength(long position) throws IOException {
+            ByteBuffer header = bytes(position, HEADER_SIZE);
+            if ((header == null) || (header.getInt(header.position()) != MAGIC)) {
+                return -1;
+            }
+            int length = header.getInt(header.position() + 4);
+            int checksum = header.getInt(header.position() + 12);
+            if ((length < 0) || (length > MAX_SIZE)) {
+                return -1;
+            }
+            ByteBuffer payload = bytes(position + HEADER_SIZE, length);
+            if (payload == null) {
+                return -1;
+            }
+            crc.reset();
+            crc.update(payload);
+            return ((int) crc.getValue() == checksum) ? HEADER_SIZE + length : -1;
+        }
+
+        /**
+         * Returns a buffer over a range of the file, mapping a new window if the range is not in the current one.
+         *
+         * @return Buffer positioned at the range, or null if the range runs past the end
+         */
+        private ByteBuffer bytes(long position, int length) throws IOException {
+            if (position + length > end) {
+                return null;
+            }
+            if ((window == null) || (position < windowStart) || (position + length > windowStart + window.capacity())) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(Math.max(WINDOW, length), end - position));
+            }
+            ByteBuffer range = window.duplicate();
+            range.position((int) (position - windowStart));
+            range.limit(range.position() + length);
+            return range;
+        }
+
+        int getSegments() {
+            return segments;
+        }
+
+        List<long[]> getDamaged() {
+            return damaged;
+        }
+
+        /**
+         * @return True if a position lies in a damaged range
+         */
+        boolean isDamaged(long position) {
+            int low = 0;
+            int high = damaged.size() - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long[] range = damaged.get(middle);
+                if (position < range[0]) {
+                    high = middle - 1;
+                } else if (position >= range[1]) {
+                    low = middle + 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
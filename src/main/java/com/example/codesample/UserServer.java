@@ -0,0 +1,346 @@
+/**
+ * UserServer
+ * This class serves a UserSystem over HTTP with JSON bodies, so many clients can use it at once.
+ * Requests run on a fixed pool of threads against the shared UserSystem, and connections are kept alive
+ * between requests.
+ *
+ * POST   /users                        create a user from
+ *                                      {userName, name, gender, height, weight, age, goal, activityLevel}
+ * GET    /users/{userName}             retrieve a user and their diet plan
+ * DELETE /users/{userName}             delete a user
+ * POST   /users/{userName}/diet-plan   switch between bulking and cutting
+ * PUT    /users/{userName}/calorie-offset  change calorie intake from {option}, as in Main
+ * PUT    /users/{userName}/macro-diet  change macronutrient ratios from {option}, as in Main
+ * GET    /users/{userName}/progress    expected weight change, with an optional ?weeks=N horizon
+ *
+ * Invalid input is answered with 400, unknown users with 404, taken usernames with 409 and any
+ * other failure with 500, each with a body of the form {"error": message}.
+ *
+ * Responses are written as headers then body, so without TCP_NODELAY every keep-alive request waits
+ * on a delayed ACK. The JDK server only enables it when started with -Dsun.net.httpserver.nodelay=true,
+ * which it reads once, before its first server is created. This class leaves that JVM-wide setting to
+ * the application; Main sets it for --serve.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class UserServer implements Closeable {
+    private static final String USERS = "/users";
+    /**
+     * Largest request body accepted, in bytes.
+     */
+    private static final int MAX_BODY = 16 * 1024;
+    /**
+     * System property that enables TCP_NODELAY on the connections of the JDK HTTP server.
+     */
+    static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final UserSystem userSystem;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a server with one request thread per available processor.
+     * Set NODELAY_PROPERTY before the first server is created for low keep-alive latency.
+     *
+     * @param userSystem Users to serve
+     * @param address    Address to listen on; port 0 picks a free port
+     * @throws IOException If the address cannot be bound
+     */
+    public UserServer(UserSystem userSystem, InetSocketAddress address) throws IOException {
+        this(userSystem, address, Math.max(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public UserServer(UserSystem userSystem, InetSocketAddress address, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.userSystem = userSystem;
+        this.server = HttpServer.create(address, 1024);
+        this.executor = Executors.newFixedThreadPool(threads, new RequestThreads());
+        this.server.setExecutor(executor);
+        this.server.createContext(USERS, this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for requests in progress and stops the request threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String rest = exchange.getRequestURI().getRawPath().substring(USERS.length());
+            if (!rest.isEmpty() && (rest.charAt(0) != '/')) {
+                send(exchange, 404, new Json().field("error", "Not found").toString());
+                return;
+            }
+            try {
+                route(exchange, exchange.getRequestMethod(), rest.split("/"));
+            } catch (UserNotFoundException e) {
+                send(exchange, 404, new Json().field("error", e.getMessage().trim()).toString());
+            } catch (UsernameTakenException e) {
+                send(exchange, 409, new Json().field("error", e.getMessage().trim()).toString());
+            } catch (InvalidInputException e) {
+                send(exchange, 400, new Json().field("error", e.getMessage().trim()).toString());
+            } catch (ArithmeticException | IllegalArgumentException e) {
+                send(exchange, 400, new Json().field("error", e.getMessage()).toString());
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                // a response already under way cannot be replaced, only cut short by closing the exchange
+                if (exchange.getResponseCode() == -1) {
+                    send(exchange, 500, new Json().field("error", "Internal server error").toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Dispatches a request by the path segments following /users.
+     */
+    private void route(HttpExchange exchange, String method, String[] path) throws IOException {
+        // "/users" and "/users/" split to an empty path, "/users/name/action" to {"", name, action}
+        if (path.length <= 1) {
+            if ("POST".equals(method)) {
+                send(exchange, 201, userJson(createUser(readBody(exchange))).toString());
+            } else {
+                methodNotAllowed(exchange, "POST");
+            }
+            return;
+        }
+
+        String userName = URLDecoder.decode(path[1], StandardCharsets.UTF_8);
+        String action = (path.length > 2) ? path[2] : "";
+        if (path.length > 3) {
+            send(exchange, 404, new Json().field("error", "Not found").toString());
+            return;
+        }
+
+        switch (action) {
+            case "":
+                if ("GET".equals(method)) {
+                    send(exchange, 200, userJson(userSystem.retrieveUser(userName)).toString());
+                } else if ("DELETE".equals(method)) {
+                    userSystem.deleteUser(userName);
+                    send(exchange, 204, null);
+                } else {
+                    methodNotAllowed(exchange, "GET, DELETE");
+                }
+                break;
+            case "diet-plan":
+                if ("POST".equals(method)) {
+                    User user = userSystem.retrieveUser(userName);
+                    user.changeDietPlan();
+                    send(exchange, 200, userJson(user).toString());
+                } else {
+                    methodNotAllowed(exchange, "POST");
+                }
+                break;
+            case "calorie-offset":
+            case "macro-diet":
+                if ("PUT".equals(method)) {
+                    int option = intField(readBody(exchange), "option");
+                    User user = userSystem.retrieveUser(userName);
+                    boolean changed = action.equals("macro-diet") ? user.changeMacroDiet(option)
+                            : user.changeCalorieIntake(option);
+                    send(exchange, 200, planJson(new Json().field("changed", changed), user.getDietPlan()).toString());
+                } else {
+                    methodNotAllowed(exchange, "PUT");
+                }
+                break;
+            case "progress":
+                if ("GET".equals(method)) {
+                    DietPlan plan = userSystem.retrieveUser(userName).getDietPlan();
+                    send(exchange, 200, progressJson(plan, query(exchange, "weeks")).toString());
+                } else {
+                    methodNotAllowed(exchange, "GET");
+                }
+                break;
+            default:
+                send(exchange, 404, new Json().field("error", "Not found").toString());
+        }
+    }
+
+    private User createUser(Map<String, String> body) {
+        String gender = field(body, "gender");
+        if (gender.isEmpty()) {
+            throw new InvalidInputException("Not a valid gender");
+        }
+        Person person = new Person(field(body, "name"), gender.charAt(0), doubleField(body, "height"),
+                doubleField(body, "weight"), intField(body, "age"));
+
+        return userSystem.addUser(field(body, "userName"), person, intField(body, "goal"),
+                doubleField(body, "activityLevel"));
+    }
+
+    private static Json userJson(User user) {
+        Person person = user.getPerson();
+        Json json = new Json()
+                .field("userName", user.getUserName())
+                .field("name", person.getName())
+                .field("gender", String.valueOf(person.getGender()))
+                .field("age", person.getAge())
+                .field("height", person.getHeight())
+                .field("weight", person.getWeight());
+        return planJson(json, user.getDietPlan());
+    }
+
+    private static Json planJson(Json json, DietPlan plan) {
+        return json.object("dietPlan")
+                .field("bulking", plan.isBulking())
+                .field("macroDiet", plan.getMacroDiet().getName())
+                .field("tdee", plan.getTdee())
+                .field("dailyCalories", plan.getDailyCalories())
+                .field("calorieOffset", plan.getCalorieOffset())
+                .field("bmi", plan.getBmi())
+                .field("bmiCategory", plan.getBmiCategory())
+                .field("carbs", plan.getCarbs())
+                .field("protein", plan.getProtein())
+                .field("fat", plan.getFat())
+                .end();
+    }
+
+    private static Json progressJson(DietPlan plan, String weeks) {
+        WeightProjection projection = new WeightProjection().project(plan.getCalorieOffset());
+        Json json = new Json()
+                .field("gaining", plan.isBulking())
+                .object("week").field("lbs", projection.getWeekPounds()).field("kg", projection.getWeekKilograms()).end()
+                .object("month").field("lbs", projection.getMonthPounds()).field("kg", projection.getMonthKilograms()).end()
+                .object("year").field("lbs", projection.getYearPounds()).field("kg", projection.getYearKilograms()).end();
+        if (weeks != null) {
+            double horizon = parseDouble("weeks", weeks);
+            if (!(horizon >= 0) || Double.isInfinite(horizon)) {
+                throw new InvalidInputException("Not a valid weeks");
+            }
+            json.object("horizon").field("weeks", horizon)
+                    .field("lbs", projection.getPounds(horizon)).field("kg", projection.getKilograms(horizon)).end();
+        }
+        return json;
+    }
+
+    private static String field(Map<String, String> body, String name) {
+        String value = body.get(name);
+        if (value == null) {
+            throw new InvalidInputException("Missing " + name);
+        }
+        return value;
+    }
+
+    private static int intField(Map<String, String> body, String name) {
+        try {
+            return Integer.parseInt(field(body, name));
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("Not a valid " + name);
+        }
+    }
+
+    private static double doubleField(Map<String, String> body, String name) {
+        return parseDouble(name, field(body, name));
+    }
+
+    private static double parseDouble(String name, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("Not a valid " + name);
+        }
+    }
+
+    private static String query(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if ((equals > 0) && parameter.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        byte[] buffer = new byte[1024];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                body.write(buffer, 0, read);
+                if (body.size() > MAX_BODY) {
+                    throw new InvalidInputException("Request body too large");
+                }
+            }
+        }
+        return Json.parseObject(body.toString(StandardCharsets.UTF_8));
+    }
+
+    private static void methodNotAllowed(HttpExchange exchange, String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        send(exchange, 405, new Json().field("error", "Method not allowed").toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Names request threads and makes them daemons so an open server never keeps the program running.
+     */
+    private static final class RequestThreads implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "user-server-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
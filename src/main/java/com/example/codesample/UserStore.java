@@ -0,0 +1,151 @@
+/**
+ * UserStore
+ * This interface defines where a UserSystem keeps its users and how they are persisted
+ * between runs of the program.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+public interface UserStore extends Closeable {
+
+    /**
+     * Finds a stored user.
+     *
+     * @param userName User's username to search
+     * @return Corresponding user, or null if username is not stored
+     */
+    User get(String userName);
+
+    /**
+     * Checks whether a username is stored.
+     *
+     * @param userName User's username to search
+     * @return True if username is found, otherwise false
+     */
+    boolean contains(String userName);
+
+    /**
+     * Stores a user, replacing any user with the same username.
+     *
+     * @param user User to store
+     */
+    void put(User user);
+
+    /**
+     * Stores a user unless its username is already stored.
+     * Thread-safe stores check and store the user atomically.
+     *
+     * @param user User to store
+     * @return True if the user was stored, false if the username was taken
+     */
+    default boolean putIfAbsent(User user) {
+        if (contains(user.getUserName())) {
+            return false;
+        }
+        put(user);
+        return true;
+    }
+
+    /**
+     * Removes a stored user.
+     *
+     * @param userName User's username to remove
+     * @return Removed user, or null if username is not stored
+     */
+    User remove(String userName);
+
+    /**
+     * Persists a change made to a stored user's diet plan.
+     *
+     * @param user User holding the new state
+     */
+    void update(User user);
+
+    /**
+     * Returns the number of stored users.
+     *
+     * @return Number of stored users
+     */
+    int size();
+
+    /**
+     * Copies every stored user into a list.
+     *
+     * @return List of stored users
+     */
+    List<User> snapshot();
+
+    /**
+     * Reads stored users from disk.
+     *
+     * @throws IOException If stored users cannot be read
+     */
+    void load() throws IOException;
+
+    /**
+     * Tells whether load has saved users to read, so a load can be announced only when it reads something.
+     *
+     * @return True if users have been saved where load reads them
+     */
+    default boolean hasSavedUsers() {
+        return true;
+    }
+
+    /**
+     * Decodes every stored user up front, for stores that otherwise decode users when first needed.
+     */
+    default void preload() {
+    }
+
+    /**
+     * Returns what the last load found wrong with the stored users and what it recovered.
+     *
+     * @return Report of the last load
+     */
+    default RecoveryReport getRecoveryReport() {
+        return RecoveryReport.CLEAN;
+    }
+
+    /**
+     * Writes stored users to disk.
+     *
+     * @throws IOException If stored users cannot be written
+     */
+    void save() throws IOException;
+
+    /**
+     * Writes stored users to disk while the store keeps serving other threads.
+     * Called from a background thread, never at the same time as save.
+     *
+     * @return Bytes written, or -1 if the store cannot tell
+     * @throws IOException If stored users cannot be written
+     */
+    default long checkpoint() throws IOException {
+        save();
+        return -1;
+    }
+
+    /**
+     * Switches the store to journaled persistence. Stores that write every change in place as it
+     * happens return a journal that ignores changes; stores that can do neither reject journaling.
+     *
+     * @param compactionThreshold Journal size (in bytes) that triggers a compaction
+     * @return Journal to be notified of every change
+     * @throws IOException                   If the journal cannot be opened
+     * @throws UnsupportedOperationException If the store cannot be journaled
+     */
+    default UserListener openJournal(long compactionThreshold) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support journaling");
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -1,8 +1,9 @@
 /**
  * UserSystem
- * This class holds the hashmap for all stored users, contains main method for creating a user
- * along with creating a diet, validating input and removing/retrieving users from hashmap.
- * This Class also handles writing and reading from a .dat file to preserve stored users info
+ * This class holds the store for all users, contains main method for creating a user
+ * along with creating a diet, validating input and removing/retrieving users from the store.
+ * The store handles writing and reading from a file to preserve stored users info
+ * A UserSystem can be shared between threads when its store is thread-safe, as HeapUserStore is
  *
  * @version 1.0
  * @author Jose Alejandro Rodriguez
@@ -12,13 +13,13 @@ package com.example.codesample;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class UserSystem implements Serializable {
     /**
-     * Hashmap that stores a newly created user's information.
-     * Usernames are stored as keys
+     * Store that holds every user's information, keyed by username.
      */
-    private HashMap<String, User> users;
+    private transient UserStore store;
     /**
      * Height (in cm) of tallest recorded person.
      */
@@ -30,39 +31,157 @@ public class UserSystem implements Serializable {
     /**
      * Weight (in kg) of heaviest recorded person.
      */
-    private static final int HEAVIEST_PERSON = 605;
+    static final int HEAVIEST_PERSON = 605;
+    /**
+     * Components notified of every added, deleted or changed user.
+     */
+    private transient List<UserListener> listeners;
+    /**
+     * Forwards changes made to stored users to every registered listener.
+     */
+    private transient UserListener dispatcher;
+    /**
+     * Receives the messages announcing created diet plans and truncated input.
+     */
+    private transient volatile OutputSink sink;
+    /**
+     * Counts and times operations, null until metrics are enabled.
+     */
+    private transient volatile UserMetrics metrics;
+    /**
+     * Number of locks that changes to different usernames are spread over.
+     */
+    private static final int LOCK_STRIPES = 64;
+    /**
+     * Locks held while a username is stored, removed or changed and its listeners are notified,
+     * so listeners hear the changes to a username in the order they were made.
+     */
+    private transient Object[] locks;
 
     private static final long serialVersionUID = 1L;
 
     public UserSystem() {
 
-        this.users = new HashMap<>();
+        this(new File("Users.dat"));
+    }
+
+    public UserSystem(File dataFile) {
+
+        this(new HeapUserStore(dataFile));
+    }
+
+    /**
+     * Creates a UserSystem whose users are split by username over a number of shard files.
+     *
+     * @param dataFile File the shard files are named after
+     * @param shards   Number of shards
+     */
+    public UserSystem(File dataFile, int shards) {
+
+        this(new ShardedUserStore(dataFile, shards));
+    }
+
+    public UserSystem(UserStore store) {
+        this.store = store;
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.dispatcher = new Dispatcher();
+        this.sink = OutputSink.NONE;
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    private Object lockFor(String userName) {
+        int h = userName.hashCode();
+        return locks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
     }
 
     /**
      * Takes all necessary parameters to create a user.
      * Validates parameters before creating user object
-     * Stores user in hashmap if input is valid
+     * Stores user if input is valid and the username is not taken, checking and storing atomically
      *
      * @param userName      User's unique username
      * @param person        Contains all personal user information
      * @param fitnessGoal   Integer pertaining to a diet plan option
      * @param activityLevel Exercise value that is multiplied to get user's TDEE
      * @return Newly created user
+     * @throws InvalidInputException  If a parameter is invalid
+     * @throws UsernameTakenException If the username is already taken
      */
     public User addUser(String userName, Person person, int fitnessGoal, double activityLevel) {
+        UserMetrics metrics = this.metrics;
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        boolean failed = true;
+        try {
+            if (isValid(userName, person, fitnessGoal, activityLevel)) {
+                Diet diet = createDiet(person, activityLevel, fitnessGoal);
+
+                User user = new User(userName, person, diet);
+                if (!storeNew(user)) {
+                    throw new UsernameTakenException("Username already taken");
+                }
 
-        if (isValid(userName, person, fitnessGoal, activityLevel)) {
-            Diet diet = createDiet(person, activityLevel, fitnessGoal);
-            System.out.println("Diet created with recommended 45% carb, 25% protein, 30% fat calorie plan");
+                OutputSink out = sink;
+                out.message(diet.isBulking() ? "Bulking diet plan created. Calorie surplus set to 500"
+                        : "Cutting diet plan created. Calorie deficit set to 20% of TDEE");
+                out.message("Diet created with recommended 45% carb, 25% protein, 30% fat calorie plan");
+
+                failed = false;
+                return user;
+            }
 
-            User user = new User(userName, person, diet);
-            users.put(userName, user);
+            return null;
+        } finally {
+            if (metrics != null) {
+                metrics.record(UserMetrics.Operation.ADD_USER, start, failed);
+            }
+        }
+    }
 
-            return users.get(userName);
+    /**
+     * Stores a user validated and given a diet plan outside addUser, e.g. by UserImporter, counting
+     * the call in the metrics as addUser would. Nothing is sent to the output sink.
+     *
+     * @param user User to store
+     * @return True if the user was stored, false if the username was taken
+     */
+    boolean addValidatedUser(User user) {
+        UserMetrics metrics = this.metrics;
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        boolean stored = storeNew(user);
+        if (metrics != null) {
+            metrics.record(UserMetrics.Operation.ADD_USER, start, !stored);
         }
+        return stored;
+    }
 
-        return null;
+    /**
+     * Counts user input rejected by validation outside addUser, e.g. by UserImporter.
+     */
+    void inputRejected() {
+        UserMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.validationFailed();
+        }
+    }
+
+    /**
+     * Stores an already validated user unless the username is taken, and notifies listeners.
+     *
+     * @param user User to store
+     * @return True if the user was stored, false if the username was taken
+     */
+    boolean storeNew(User user) {
+        synchronized (lockFor(user.getUserName())) {
+            if (!store.putIfAbsent(user)) {
+                return false;
+            }
+            user.setListener(dispatcher);
+            dispatcher.userAdded(user);
+            return true;
+        }
     }
 
     /**
@@ -79,7 +198,7 @@ public class UserSystem implements Serializable {
 
         if (checkString.length() > charLimit) {
             checkString = checkString.substring(0, charLimit);
-            System.out.println("Truncated to " + checkString + " for exceeding " + charLimit + " character limit.");
+            sink.message("Truncated to " + checkString + " for exceeding " + charLimit + " character limit.");
             return checkString;
         } else {
             return checkString;
@@ -87,17 +206,36 @@ public class UserSystem implements Serializable {
     }
 
     /**
-     * Validates whether or not username is already in the Hashmap.
+     * Validates whether or not username is already stored.
      *
      * @param userName User's username to search
      * @return True if username is found, otherweise false
      */
     public boolean validateUsername(String userName) {
 
-        return users.containsKey(userName);
+        return store.contains(userName);
     }
 
     private boolean isValid(String userName, Person person, int fitnessGoal, double activityLevel) throws InvalidInputException {
+        String errors = validate(userName, person, fitnessGoal, activityLevel);
+
+        if (!errors.isEmpty()) {
+            UserMetrics metrics = this.metrics;
+            if (metrics != null) {
+                metrics.validationFailed();
+            }
+            throw new InvalidInputException(errors);
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks every parameter needed to create a user.
+     *
+     * @return Every problem found, one per line, or an empty string if the input is valid
+     */
+    static String validate(String userName, Person person, int fitnessGoal, double activityLevel) {
         StringBuilder errors = new StringBuilder();
         String newLine = System.lineSeparator();
 
@@ -126,28 +264,31 @@ public class UserSystem implements Serializable {
                 errors.append("Not a valid fitness goal" + newLine);
             }
 
-            if (errors.length() != 0) {
-                throw new InvalidInputException(errors.toString());
-            }
-
         } catch (NullPointerException e) {
-            throw new InvalidInputException("Inputs cannot be null");
+            return "Inputs cannot be null";
         }
 
-        return true;
+        return errors.toString();
     }
 
-    private Diet createDiet(Person person, double activityLevel, int fitnessGoal) throws InvalidInputException {
+    /**
+     * Creates a new diet plan with the recommended macronutrient ratios.
+     *
+     * @param person        Personal information used to calculate TDEE and BMI
+     * @param activityLevel Exercise value that is multiplied to get user's TDEE
+     * @param fitnessGoal   1 for a bulking plan, 2 for a cutting plan
+     * @return New diet plan
+     * @throws InvalidInputException If the fitness goal is not valid
+     */
+    static Diet createDiet(Person person, double activityLevel, int fitnessGoal) throws InvalidInputException {
 
         double tdee = calculateTdee(person.getGender(), person.getAge(), person.getHeight(), person.getWeight(), activityLevel);
         double bmi = calculateBmi(person.getHeight(), person.getWeight());
 
         switch (fitnessGoal) {
             case 1:
-                System.out.println("Bulking diet plan created");
                 return new BulkingDiet(tdee, bmi, MacroDiets.DEFAULT);
             case 2:
-                System.out.println("Cutting diet plan created");
                 return new CuttingDiet(tdee, bmi, MacroDiets.DEFAULT);
             default:
                 throw new InvalidInputException("Not a valid fitness goal");
@@ -155,7 +296,7 @@ public class UserSystem implements Serializable {
 
     }
 
-    private double calculateTdee(char gender, int age, double height, double weight, double activityLevel) {
+    static double calculateTdee(char gender, int age, double height, double weight, double activityLevel) {
 
         /* Mifflin-St-Jeor Formula to calculate BMR(Basal Metabolic Rate)
            value returns calories the body burns while at rest
@@ -166,88 +307,284 @@ public class UserSystem implements Serializable {
                 : activityLevel * (bmr - 161);
     }
 
-    private double calculateBmi(double height, double weight) {
+    static double calculateBmi(double height, double weight) {
         double cmToMeters = height / 100;
 
-        return (weight / Math.pow(cmToMeters, 2));
+        return (weight / (cmToMeters * cmToMeters));
     }
 
     /**
-     * Retrieves user from Hashmap if username is found.
+     * Retrieves user from the store if username is found.
      *
      * @param userName User's username to retrieve
      * @return Corresponding user if username is found, otherwise throws an exception
-     * @throws InvalidInputException If username does not exist
+     * @throws UserNotFoundException If username does not exist
      */
-    public User retrieveUser(String userName) throws InvalidInputException {
-        if (users.get(userName) != null) {
-            return users.get(userName);
+    public User retrieveUser(String userName) throws UserNotFoundException {
+        UserMetrics metrics = this.metrics;
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        User user = store.get(userName);
+        if ((user != null) && (user.getListener() != dispatcher)) {
+            // attach under the lock, so a user deleted meanwhile is not attached again
+            synchronized (lockFor(userName)) {
+                user = store.get(userName);
+                if (user != null) {
+                    user.setListener(dispatcher);
+                }
+            }
+        }
+        if (metrics != null) {
+            metrics.record(UserMetrics.Operation.RETRIEVE_USER, start, user == null);
+        }
+        if (user != null) {
+            return user;
         } else {
-            throw new InvalidInputException("Username does not exist");
+            throw new UserNotFoundException("Username does not exist");
         }
     }
 
     /**
-     * Deletes user if username is found in Hashmap.
+     * Deletes user if username is found in the store.
      *
      * @param userName User's username to be deleted
      * @return True if user is successfully deleted, otherwise throws an exception
-     * @throws InvalidInputException If username does not exist
+     * @throws UserNotFoundException If username does not exist
      */
-    public boolean deleteUser(String userName) throws InvalidInputException {
-        if (users.remove(userName) != null) {
+    public boolean deleteUser(String userName) throws UserNotFoundException {
+        UserMetrics metrics = this.metrics;
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        User user;
+        synchronized (lockFor(userName)) {
+            user = store.remove(userName);
+            if (user != null) {
+                user.setListener(null);
+                dispatcher.userDeleted(user);
+            }
+        }
+        if (metrics != null) {
+            metrics.record(UserMetrics.Operation.DELETE_USER, start, user == null);
+        }
+        if (user != null) {
             return true;
         } else {
-            throw new InvalidInputException("Username does not exist");
+            throw new UserNotFoundException("Username does not exist");
         }
     }
 
     /**
-     * Loads user data from a .dat file and inserts it into the local Hashmap.
-     * First checks if file exists, ignoring the method if the file is not present
+     * Returns every stored user, loading any the store has not loaded yet.
+     *
+     * @return List of stored users
      */
-    public void loadUsers() {
-
-        File f = new File("Users.dat");
-
-        if (f.exists() && !f.isDirectory()) {
-            System.out.println("Loading Data....");
-
-            try (ObjectInputStream loadUsers = new ObjectInputStream(new BufferedInputStream(new FileInputStream("Users.dat")))) {
-                boolean eof = false;
-                while (!eof) {
-                    try {
-                        User user = (User) loadUsers.readObject();
-                        users.put(user.getUserName(), user);
-                    } catch (EOFException e) {
-                        eof = true;
+    public List<User> getUsers() {
+        List<User> users = store.snapshot();
+        for (User user : users) {
+            if (user.getListener() != dispatcher) {
+                synchronized (lockFor(user.getUserName())) {
+                    if (store.contains(user.getUserName())) {
+                        user.setListener(dispatcher);
                     }
                 }
-            } catch (IOException | ClassNotFoundException e) {
-                System.out.println(e.getMessage());
-                e.printStackTrace();
             }
         }
+        return users;
+    }
 
+    /**
+     * Registers a listener to be notified of every added, deleted or changed user.
+     *
+     * @param listener Listener to register
+     */
+    public void addListener(UserListener listener) {
+        listeners.add(listener);
     }
 
     /**
-     * Outputs user information to a .dat file to be stored until application is run again.
+     * Sets where messages for the user are sent. Messages are discarded until a sink is set.
+     *
+     * @param sink Sink to receive messages
      */
-    public void saveUsers() {
-        try (ObjectOutputStream saveUsers = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream("Users.dat")))) {
-            for (User user : users.values()) {
-                saveUsers.writeObject(user);
+    public void setOutputSink(OutputSink sink) {
+        this.sink = Objects.requireNonNull(sink, "sink");
+    }
+
+    /**
+     * Switches to journaled persistence. Every change is appended to a journal next to the .dat
+     * file instead of waiting for saveUsers, and the journal is compacted in the background.
+     * Should be called after loadUsers so the existing journal is replayed first.
+     * Stores that persist every change in place, such as MappedUserStore, need no journal and ignore it.
+     *
+     * @throws UnsupportedOperationException If the store can neither journal nor persist in place
+     */
+    public void enableJournal() {
+        enableJournal(UserJournal.DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    void enableJournal(long compactionThreshold) {
+        UserListener journal;
+        try {
+            journal = store.openJournal(compactionThreshold);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open journal", e);
+        }
+        if (!listeners.contains(journal)) {
+            addListener(journal);
+        }
+    }
+
+    /**
+     * Loads user data from the store's file(s).
+     * The store ignores the method if no data has been saved yet
+     */
+    public void loadUsers() {
+        loadUsers(false);
+    }
+
+    /**
+     * Loads user data from the store's file(s), optionally decoding every user up front on all cores
+     * instead of each one when first retrieved. Files resharded and damage found while loading are reported
+     * to the output sink, and can be read from getRecoveryReport.
+     *
+     * @param preload True to decode every user while loading
+     */
+    public void loadUsers(boolean preload) {
+        UserMetrics metrics = this.metrics;
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        boolean failed = true;
+        try {
+            if (store.hasSavedUsers()) {
+                sink.message("Loading Data....");
+            }
+            store.load();
+            if (preload) {
+                store.preload();
+            }
+            failed = false;
+            RecoveryReport recovery = store.getRecoveryReport();
+            if (!recovery.getResharded().isEmpty()) {
+                sink.message("Resharded users of " + recovery.getResharded().size() + " file(s) "
+                        + recovery.getResharded());
+            }
+            if (!recovery.isClean()) {
+                sink.message("Stored users were damaged: " + recovery);
             }
         } catch (IOException e) {
             System.out.println(e.getMessage());
             e.printStackTrace();
+        } finally {
+            if (metrics != null) {
+                metrics.record(UserMetrics.Operation.LOAD_USERS, start, failed);
+            }
+        }
+    }
+
+    /**
+     * Returns what the last loadUsers found wrong with the stored users, e.g. usernames lost to a damaged file.
+     *
+     * @return Report of the last load
+     */
+    public RecoveryReport getRecoveryReport() {
+        return store.getRecoveryReport();
+    }
+
+    /**
+     * Outputs user information to the store's file(s) to be stored until application is run again.
+     */
+    public void saveUsers() {
+        UserMetrics metrics = this.metrics;
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        boolean failed = true;
+        try {
+            store.save();
+            failed = false;
+        } catch (IOException | IllegalStateException e) {
+            System.out.println(e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (metrics != null) {
+                metrics.record(UserMetrics.Operation.SAVE_USERS, start, failed);
+            }
         }
+    }
+
+    /**
+     * Writes every user to disk from a background thread, see UserStore.checkpoint.
+     *
+     * @return Bytes written, or -1 if the store cannot tell
+     * @throws IOException If users cannot be written
+     */
+    long checkpoint() throws IOException {
+        return store.checkpoint();
+    }
 
+    /**
+     * Starts counting and timing addUser, retrieveUser, deleteUser, saveUsers and loadUsers,
+     * and rejected input. Until then the operations only check whether metrics are enabled.
+     *
+     * @return Metrics of this UserSystem, to read or register with JMX
+     */
+    public synchronized UserMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new UserMetrics();
+        }
+        return metrics;
+    }
 
+    /**
+     * @return Metrics of this UserSystem, or null if they are not enabled
+     */
+    public UserMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Releases the store's files, waiting for any background writes to finish,
+     * and unregisters the metrics from JMX.
+     */
+    public void close() {
+        UserMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.unregister();
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+            e.printStackTrace();
+        }
     }
-}
 
+    /**
+     * Forwards changes to the store and every registered listener.
+     */
+    private class Dispatcher implements UserListener {
 
+        @Override
+        public void userAdded(User user) {
+            for (UserListener listener : listeners) {
+                listener.userAdded(user);
+            }
+        }
 
+        @Override
+        public void userDeleted(User user) {
+            for (UserListener listener : listeners) {
+                listener.userDeleted(user);
+            }
+        }
 
+        @Override
+        public void userChanged(User user) {
+            synchronized (lockFor(user.getUserName())) {
+                // a change racing with the user's deletion is dropped, not stored after it
+                if (user.getListener() != this) {
+                    return;
+                }
+                store.update(user);
+                for (UserListener listener : listeners) {
+                    listener.userChanged(user);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * UsernameTakenException
+ * This class contains a custom exception that is thrown when an attempt is made to create
+ * a user with a username another user of the Usersystem class already has
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+public class UsernameTakenException extends InvalidInputException {
+
+    public UsernameTakenException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,528 @@
+/**
+ * WeightLog
+ * This class keeps every user's logged weights by day, to show progress against the weight change
+ * their diet plan projects.
+ *
+ * Each user's entries are stored in chunks of up to CHUNK_ENTRIES entries. A chunk keeps its first day
+ * and weight as ints and every later entry as the varint gap in days and the zigzag varint change in
+ * hundredths of a kg, so a daily entry usually takes two bytes. Full chunks are trimmed to size, which
+ * keeps memory and the saved file close to the encoded size. Range scans binary search the chunks by
+ * their first day and decode only the chunks in range.
+ *
+ * The log listens to a UserSystem and drops the entries of deleted users. Appends and deletes of a
+ * user are serialised on the user's series, and a user's first entry is only logged while the
+ * UserSystem still has them, so no entry outlives its user.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class WeightLog implements UserListener {
+    /**
+     * Identifies a weight log file ("FDPW").
+     */
+    private static final int MAGIC = 0x46445057;
+    private static final int VERSION = 1;
+    static final int CHUNK_ENTRIES = 128;
+    /**
+     * Weights are stored in hundredths of a kg.
+     */
+    private static final double SCALE = 100;
+    /**
+     * Most bytes one entry can take: two varints of up to five bytes.
+     */
+    private static final int MAX_ENTRY_BYTES = 10;
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+    /**
+     * Users followed, or null to log entries of any username.
+     */
+    private final UserSystem userSystem;
+
+    public WeightLog() {
+        this.userSystem = null;
+    }
+
+    /**
+     * Creates a log that forgets users deleted from a UserSystem.
+     *
+     * @param userSystem Users to follow
+     */
+    public WeightLog(UserSystem userSystem) {
+        this.userSystem = userSystem;
+        userSystem.addListener(this);
+    }
+
+    /**
+     * Logs a user's weight on a day after their last logged day.
+     *
+     * @param userName User's username
+     * @param date     Day the weight was measured
+     * @param weight   Weight (in kg)
+     * @throws InvalidInputException If the weight is not valid or the day is not after the last logged day
+     * @throws UserNotFoundException If the log follows a UserSystem that does not have the user
+     */
+    public void append(String userName, LocalDate date, double weight) {
+        if (!(weight > 0) || (weight > UserSystem.HEAVIEST_PERSON)) {
+            throw new InvalidInputException("Not a valid weight");
+        }
+        int day = Math.toIntExact(date.toEpochDay());
+        int scaled = (int) Math.round(weight * SCALE);
+        // appending inside compute keeps a concurrent userDeleted from removing the series in between
+        series.compute(userName, (name, entries) -> {
+            if (entries == null) {
+                // the user is removed from the store before userDeleted, so a deleted user is never found
+                if ((userSystem != null) && !userSystem.validateUsername(name)) {
+                    throw new UserNotFoundException("Username does not exist");
+                }
+                entries = new Series();
+            }
+            entries.append(day, scaled);
+            return entries;
+        });
+    }
+
+    /**
+     * Receives logged entries in day order.
+     */
+    public interface Visitor {
+        void visit(LocalDate date, double weight);
+    }
+
+    /**
+     * Visits a user's entries from one day to another, both inclusive.
+     *
+     * @param userName User's username
+     * @param from     First day
+     * @param to       Last day
+     * @param visitor  Receives each entry
+     */
+    public void scan(String userName, LocalDate from, LocalDate to, Visitor visitor) {
+        Series entries = series.get(userName);
+        if (entries != null) {
+            entries.scan(Math.toIntExact(from.toEpochDay()), Math.toIntExact(to.toEpochDay()),
+                    (day, weight) -> visitor.visit(LocalDate.ofEpochDay(day), weight / SCALE));
+        }
+    }
+
+    /**
+     * Averages a user's entries over a number of days ending on a day.
+     *
+     * @param userName User's username
+     * @param end      Last day of the window
+     * @param days     Length of the window
+     * @return Average weight (in kg), or NaN if nothing was logged in the window
+     */
+    public double rollingAverage(String userName, LocalDate end, int days) {
+        double[] sum = new double[2];
+        scan(userName, end.minusDays(days - 1), end, (date, weight) -> {
+            sum[0] += weight;
+            sum[1]++;
+        });
+        return (sum[1] == 0) ? Double.NaN : sum[0] / sum[1];
+    }
+
+    /**
+     * Averages a user's entries over a trailing window for every day of a range.
+     *
+     * @param userName User's username
+     * @param from     First day
+     * @param to       Last day
+     * @param window   Length of the window in days
+     * @return Average weight (in kg) of the window ending on each day, NaN for days with nothing logged in the window
+     */
+    public double[] rollingAverages(String userName, LocalDate from, LocalDate to, int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be at least one day: " + window);
+        }
+        int first = Math.toIntExact(from.toEpochDay());
+        int days = Math.toIntExact(to.toEpochDay()) - first + 1;
+        double[] sums = new double[Math.max(0, days + window)];
+        int[] counts = new int[sums.length];
+
+        Series entries = series.get(userName);
+        if ((entries != null) && (days > 0)) {
+            int start = first - window + 1;
+            entries.scan(start, first + days - 1, (day, weight) -> {
+                sums[day - start + 1] += weight;
+                counts[day - start + 1]++;
+            });
+        }
+        // running totals, so each window is the difference of two of them
+        for (int i = 1; i < sums.length; i++) {
+            sums[i] += sums[i - 1];
+            counts[i] += counts[i - 1];
+        }
+
+        double[] averages = new double[Math.max(0, days)];
+        for (int i = 0; i < averages.length; i++) {
+            int count = counts[i + window] - counts[i];
+            averages[i] = (count == 0) ? Double.NaN : (sums[i + window] - sums[i]) / count / SCALE;
+        }
+        return averages;
+    }
+
+    /**
+     * Compares the weight a user logged over a range with the change their current diet plan projects
+     * for the same number of days.
+     *
+     * @param user User to compare
+     * @param from First day
+     * @param to   Last day
+     * @return Logged and projected change, or null if fewer than two entries were logged in the range
+     */
+    public Progress compare(User user, LocalDate from, LocalDate to) {
+        long[] days = {Long.MAX_VALUE, Long.MIN_VALUE};
+        double[] weights = new double[2];
+        scan(user.getUserName(), from, to, (date, weight) -> {
+            if (days[0] == Long.MAX_VALUE) {
+                days[0] = date.toEpochDay();
+                weights[0] = weight;
+            }
+            days[1] = date.toEpochDay();
+            weights[1] = weight;
+        });
+        if (days[1] <= days[0]) {
+            return null;
+        }
+
+        Diet diet = user.getDiet();
+        double projected = diet.projectWeightChange(new WeightProjection()).getKilograms((days[1] - days[0]) / 7.0);
+        return new Progress(LocalDate.ofEpochDay(days[0]), LocalDate.ofEpochDay(days[1]), weights[1] - weights[0],
+                diet.isBulking() ? projected : -projected);
+    }
+
+    /**
+     * @return Number of entries logged for a user
+     */
+    public int size(String userName) {
+        Series entries = series.get(userName);
+        return (entries == null) ? 0 : entries.size();
+    }
+
+    /**
+     * @return Bytes taken by every user's encoded entries and chunk headers
+     */
+    public long encodedBytes() {
+        long bytes = 0;
+        for (Series entries : series.values()) {
+            bytes += entries.encodedBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public void userAdded(User user) {
+    }
+
+    @Override
+    public void userDeleted(User user) {
+        series.remove(user.getUserName());
+    }
+
+    @Override
+    public void userChanged(User user) {
+    }
+
+    /**
+     * Writes every user's chunks, as they are encoded, to a temporary file which then replaces the file.
+     *
+     * @param file File to write
+     * @throws IOException If the file cannot be written
+     */
+    public void save(File file) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(tempFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Map.Entry<String, Series> entry : series.entrySet()) {
+                out.writeBoolean(true);
+                out.writeUTF(entry.getKey());
+                entry.getValue().write(out);
+            }
+            out.writeBoolean(false);
+            out.flush();
+            stream.getFD().sync();
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a log written by save, replacing the entries of every user in the file.
+     * The method is ignored if the file does not exist.
+     *
+     * @param file File to read
+     * @throws IOException If the file cannot be read or is not a weight log
+     */
+    public void load(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if ((in.readInt() != MAGIC) || (in.readInt() != VERSION)) {
+                throw new StreamCorruptedException(file + " is not a weight log");
+            }
+            while (in.readBoolean()) {
+                String userName = in.readUTF();
+                series.put(userName, Series.read(in));
+            }
+        }
+    }
+
+    /**
+     * A user's logged change over a range next to the change their diet plan projects.
+     */
+    public static final class Progress {
+        private final LocalDate from;
+        private final LocalDate to;
+        /**
+         * Weight change (in kg), positive for weight gained.
+         */
+        private final double logged;
+        private final double projected;
+
+        Progress(LocalDate from, LocalDate to, double logged, double projected) {
+            this.from = from;
+            this.to = to;
+            this.logged = logged;
+            this.projected = projected;
+        }
+
+        /**
+         * @return Day of the first entry in the range
+         */
+        public LocalDate getFrom() {
+            return from;
+        }
+
+        /**
+         * @return Day of the last entry in the range
+         */
+        public LocalDate getTo() {
+            return to;
+        }
+
+        public double getLogged() {
+            return logged;
+        }
+
+        public double getProjected() {
+            return projected;
+        }
+
+        /**
+         * @return Logged change minus projected change (in kg)
+         */
+        public double getDifference() {
+            return logged - projected;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s to %s (%d days): logged %+.2f kg, projected %+.2f kg", from, to,
+                    ChronoUnit.DAYS.between(from, to), logged, projected);
+        }
+    }
+
+    /**
+     * Receives decoded entries: day since the epoch and weight in hundredths of a kg.
+     */
+    private interface EntryVisitor {
+        void visit(int day, int weight);
+    }
+
+    /**
+     * One user's chunks. Guarded by this.
+     */
+    private static final class Series {
+        private int[] firstDays = new int[1];
+        private int[] firstWeights = new int[1];
+        private int[] counts = new int[1];
+        private int[] lengths = new int[1];
+        private byte[][] data = new byte[1][];
+        private int chunks;
+        private int lastDay;
+        private int lastWeight;
+        private int size;
+
+        synchronized void append(int day, int weight) {
+            if ((size > 0) && (day <= lastDay)) {
+                throw new InvalidInputException("Weight already logged for " + LocalDate.ofEpochDay(lastDay));
+            }
+            int chunk = chunks - 1;
+            if ((chunks == 0) || (counts[chunk] == CHUNK_ENTRIES)) {
+                if (chunks > 0) {
+                    data[chunk] = Arrays.copyOf(data[chunk], lengths[chunk]);
+                }
+                if (chunks == firstDays.length) {
+                    int capacity = chunks * 2;
+                    firstDays = Arrays.copyOf(firstDays, capacity);
+                    firstWeights = Arrays.copyOf(firstWeights, capacity);
+                    counts = Arrays.copyOf(counts, capacity);
+                    lengths = Arrays.copyOf(lengths, capacity);
+                    data = Arrays.copyOf(data, capacity);
+                }
+                chunk = chunks++;
+                firstDays[chunk] = day;
+                firstWeights[chunk] = weight;
+                counts[chunk] = 1;
+                lengths[chunk] = 0;
+                data[chunk] = new byte[16];
+            } else {
+                byte[] bytes = data[chunk];
+                if (lengths[chunk] + MAX_ENTRY_BYTES > bytes.length) {
+                    bytes = Arrays.copyOf(bytes, Math.min(bytes.length * 2, CHUNK_ENTRIES * MAX_ENTRY_BYTES));
+                    data[chunk] = bytes;
+                }
+                int position = writeVarInt(bytes, lengths[chunk], day - lastDay - 1);
+                lengths[chunk] = writeVarInt(bytes, position, zigzag(weight - lastWeight));
+                counts[chunk]++;
+            }
+            lastDay = day;
+            lastWeight = weight;
+            size++;
+        }
+
+        synchronized void scan(int from, int to, EntryVisitor visitor) {
+            // last chunk starting on or before the first day, the chunk before it ends before it
+            int low = 0;
+            int high = chunks - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (firstDays[middle] <= from) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            for (int chunk = low; (chunk < chunks) && (firstDays[chunk] <= to); chunk++) {
+                byte[] bytes = data[chunk];
+                int day = firstDays[chunk];
+                int weight = firstWeights[chunk];
+                int position = 0;
+                for (int entry = 0; ; entry++) {
+                    if (day > to) {
+                        return;
+                    }
+                    if (day >= from) {
+                        visitor.visit(day, weight);
+                    }
+                    if (entry + 1 == counts[chunk]) {
+                        break;
+                    }
+                    int gap = 0;
+                    for (int shift = 0; ; shift += 7) {
+                        byte b = bytes[position++];
+                        gap |= (b & 0x7F) << shift;
+                        if (b >= 0) {
+                            break;
+                        }
+                    }
+                    int change = 0;
+                    for (int shift = 0; ; shift += 7) {
+                        byte b = bytes[position++];
+                        change |= (b & 0x7F) << shift;
+                        if (b >= 0) {
+                            break;
+                        }
+                    }
+                    day += gap + 1;
+                    weight += (change >>> 1) ^ -(change & 1);
+                }
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * Four ints per chunk plus the chunk's bytes.
+         */
+        synchronized long encodedBytes() {
+            long bytes = 0;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                bytes += 16 + lengths[chunk];
+            }
+            return bytes;
+        }
+
+        synchronized void write(DataOutputStream out) throws IOException {
+            out.writeInt(chunks);
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                out.writeInt(firstDays[chunk]);
+                out.writeInt(firstWeights[chunk]);
+                out.writeInt(counts[chunk]);
+                out.writeInt(lengths[chunk]);
+                out.write(data[chunk], 0, lengths[chunk]);
+            }
+            out.writeInt(lastDay);
+            out.writeInt(lastWeight);
+        }
+
+        static Series read(DataInputStream in) throws IOException {
+            Series entries = new Series();
+            int chunks = in.readInt();
+            if (chunks < 0) {
+                throw new StreamCorruptedException("Not a valid weight log");
+            }
+            int capacity = Math.max(1, chunks);
+            entries.firstDays = new int[capacity];
+            entries.firstWeights = new int[capacity];
+            entries.counts = new int[capacity];
+            entries.lengths = new int[capacity];
+            entries.data = new byte[capacity][];
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                entries.firstDays[chunk] = in.readInt();
+                entries.firstWeights[chunk] = in.readInt();
+                entries.counts[chunk] = in.readInt();
+                entries.lengths[chunk] = in.readInt();
+                if ((entries.counts[chunk] < 1) || (entries.counts[chunk] > CHUNK_ENTRIES)
+                        || (entries.lengths[chunk] < 0) || (entries.lengths[chunk] > CHUNK_ENTRIES * MAX_ENTRY_BYTES)) {
+                    throw new StreamCorruptedException("Not a valid weight log chunk");
+                }
+                // the last chunk gets room to keep appending
+                entries.data[chunk] = new byte[(chunk == chunks - 1)
+                        ? CHUNK_ENTRIES * MAX_ENTRY_BYTES : entries.lengths[chunk]];
+                in.readFully(entries.data[chunk], 0, entries.lengths[chunk]);
+                entries.size += entries.counts[chunk];
+            }
+            entries.chunks = chunks;
+            entries.lastDay = in.readInt();
+            entries.lastWeight = in.readInt();
+            return entries;
+        }
+
+        private static int zigzag(int value) {
+            return (value << 1) ^ (value >> 31);
+        }
+
+        /**
+         * Writes an unsigned value using one byte per 7 bits.
+         *
+         * @return Position after the value
+         */
+        private static int writeVarInt(byte[] bytes, int position, int value) {
+            while ((value & ~0x7F) != 0) {
+                bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+            return position;
+        }
+    }
+}
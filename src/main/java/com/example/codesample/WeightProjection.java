@@ -0,0 +1,150 @@
+/**
+ * WeightProjection
+ * This class projects the weight gained/lost on a daily calorie surplus/deficit, in pounds and kilograms,
+ * over a week, a month, a year or any number of weeks.
+ * A projection is a reusable holder: project overwrites it in place, so one instance can be used for
+ * every user of a report without allocating. The static methods write straight into caller-supplied arrays.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+public final class WeightProjection {
+    /**
+     * Calories required to lose/gain 1 lbs of weight in a week.
+     */
+    static final double CALORIES_REQUIRED = 3500;
+    /**
+     * Average number of weeks in a month.
+     */
+    static final double WEEKS_PER_MONTH = 4.345;
+    /**
+     * Pounds in a kilogram, as used by Conversions.
+     */
+    static final double POUNDS_PER_KILOGRAM = 2.205;
+    /**
+     * Values written per user by the bulk projection: week, month and year, each in lbs then kg.
+     */
+    public static final int STRIDE = 6;
+
+    private double week;
+    private double month;
+    private double year;
+
+    /**
+     * Projects the weight change of a daily calorie offset, replacing the previous projection.
+     *
+     * @param calorieOffset Surplus/deficit of a user's daily calorie intake
+     * @return This projection
+     * @throws ArithmeticException If the calorieOffset variable is less than 0
+     */
+    public WeightProjection project(int calorieOffset) {
+        this.week = weeklyPounds(calorieOffset);
+        this.month = week * WEEKS_PER_MONTH;
+        this.year = month * 12;
+        return this;
+    }
+
+    public double getWeekPounds() {
+        return week;
+    }
+
+    public double getWeekKilograms() {
+        return week / POUNDS_PER_KILOGRAM;
+    }
+
+    public double getMonthPounds() {
+        return month;
+    }
+
+    public double getMonthKilograms() {
+        return month / POUNDS_PER_KILOGRAM;
+    }
+
+    public double getYearPounds() {
+        return year;
+    }
+
+    public double getYearKilograms() {
+        return year / POUNDS_PER_KILOGRAM;
+    }
+
+    /**
+     * Returns the projected weight change after a number of weeks.
+     *
+     * @param weeks Number of weeks
+     * @return Weight change (in lbs)
+     */
+    public double getPounds(double weeks) {
+        return week * weeks;
+    }
+
+    /**
+     * Returns the projected weight change after a number of weeks.
+     *
+     * @param weeks Number of weeks
+     * @return Weight change (in kg)
+     */
+    public double getKilograms(double weeks) {
+        return week * weeks / POUNDS_PER_KILOGRAM;
+    }
+
+    /**
+     * Projects the week, month and year weight change of every user into a single buffer.
+     * User i's values start at index STRIDE * i: week lbs, week kg, month lbs, month kg, year lbs, year kg.
+     *
+     * @param calorieOffsets Surplus/deficit of each user's daily calorie intake
+     * @param out            Buffer of at least STRIDE values per user
+     * @throws ArithmeticException      If a calorie offset is less than 0
+     * @throws IllegalArgumentException If the buffer is too small
+     */
+    public static void project(int[] calorieOffsets, double[] out) {
+        if (out.length < (long) STRIDE * calorieOffsets.length) {
+            throw new IllegalArgumentException("Buffer holds " + out.length + " values, "
+                    + (STRIDE * calorieOffsets.length) + " needed");
+        }
+        for (int i = 0, j = 0; i < calorieOffsets.length; i++, j += STRIDE) {
+            double week = weeklyPounds(calorieOffsets[i]);
+            double month = week * WEEKS_PER_MONTH;
+            double year = month * 12;
+            out[j] = week;
+            out[j + 1] = week / POUNDS_PER_KILOGRAM;
+            out[j + 2] = month;
+            out[j + 3] = month / POUNDS_PER_KILOGRAM;
+            out[j + 4] = year;
+            out[j + 5] = year / POUNDS_PER_KILOGRAM;
+        }
+    }
+
+    /**
+     * Projects the weight change of every user after a number of weeks.
+     *
+     * @param calorieOffsets Surplus/deficit of each user's daily calorie intake
+     * @param weeks          Number of weeks
+     * @param pounds         Array filled with each user's weight change (in lbs)
+     * @param kilograms      Array filled with each user's weight change (in kg)
+     * @throws ArithmeticException      If a calorie offset is less than 0
+     * @throws IllegalArgumentException If the output arrays do not match the number of users
+     */
+    public static void project(int[] calorieOffsets, double weeks, double[] pounds, double[] kilograms) {
+        if ((pounds.length != calorieOffsets.length) || (kilograms.length != calorieOffsets.length)) {
+            throw new IllegalArgumentException("Output arrays must hold " + calorieOffsets.length + " users");
+        }
+        for (int i = 0; i < calorieOffsets.length; i++) {
+            double change = weeklyPounds(calorieOffsets[i]) * weeks;
+            pounds[i] = change;
+            kilograms[i] = change / POUNDS_PER_KILOGRAM;
+        }
+    }
+
+    static double weeklyPounds(int calorieOffset) {
+        if (calorieOffset < 0) {
+            throw new ArithmeticException("parameter cannot be less than 0");
+        }
+        double weeklyCalories = calorieOffset * 7;
+
+        return weeklyCalories / CALORIES_REQUIRED;
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * WeightSimulator
+ * This class simulates a user's weight day by day instead of projecting it with the linear 3500 calories
+ * per pound rule. Every day the TDEE is recalculated with the Mifflin-St Jeor formula from the current
+ * weight, so the deficit of a cutting user eating a fixed amount shrinks as they lose weight.
+ *
+ * Users keep the policy chosen for the simulation, e.g. eating the daily calories of their plan or
+ * keeping their deficit as a percentage of the day's TDEE. Whole populations are simulated in parallel
+ * with fork/join, each task stepping a block of users through every day together.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public final class WeightSimulator {
+    /**
+     * Longest simulation, five years.
+     */
+    public static final int MAX_DAYS = 5 * 365;
+    /**
+     * Users stepped together by one fork/join task.
+     */
+    private static final int BLOCK = 1024;
+    private static final double KILOGRAMS_PER_CALORIE = 1 / (WeightProjection.CALORIES_REQUIRED * WeightProjection.POUNDS_PER_KILOGRAM);
+
+    /**
+     * How a user's daily calorie intake follows their falling or rising TDEE.
+     */
+    public enum Policy {
+        /**
+         * Eat the daily calories of the plan every day, whatever the TDEE becomes.
+         */
+        FIXED_INTAKE,
+        /**
+         * Keep the surplus/deficit of the plan in calories; this matches calculateWeightChange.
+         */
+        FIXED_OFFSET,
+        /**
+         * Keep the surplus/deficit as the same percentage of each day's TDEE.
+         */
+        FIXED_PERCENTAGE
+    }
+
+    private final Policy policy;
+    private final int days;
+    private final ForkJoinPool pool;
+
+    public WeightSimulator(Policy policy, int days) {
+        this(policy, days, ForkJoinPool.commonPool());
+    }
+
+    public WeightSimulator(Policy policy, int days, ForkJoinPool pool) {
+        if ((days < 1) || (days > MAX_DAYS)) {
+            throw new IllegalArgumentException("Days must be from 1 to " + MAX_DAYS + ": " + days);
+        }
+        this.policy = policy;
+        this.days = days;
+        this.pool = pool;
+    }
+
+    /**
+     * Simulates a single user.
+     *
+     * @param user User to simulate
+     * @return Weight (in kg) at the start and at the end of every day, days + 1 values
+     */
+    public double[] simulate(User user) {
+        Block block = new Block(Population.of(List.of(user)), 0, 1);
+        double[] trajectory = new double[days + 1];
+        trajectory[0] = block.weights[0];
+        for (int day = 0; day < days; day++) {
+            block.step(day);
+            trajectory[day + 1] = block.weights[0];
+        }
+        return trajectory;
+    }
+
+    /**
+     * Simulates every user of a population in parallel.
+     *
+     * @param population   Users to simulate
+     * @param finalWeights Array filled with each user's weight (in kg) after the last day
+     * @throws IllegalArgumentException If the array does not hold one value per user
+     */
+    public void simulate(Population population, double[] finalWeights) {
+        if (finalWeights.length != population.size()) {
+            throw new IllegalArgumentException("Expected " + population.size() + " final weights, found " + finalWeights.length);
+        }
+        pool.invoke(new Simulation(population, finalWeights, 0, population.size()));
+    }
+
+    /**
+     * Users stepped together, with everything that does not change from day to day worked out up front.
+     * Each day's calorie balance is constant + (rate * TDEE), which covers every policy without branching.
+     */
+    private final class Block {
+        private final double[] weights;
+        private final double[] activityLevels;
+        /**
+         * BMR without the weight and the years passed: 6.25 * height - 5 * age, plus the gender constant.
+         */
+        private final double[] bmrBase;
+        private final double[] constants;
+        private final double[] rates;
+
+        private Block(Population population, int from, int to) {
+            int size = to - from;
+            this.weights = Arrays.copyOfRange(population.weights, from, to);
+            this.activityLevels = Arrays.copyOfRange(population.activityLevels, from, to);
+            this.bmrBase = new double[size];
+            this.constants = new double[size];
+            this.rates = new double[size];
+
+            for (int i = from, j = 0; i < to; i++, j++) {
+                bmrBase[j] = (6.25 * population.heights[i]) - (5 * population.ages[i]) - 161 + (166 * population.genders[i]);
+                switch (policy) {
+                    case FIXED_INTAKE:
+                        constants[j] = population.intakes[i];
+                        rates[j] = -1;
+                        break;
+                    case FIXED_OFFSET:
+                        constants[j] = population.intakes[i] - population.tdees[i];
+                        break;
+                    default:
+                        rates[j] = population.ratios[i] - 1;
+                }
+            }
+        }
+
+        /**
+         * Moves every user of the block forward by one day.
+         */
+        private void step(int day) {
+            double aging = 5 * (day / 365);
+            for (int j = 0; j < weights.length; j++) {
+                double tdee = activityLevels[j] * ((10 * weights[j]) + bmrBase[j] - aging);
+                weights[j] = Math.max(0, weights[j] + ((constants[j] + (rates[j] * tdee)) * KILOGRAMS_PER_CALORIE));
+            }
+        }
+    }
+
+    /**
+     * Splits a range of users until it fits in a block.
+     */
+    private final class Simulation extends RecursiveAction {
+        private final Population population;
+        private final double[] finalWeights;
+        private final int from;
+        private final int to;
+
+        private Simulation(Population population, double[] finalWeights, int from, int to) {
+            this.population = population;
+            this.finalWeights = finalWeights;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BLOCK) {
+                Block block = new Block(population, from, to);
+                for (int day = 0; day < days; day++) {
+                    block.step(day);
+                }
+                System.arraycopy(block.weights, 0, finalWeights, from, to - from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Simulation(population, finalWeights, from, middle),
+                    new Simulation(population, finalWeights, middle, to));
+        }
+    }
+
+    /**
+     * Columns of everything the simulation needs to know about each user.
+     */
+    public static final class Population {
+        private final double[] weights;
+        private final double[] heights;
+        private final int[] ages;
+        private final int[] genders;
+        private final double[] activityLevels;
+        /**
+         * TDEE and daily calories of each plan, and daily calories as a share of TDEE.
+         */
+        private final double[] tdees;
+        private final double[] intakes;
+        private final double[] ratios;
+        private int size;
+
+        public Population(int capacity) {
+            this.weights = new double[capacity];
+            this.heights = new double[capacity];
+            this.ages = new int[capacity];
+            this.genders = new int[capacity];
+            this.activityLevels = new double[capacity];
+            this.tdees = new double[capacity];
+            this.intakes = new double[capacity];
+            this.ratios = new double[capacity];
+        }
+
+        /**
+         * Collects the columns of a group of users.
+         *
+         * @param users Users to simulate
+         * @return Population of the users, in iteration order
+         */
+        public static Population of(Collection<User> users) {
+            Population population = new Population(users.size());
+            for (User user : users) {
+                population.add(user);
+            }
+            return population;
+        }
+
+        /**
+         * Adds a user at the next index.
+         * Their activity level is recovered from the TDEE stored in their diet plan
+         *
+         * @param user User to add
+         * @throws IllegalStateException If the population is full
+         */
+        public void add(User user) {
+            Person person = user.getPerson();
+            DietPlan plan = user.getDietPlan();
+            int gender = BatchCalculator.genderCode(person.getGender());
+            double bmr = (10 * person.getWeight()) + (6.25 * person.getHeight()) - (5 * person.getAge());
+
+            add(person.getWeight(), person.getHeight(), person.getAge(), gender,
+                    plan.getTdee() / (bmr - 161 + (166 * gender)), plan.getTdee(), plan.getDailyCalories());
+        }
+
+        /**
+         * Adds a user at the next index.
+         *
+         * @param weight        Weight (in kg)
+         * @param height        Height (in cm)
+         * @param age           Age
+         * @param gender        BatchCalculator.MALE or BatchCalculator.FEMALE
+         * @param activityLevel Activity level
+         * @param tdee          TDEE of the user's plan
+         * @param dailyCalories Daily calorie intake of the user's plan
+         * @throws IllegalStateException If the population is full
+         */
+        public void add(double weight, double height, int age, int gender, double activityLevel,
+                        double tdee, double dailyCalories) {
+            if (size == weights.length) {
+                throw new IllegalStateException("Population is full: " + size);
+            }
+            weights[size] = weight;
+            heights[size] = height;
+            ages[size] = age;
+            genders[size] = gender;
+            activityLevels[size] = activityLevel;
+            tdees[size] = tdee;
+            intakes[size] = dailyCalories;
+            ratios[size] = dailyCalories / tdee;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+}
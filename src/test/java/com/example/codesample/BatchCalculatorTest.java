@@ -0,0 +1,70 @@
+/**
+ * BatchCalculatorTest
+ * This class tests that the batch TDEE and BMI calculations give exactly the same results as
+ * calculating each user on its own.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCalculatorTest {
+
+    /**
+     * Tests that random users across every valid range get bit-for-bit the scalar TDEE and BMI.
+     */
+    @Test
+    @DisplayName("Batch Matches Scalar Test")
+    void calculate_SameAsScalar() {
+        int count = 100_000;
+        Random random = new Random(42);
+        double[] weights = new double[count];
+        double[] heights = new double[count];
+        int[] ages = new int[count];
+        char[] genders = new char[count];
+        int[] genderCodes = new int[count];
+        double[] activityLevels = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            weights[i] = random.nextDouble() * 605;
+            heights[i] = 30.48 + (random.nextDouble() * (251 - 30.48));
+            ages[i] = random.nextInt(123);
+            genders[i] = "mfMF".charAt(random.nextInt(4));
+            genderCodes[i] = BatchCalculator.genderCode(genders[i]);
+            activityLevels[i] = 1.2 + (random.nextDouble() * .525);
+        }
+
+        double[] tdees = new double[count];
+        double[] bmis = new double[count];
+        BatchCalculator.calculateTdee(weights, heights, ages, genderCodes, activityLevels, tdees);
+        BatchCalculator.calculateBmi(heights, weights, bmis);
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(UserSystem.calculateTdee(genders[i], ages[i], heights[i], weights[i], activityLevels[i]), tdees[i]);
+            assertEquals(UserSystem.calculateBmi(heights[i], weights[i]), bmis[i]);
+        }
+    }
+
+    /**
+     * Tests that mismatched columns and unknown genders are rejected.
+     */
+    @Test
+    @DisplayName("Batch Invalid Input Test")
+    void calculate_InvalidColumns() {
+        assertAll("Invalid",
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> BatchCalculator.calculateBmi(new double[2], new double[3], new double[2])),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> BatchCalculator.calculateTdee(new double[2], new double[2], new int[1],
+                                new int[2], new double[2], new double[2])),
+                () -> assertThrows(InvalidInputException.class, () -> BatchCalculator.genderCode('x')));
+    }
+}
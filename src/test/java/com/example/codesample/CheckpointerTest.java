@@ -0,0 +1,134 @@
+/**
+ * CheckpointerTest
+ * This class tests that changed users are saved in the background, that unchanged users are not
+ * saved again, and that closing saves the last changes.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static UserSystem reload(File dataFile) {
+        UserSystem userSystem = new UserSystem(dataFile);
+        userSystem.loadUsers();
+        return userSystem;
+    }
+
+    /**
+     * Tests that changes are saved within an interval, without any call to saveUsers.
+     */
+    @Test
+    @DisplayName("Background Checkpoint Test")
+    void checkpoint_SavesChanges() throws Exception {
+        File dataFile = tempDir.resolve("Users.dat").toFile();
+        UserSystem userSystem = new UserSystem(dataFile);
+        Checkpointer checkpointer = new Checkpointer(userSystem, Duration.ofMillis(20));
+        assertFalse(checkpointer.isDirty());
+
+        for (int i = 0; i < 100; i++) {
+            userSystem.addUser("user" + i, new Person("Name", 'f', 165, 60, 30), 2, 1.375);
+        }
+        assertTrue(checkpointer.isDirty());
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (checkpointer.isDirty() && (System.nanoTime() < deadline)) {
+            Thread.sleep(10);
+        }
+
+        assertFalse(checkpointer.isDirty());
+        long checkpoints = checkpointer.getCheckpoints();
+        assertTrue(checkpoints >= 1);
+        assertEquals(dataFile.length(), checkpointer.getLastBytesWritten());
+        assertTrue(checkpointer.getLastDurationNanos() > 0);
+        assertEquals(100, reload(dataFile).getUsers().size());
+
+        Thread.sleep(100);
+        assertEquals(checkpoints, checkpointer.getCheckpoints());
+        assertFalse(checkpointer.checkpointIfChanged());
+        checkpointer.close();
+        userSystem.close();
+    }
+
+    /**
+     * Tests that closing saves changes made since the last checkpoint, including a journaled system's.
+     */
+    @Test
+    @DisplayName("Final Checkpoint Test")
+    void close_SavesLastChanges() throws Exception {
+        File dataFile = tempDir.resolve("Users.dat").toFile();
+        UserSystem userSystem = new UserSystem(dataFile);
+        userSystem.enableJournal();
+        Checkpointer checkpointer = new Checkpointer(userSystem, Duration.ofHours(1));
+
+        userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 1, 1.2);
+        userSystem.retrieveUser("Alejandro").changeCalorieIntake(1);
+        checkpointer.close();
+        userSystem.close();
+
+        assertEquals(1, checkpointer.getCheckpoints());
+        assertEquals(0, checkpointer.getFailures());
+        assertTrue(checkpointer.getTotalBytesWritten() > 0);
+        assertFalse(UserJournal.journalFile(dataFile).length() > 0);
+        assertEquals(250, reload(dataFile).retrieveUser("Alejandro").getDiet().getCalorieOffset());
+        assertThrows(IllegalArgumentException.class, () -> new Checkpointer(userSystem, Duration.ZERO));
+    }
+
+    /**
+     * Tests that a checkpoint being written does not block checking for changes or reading the metrics.
+     */
+    @Test
+    @DisplayName("Metrics During Checkpoint Test")
+    void metrics_DuringCheckpoint_NotBlocked() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        UserSystem userSystem = new UserSystem(new HeapUserStore(tempDir.resolve("Users.dat").toFile()) {
+            @Override
+            public long checkpoint() throws IOException {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.checkpoint();
+            }
+        });
+        Checkpointer checkpointer = new Checkpointer(userSystem, Duration.ofMillis(10));
+        userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 1, 1.2);
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<Long> metrics = CompletableFuture.supplyAsync(() -> {
+            checkpointer.isDirty();
+            return checkpointer.getCheckpoints() + checkpointer.getTotalBytesWritten();
+        });
+        try {
+            assertEquals(0, metrics.get(10, TimeUnit.SECONDS));
+            assertTrue(checkpointer.isDirty());
+        } finally {
+            release.countDown();
+        }
+        checkpointer.close();
+        userSystem.close();
+        assertEquals(1, checkpointer.getCheckpoints());
+        assertFalse(checkpointer.isDirty());
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * CommandBatchTest
+ * This class tests command scripts, checking that each command has the same effect as the matching
+ * menu option and that failed commands are reported without stopping the script.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandBatchTest {
+
+    @TempDir
+    Path tempDir;
+
+    private UserSystem userSystem;
+    private List<String> out;
+    private List<String> errors;
+    private CommandBatch commands;
+
+    @BeforeEach
+    void setup() {
+        userSystem = new UserSystem(tempDir.resolve("Users.dat").toFile());
+        out = new ArrayList<>();
+        errors = new ArrayList<>();
+        commands = new CommandBatch(userSystem, out::add, errors::add);
+    }
+
+    /**
+     * Tests that a script creates, changes and deletes users like the menus do.
+     */
+    @Test
+    @DisplayName("Batch Script Test")
+    void run_AppliesCommands() throws IOException {
+        String script = "# two users\n"
+                + "create Alejandro \"Jose Rodriguez\" m 180.34 73.46 23 1 1.2\n"
+                + "set-offset 1\n"
+                + "set-macro 2\n"
+                + "progress\n"
+                + "\n"
+                + "create cutter Jane f 150.32 90 33 2 1.55\n"
+                + "switch-plan\n"
+                + "load Alejandro\n"
+                + "switch-plan\n"
+                + "set-offset 3\n"
+                + "load cutter\n"
+                + "delete\n";
+
+        assertEquals(0, commands.run(new StringReader(script)));
+        assertEquals(11, commands.getExecuted());
+        assertTrue(errors.isEmpty());
+
+        User user = userSystem.retrieveUser("Alejandro");
+        assertAll("Alejandro",
+                () -> assertEquals("Jose Rodriguez", user.getPerson().getName()),
+                () -> assertFalse(user.getDiet().isBulking()),
+                () -> assertEquals(MacroDiets.KETO, user.getDiet().getDiets()),
+                () -> assertEquals((int) (user.getDiet().getTdee() * .30), user.getDiet().getCalorieOffset()),
+                () -> assertFalse(userSystem.validateUsername("cutter")),
+                () -> assertEquals(List.of("Alejandro gains 0.50 lbs/week 2.17 lbs/month 26.07 lbs/year"), out));
+    }
+
+    /**
+     * Tests that each failing command is reported with its line and the following commands still run.
+     */
+    @Test
+    @DisplayName("Batch Error Test")
+    void run_ReportsFailures() throws IOException {
+        String script = "progress\n"
+                + "create Alejandro Jose m 180.34 73.46 300 1 1.2\n"
+                + "create Alejandro Jose m tall 73.46 23 1 1.2\n"
+                + "create Alejandro Jose m 180.34 73.46 23 1 1.2\n"
+                + "set-offset 2\n"
+                + "set-macro\n"
+                + "jump\n"
+                + "load nobody\n"
+                + "create \"unterminated\n"
+                + "set-macro 1\n";
+
+        assertEquals(9, commands.run(new StringReader(script)));
+        assertEquals(1, commands.getExecuted());
+        assertEquals(List.of("Line 1: No user selected, use create or load first",
+                "Line 2: Not a valid age",
+                "Line 3: Not a number: tall",
+                "Line 5: No action taken for calorie option 2",
+                "Line 6: set-macro takes 1 argument(s), found 0",
+                "Line 7: Unknown command jump",
+                "Line 8: Username does not exist",
+                "Line 9: Unterminated quote",
+                "Line 10: No user selected, use create or load first"), errors);
+        assertEquals(MacroDiets.DEFAULT, userSystem.retrieveUser("Alejandro").getDiet().getDiets());
+    }
+
+    /**
+     * Tests that a failed create or load clears the selected user, so later commands cannot change another account.
+     */
+    @Test
+    @DisplayName("Failed Selection Test")
+    void run_FailedCreateOrLoadClearsSelection() throws IOException {
+        userSystem.addUser("bob", new Person("Bob", 'm', 180, 80, 30), 1, 1.2);
+        String script = "create alice Alice f 165 60 30 2 1.375\n"
+                + "create bob Bob m 180 80 30 1 1.2\n"
+                + "delete\n"
+                + "load alice\n"
+                + "load nobody\n"
+                + "set-macro 2\n";
+
+        assertEquals(4, commands.run(new StringReader(script)));
+        assertEquals(List.of("Line 2: Username already taken",
+                "Line 3: No user selected, use create or load first",
+                "Line 5: Username does not exist",
+                "Line 6: No user selected, use create or load first"), errors);
+        assertEquals(MacroDiets.DEFAULT, userSystem.retrieveUser("alice").getDiet().getDiets());
+        assertTrue(userSystem.validateUsername("bob"));
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * ConcurrentUserSystemTest
+ * This class stress tests a UserSystem shared between threads, checking that sign-ups for the same
+ * username never clobber each other, that concurrent diet changes are never lost and that
+ * listeners hear each username's changes in order.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentUserSystemTest {
+
+    private static final int THREADS = 8;
+
+    @TempDir
+    Path tempDir;
+
+    private UserSystem userSystem;
+
+    @BeforeEach
+    void setup() {
+        userSystem = new UserSystem(tempDir.resolve("Users.dat").toFile());
+    }
+
+    /**
+     * Runs a task on every thread at once and waits for all of them.
+     */
+    private static void runConcurrently(IntConsumerTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(thread);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+    }
+
+    private interface IntConsumerTask {
+        void run(int thread) throws Exception;
+    }
+
+    /**
+     * Tests that when every thread signs up the same usernames, each username is created exactly once.
+     */
+    @Test
+    @DisplayName("Concurrent Sign Up Test")
+    void addUser_SameUsernames() throws Exception {
+        int names = 2000;
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < names; i++) {
+                try {
+                    userSystem.addUser("user" + i, new Person("Thread" + thread, 'm', 180, 80, 30), 1, 1.2);
+                    created.incrementAndGet();
+                } catch (InvalidInputException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(names, created.get());
+        assertEquals(names * (THREADS - 1), rejected.get());
+        for (int i = 0; i < names; i++) {
+            assertTrue(userSystem.validateUsername("user" + i));
+        }
+    }
+
+    /**
+     * Tests that concurrent add, retrieve and delete of different users leave exactly the expected users.
+     */
+    @Test
+    @DisplayName("Concurrent Add Delete Test")
+    void addAndDelete_DifferentUsers() throws Exception {
+        int perThread = 1000;
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < perThread; i++) {
+                String userName = "t" + thread + "u" + i;
+                userSystem.addUser(userName, new Person("Name", 'f', 165, 60, 30), 2, 1.375);
+                assertEquals(userName, userSystem.retrieveUser(userName).getUserName());
+                if (i % 2 == 0) {
+                    assertTrue(userSystem.deleteUser(userName));
+                }
+            }
+        });
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            for (int i = 0; i < perThread; i++) {
+                assertEquals(i % 2 != 0, userSystem.validateUsername("t" + thread + "u" + i));
+            }
+        }
+    }
+
+    /**
+     * Tests that lean bulk toggles from every thread are all applied: an even number of toggles
+     * returns the user to a regular bulk with matching daily calories.
+     */
+    @Test
+    @DisplayName("Concurrent Calorie Change Test")
+    void changeCalorieIntake_NoLostToggles() throws Exception {
+        User user = userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 1, 1.2);
+        AtomicInteger notifications = new AtomicInteger();
+        userSystem.addListener(new CountingListener(notifications));
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 5001; i++) {
+                user.changeCalorieIntake(1);
+            }
+        });
+
+        Diet diet = user.getDiet();
+        assertEquals(500, diet.getCalorieOffset());
+        assertEquals(diet.getTdee() + 500, diet.getDailyCalories(), .01);
+        assertEquals(THREADS * 5001, notifications.get());
+    }
+
+    /**
+     * Tests that diet plan switches racing with calorie and macro changes keep the plan consistent.
+     */
+    @Test
+    @DisplayName("Concurrent Diet Plan Test")
+    void changeDietPlan_ConsistentPlan() throws Exception {
+        User user = userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 2, 1.2);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 2000; i++) {
+                switch (thread % 3) {
+                    case 0:
+                        user.changeDietPlan();
+                        break;
+                    case 1:
+                        user.changeCalorieIntake(1 + (i % 4));
+                        break;
+                    default:
+                        user.changeMacroDiet(1 + (i % 4));
+                }
+            }
+        });
+
+        Diet diet = user.getDiet();
+        double expected = diet.isBulking() ? diet.getTdee() + diet.getCalorieOffset()
+                : diet.getTdee() - diet.getCalorieOffset();
+        assertEquals(expected, diet.getDailyCalories(), .01);
+    }
+
+    /**
+     * Tests that when every thread adds, changes and deletes the same usernames, listeners hear each
+     * username's changes in the order they were made: added and deleted alternate, and no change
+     * is heard for a deleted user.
+     */
+    @Test
+    @DisplayName("Concurrent Delete Re-add Test")
+    void deleteAndReadd_ListenersInOrder() throws Exception {
+        int names = 4;
+        OrderListener order = new OrderListener();
+        userSystem.addListener(order);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 5000; i++) {
+                String userName = "user" + ((i + thread) % names);
+                try {
+                    switch ((i + thread) % 3) {
+                        case 0:
+                            userSystem.addUser(userName, new Person("Name", 'f', 165, 60, 30), 2, 1.375);
+                            break;
+                        case 1:
+                            userSystem.retrieveUser(userName).changeCalorieIntake(1 + (i % 4));
+                            break;
+                        default:
+                            userSystem.deleteUser(userName);
+                    }
+                } catch (InvalidInputException e) {
+                    // taken or deleted by another thread
+                }
+            }
+        });
+
+        assertEquals(Collections.emptyList(), order.violations);
+        for (int i = 0; i < names; i++) {
+            String userName = "user" + i;
+            assertEquals(order.stored.getOrDefault(userName, false), userSystem.validateUsername(userName));
+        }
+    }
+
+    /**
+     * Tracks whether each username is stored as its notifications arrive, recording any out of order.
+     */
+    private static final class OrderListener implements UserListener {
+        private final Map<String, Boolean> stored = new ConcurrentHashMap<>();
+        private final List<String> violations = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void userAdded(User user) {
+            if (Boolean.TRUE.equals(stored.put(user.getUserName(), true))) {
+                violations.add("Added twice: " + user.getUserName());
+            }
+        }
+
+        @Override
+        public void userDeleted(User user) {
+            if (!Boolean.TRUE.equals(stored.put(user.getUserName(), false))) {
+                violations.add("Deleted while not stored: " + user.getUserName());
+            }
+        }
+
+        @Override
+        public void userChanged(User user) {
+            if (!Boolean.TRUE.equals(stored.get(user.getUserName()))) {
+                violations.add("Changed while not stored: " + user.getUserName());
+            }
+        }
+    }
+
+    private static final class CountingListener implements UserListener {
+        private final AtomicInteger changes;
+
+        private CountingListener(AtomicInteger changes) {
+            this.changes = changes;
+        }
+
+        @Override
+        public void userAdded(User user) {
+        }
+
+        @Override
+        public void userDeleted(User user) {
+        }
+
+        @Override
+        public void userChanged(User user) {
+            changes.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * DietIndexTest
+ * This class tests that index queries return exactly the users a full scan would find,
+ * including after users are added, deleted and have their diets changed, and that they walk
+ * their most selective range.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DietIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private UserSystem userSystem;
+    private Random random;
+
+    @BeforeEach
+    void setup() {
+        userSystem = new UserSystem(tempDir.resolve("Users.dat").toFile());
+        random = new Random(7);
+    }
+
+    private void addUsers(int from, int to) {
+        for (int i = from; i < to; i++) {
+            userSystem.addUser("u" + i, new Person("Name", random.nextBoolean() ? 'm' : 'f', 150 + random.nextInt(50),
+                    45 + random.nextInt(80), 18 + random.nextInt(60)), 1 + random.nextInt(2), 1.2 + (random.nextInt(4) * .175));
+            userSystem.retrieveUser("u" + i).changeMacroDiet(1 + random.nextInt(4));
+        }
+    }
+
+    private Set<String> scan(Predicate<User> filter) {
+        return userSystem.getUsers().stream().filter(filter).map(User::getUserName).collect(Collectors.toSet());
+    }
+
+    private static Set<String> names(DietIndex.Query query) {
+        List<User> users = query.list();
+        Set<String> names = users.stream().map(User::getUserName).collect(Collectors.toSet());
+        assertEquals(users.size(), names.size(), "duplicate results");
+        return names;
+    }
+
+    private void assertQueries(DietIndex index) {
+        assertAll("Queries",
+                () -> assertEquals(scan(u -> true), names(index.query())),
+                () -> assertEquals(scan(u -> !u.getDiet().isBulking() && (u.getDiet().getDiets() == MacroDiets.KETO)
+                                && (u.getDiet().getBmi() >= 25) && (u.getDiet().getBmi() <= 30)),
+                        names(index.query().cutting().macroDiet(MacroDiets.KETO).bmi(25, 30))),
+                () -> assertEquals(scan(u -> u.getDiet().isBulking() && (u.getDiet().getTdee() >= 2000)
+                                && (u.getDiet().getTdee() <= 2500) && (u.getPerson().getAge() <= 30)),
+                        names(index.query().bulking().tdee(2000, 2500).age(0, 30))),
+                () -> assertEquals(scan(u -> ((u.getDiet().getDiets() == MacroDiets.PALEO) || (u.getDiet().getDiets() == MacroDiets.ATKINS))
+                                && (u.getPerson().getAge() >= 40) && (u.getPerson().getAge() <= 45)),
+                        names(index.query().macroDiet(MacroDiets.PALEO, MacroDiets.ATKINS).age(40, 45))),
+                () -> assertEquals(Set.of(), names(index.query().bmi(30, 25))));
+    }
+
+    /**
+     * Tests that a query walks the range condition matching the fewest users, whatever order the
+     * conditions were given in, and still matches a full scan.
+     */
+    @Test
+    @DisplayName("Index Selectivity Test")
+    void query_WalksMostSelectiveRange() {
+        addUsers(0, 2000);
+        DietIndex index = new DietIndex(userSystem);
+
+        DietIndex.Query narrowAge = index.query().bmi(0, 100).tdee(0, 10_000).age(30, 30);
+        assertEquals(DietIndex.AGE, narrowAge.walkedDimension());
+        assertEquals(scan(u -> u.getPerson().getAge() == 30), names(narrowAge));
+
+        DietIndex.Query narrowTdee = index.query().age(18, 80).tdee(2000, 2010).bmi(10, 60);
+        assertEquals(DietIndex.TDEE, narrowTdee.walkedDimension());
+        assertEquals(scan(u -> (u.getDiet().getTdee() >= 2000) && (u.getDiet().getTdee() <= 2010)), names(narrowTdee));
+
+        assertEquals(DietIndex.BMI, index.query().cutting().bmi(22, 22.01).age(18, 80).walkedDimension());
+        assertEquals(DietIndex.BMI, index.query().walkedDimension());
+    }
+
+    /**
+     * Tests that queries match a full scan for users indexed at creation and added afterwards.
+     */
+    @Test
+    @DisplayName("Index Query Test")
+    void query_MatchesScan() {
+        addUsers(0, 1000);
+        DietIndex index = new DietIndex(userSystem);
+        addUsers(1000, 2000);
+
+        assertEquals(2000, index.size());
+        assertQueries(index);
+    }
+
+    /**
+     * Tests that users move within the index when their diets change and leave it when deleted.
+     */
+    @Test
+    @DisplayName("Index Maintenance Test")
+    void query_FollowsChanges() {
+        DietIndex index = new DietIndex(userSystem);
+        addUsers(0, 2000);
+
+        for (int i = 0; i < 2000; i += 3) {
+            User user = userSystem.retrieveUser("u" + i);
+            switch (i % 4) {
+                case 0:
+                    user.changeDietPlan();
+                    break;
+                case 1:
+                    user.changeMacroDiet(1 + random.nextInt(4));
+                    break;
+                case 2:
+                    user.changeCalorieIntake(1);
+                    break;
+                default:
+                    userSystem.deleteUser("u" + i);
+            }
+        }
+
+        assertEquals(userSystem.getUsers().size(), index.size());
+        assertQueries(index);
+    }
+}
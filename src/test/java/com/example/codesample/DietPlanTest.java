@@ -0,0 +1,85 @@
+/**
+ * DietPlanTest
+ * This class tests that the cached diet plan snapshot matches the diet it was taken from,
+ * is reused until the diet changes and is replaced by every change.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DietPlanTest {
+
+    private static void assertMatches(Diet diet, DietPlan plan) {
+        double[] weightChange = diet.calculateWeightChange(diet.getCalorieOffset());
+
+        assertAll("Plan",
+                () -> assertEquals(diet.isBulking(), plan.isBulking()),
+                () -> assertEquals(diet.getDiets(), plan.getMacroDiet()),
+                () -> assertEquals(diet.getTdee(), plan.getTdee()),
+                () -> assertEquals(diet.getDailyCalories(), plan.getDailyCalories()),
+                () -> assertEquals(diet.getCalorieOffset(), plan.getCalorieOffset()),
+                () -> assertEquals(diet.displayBmi(), String.format("%.2f", plan.getBmi()) + "(" + plan.getBmiCategory() + ")"),
+                () -> assertEquals((int) (diet.getDiets().getCarbs() * diet.getDailyCalories()) / 4, plan.getCarbs()),
+                () -> assertEquals((int) (diet.getDiets().getProtein() * diet.getDailyCalories()) / 4, plan.getProtein()),
+                () -> assertEquals((int) (diet.getDiets().getFat() * diet.getDailyCalories()) / 9, plan.getFat()),
+                () -> assertEquals(weightChange[0], plan.getWeekPounds()),
+                () -> assertEquals(weightChange[1], plan.getMonthPounds()),
+                () -> assertEquals(weightChange[2], plan.getYearPounds()));
+    }
+
+    /**
+     * Tests that the snapshot is computed once and replaced by each kind of change.
+     */
+    @Test
+    @DisplayName("Plan Snapshot Test")
+    void getDietPlan_ReplacedOnChange() {
+        User user = new User("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23),
+                new BulkingDiet(2102.07, 22.59, MacroDiets.DEFAULT, 500));
+
+        DietPlan plan = user.getDietPlan();
+        assertMatches(user.getDiet(), plan);
+        assertSame(plan, user.getDietPlan());
+
+        user.changeCalorieIntake(1);
+        assertNotSame(plan, user.getDietPlan());
+        assertMatches(user.getDiet(), user.getDietPlan());
+        assertEquals(250, user.getDietPlan().getCalorieOffset());
+
+        plan = user.getDietPlan();
+        user.changeMacroDiet(2);
+        assertEquals(MacroDiets.KETO, user.getDietPlan().getMacroDiet());
+        assertMatches(user.getDiet(), user.getDietPlan());
+
+        user.changeCalorieIntake(2);
+        user.changeMacroDiet(9);
+        plan = user.getDietPlan();
+        assertSame(plan, user.getDietPlan());
+
+        user.changeDietPlan();
+        assertFalse(user.getDietPlan().isBulking());
+        assertEquals(MacroDiets.KETO, user.getDietPlan().getMacroDiet());
+        assertMatches(user.getDiet(), user.getDietPlan());
+    }
+
+    /**
+     * Tests the BMI weight categories at their boundaries.
+     */
+    @Test
+    @DisplayName("BMI Category Test")
+    void bmiCategory_Boundaries() {
+        assertAll("Categories",
+                () -> assertEquals("underweight", DietPlan.bmiCategory(18.49)),
+                () -> assertEquals("healthy", DietPlan.bmiCategory(18.5)),
+                () -> assertEquals("healthy", DietPlan.bmiCategory(24.9)),
+                () -> assertEquals("overweight", DietPlan.bmiCategory(25)),
+                () -> assertEquals("overweight", DietPlan.bmiCategory(29.9)),
+                () -> assertEquals("obese", DietPlan.bmiCategory(30)));
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * FoodDatabaseTest
+ * This class tests creating a food database from CSV rows and that prefix searches over the mapped
+ * file find exactly the foods a scan of every name finds.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FoodDatabaseTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Tests that a small database keeps names and nutrients, and that names may hold commas.
+     */
+    @Test
+    @DisplayName("Create And Find Test")
+    void create_FindsFoods() throws IOException {
+        File file = tempDir.resolve("Foods.db").toFile();
+        String csv = "name,calories,carbs,protein,fat\n"
+                + "Chicken breast,165,0,31,3.6\n"
+                + "\n"
+                + "Cheese, cheddar,403,1.3,25,33\n"
+                + "chicken,239,0,27,14\n"
+                + "Crème fraîche,393,2.8,2.4,41\n";
+        assertEquals(4, FoodDatabase.create(new StringReader(csv), file));
+
+        try (FoodDatabase foods = new FoodDatabase(file)) {
+            assertEquals(4, foods.size());
+            int id = foods.find("CHEESE, CHEDDAR");
+            assertEquals("Cheese, cheddar", foods.getName(id));
+            assertEquals(403, foods.getCalories(id), 1e-3);
+            assertEquals(25, foods.getProtein(id), 1e-3);
+            assertEquals(33, foods.getFood(id).getFat(), 1e-3);
+            // the stored calories, not the 402.2 worked out from the macronutrients
+            assertEquals(403, foods.getFood(id).getCalories(), 1e-3);
+            assertEquals("chicken", foods.getName(foods.find("Chicken")));
+            assertEquals(-1, foods.find("Chick"));
+            assertEquals(3, foods.count("ch"));
+            assertEquals(1, foods.search("chicken", 1).length);
+            assertEquals("Crème fraîche", foods.getName(foods.search("crème", 10)[0]));
+            assertEquals(0, foods.count("x"));
+            assertThrows(IndexOutOfBoundsException.class, () -> foods.getName(4));
+        }
+
+        assertThrows(InvalidInputException.class, () -> FoodDatabase.create(new StringReader("Rice,130,x,2.7,0.3"), file));
+        assertThrows(InvalidInputException.class, () -> FoodDatabase.create(new StringReader("Rice,130,-1,2.7,0.3"), file));
+        File notFoods = tempDir.resolve("Users.dat").toFile();
+        Files.write(notFoods.toPath(), new byte[64]);
+        assertThrows(StreamCorruptedException.class, () -> new FoodDatabase(notFoods));
+    }
+
+    /**
+     * Tests that a header whose counts or offsets do not match the size of the file is rejected on open.
+     */
+    @Test
+    @DisplayName("Damaged Header Test")
+    void open_DamagedHeader_Rejected() throws IOException {
+        File file = tempDir.resolve("Foods.db").toFile();
+        FoodDatabase.create(new StringReader("Chicken breast,165,0,31,3.6\nRice,130,28,2.7,0.3\n"), file);
+        byte[] valid = Files.readAllBytes(file.toPath());
+        try (FoodDatabase foods = new FoodDatabase(file)) {
+            assertEquals(2, foods.size());
+        }
+
+        // count, node count, names offset and nodes offset
+        int[] fields = {8, 12, 16, 24};
+        long[] values = {Integer.MAX_VALUE, -1, 1L << 40, 0};
+        for (int i = 0; i < fields.length; i++) {
+            ByteBuffer damaged = ByteBuffer.wrap(valid.clone());
+            if (fields[i] < 16) {
+                damaged.putInt(fields[i], (int) values[i]);
+            } else {
+                damaged.putLong(fields[i], values[i]);
+            }
+            File damagedFile = tempDir.resolve("Damaged" + i + ".db").toFile();
+            Files.write(damagedFile.toPath(), damaged.array());
+            assertThrows(StreamCorruptedException.class, () -> new FoodDatabase(damagedFile));
+        }
+        File truncated = tempDir.resolve("Truncated.db").toFile();
+        Files.write(truncated.toPath(), Arrays.copyOf(valid, valid.length - 1));
+        assertThrows(StreamCorruptedException.class, () -> new FoodDatabase(truncated));
+    }
+
+    /**
+     * Tests prefixes shorter and longer than the trie against a scan of every name.
+     */
+    @Test
+    @DisplayName("Prefix Search Test")
+    void search_MatchesScan() throws IOException {
+        String[] words = {"apple", "apricot", "bean", "beef", "bread", "chicken", "chickpea", "rice", "rye", "salmon"};
+        Random random = new Random(3);
+        StringBuilder csv = new StringBuilder();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + random.nextInt(500);
+            names.add(name);
+            csv.append(name).append(',').append(random.nextInt(900)).append(",1,2,3\n");
+        }
+        File file = tempDir.resolve("Foods.db").toFile();
+        FoodDatabase.create(new StringReader(csv.toString()), file);
+        Collections.sort(names);
+
+        try (FoodDatabase foods = new FoodDatabase(file)) {
+            for (String prefix : List.of("", "r", "ri", "ric", "rice", "rice ", "rice b", "rice bea", "rice bean 4",
+                    "chicken chickpea 12", "chickpea rye 499", "zebra", "apples")) {
+                List<String> expected = new ArrayList<>();
+                for (String name : names) {
+                    if (name.startsWith(prefix)) {
+                        expected.add(name);
+                    }
+                }
+                List<String> found = new ArrayList<>();
+                for (int id : foods.search(prefix, Integer.MAX_VALUE)) {
+                    found.add(foods.getName(id));
+                }
+                assertEquals(expected, found, prefix);
+                assertEquals(Math.min(5, expected.size()), foods.search(prefix, 5).length);
+            }
+            String name = names.get(1234);
+            assertEquals(name, foods.getName(foods.find(name)));
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/**
+ * HeapUserStoreTest
+ * This class tests the indexed .dat file written by HeapUserStore, checking that users are only
+ * deserialized when first needed or all at once in parallel, that files written before the index
+ * existed still load and that damaged segments are set aside on load.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeapUserStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File dataFile;
+
+    @BeforeEach
+    void setup() {
+        dataFile = tempDir.resolve("Users.dat").toFile();
+    }
+
+    private void saveUsers(int count) {
+        UserSystem userSystem = new UserSystem(dataFile);
+        for (int i = 0; i < count; i++) {
+            userSystem.addUser("user" + i, new Person("Name" + i, 'm', 180, 80, 20 + (i % 50)), 1 + (i % 2), 1.2);
+        }
+        userSystem.saveUsers();
+    }
+
+    /**
+     * Tests that loading only maps the index and that a user is deserialized on first retrieval.
+     */
+    @Test
+    @DisplayName("Lazy Load Test")
+    void load_DeserializesOnDemand() throws IOException {
+        saveUsers(500);
+
+        HeapUserStore store = new HeapUserStore(dataFile);
+        UserSystem userSystem = new UserSystem(store);
+        userSystem.loadUsers();
+
+        assertEquals(500, store.size());
+        assertTrue(userSystem.validateUsername("user123"));
+        assertFalse(userSystem.validateUsername("user500"));
+        assertEquals(0, store.heapSize());
+
+        User user = userSystem.retrieveUser("user123");
+        assertEquals(43, user.getPerson().getAge());
+        assertSame(user, userSystem.retrieveUser("user123"));
+        assertEquals(1, store.heapSize());
+        store.close();
+    }
+
+    /**
+     * Tests that saving a partly loaded store keeps untouched users and applies changes and deletions.
+     */
+    @Test
+    @DisplayName("Lazy Save Test")
+    void save_MergesChangesWithUntouchedRecords() throws IOException {
+        saveUsers(100);
+
+        UserSystem userSystem = new UserSystem(dataFile);
+        userSystem.loadUsers();
+        userSystem.retrieveUser("user7").getDiet().changeMacroDiet(2);
+        userSystem.deleteUser("user8");
+        userSystem.addUser("newUser", new Person("New", 'f', 165, 60, 30), 2, 1.375);
+        userSystem.saveUsers();
+        userSystem.close();
+
+        HeapUserStore store = new HeapUserStore(dataFile);
+        store.load();
+        assertAll("Merged file",
+                () -> assertEquals(100, store.size()),
+                () -> assertEquals(MacroDiets.KETO, store.get("user7").getDiet().getDiets()),
+                () -> assertNull(store.get("user8")),
+                () -> assertFalse(store.contains("user8")),
+                () -> assertEquals("New", store.get("newUser").getPerson().getName()),
+                () -> assertEquals("Name99", store.get("user99").getPerson().getName()),
+                () -> assertEquals(100, store.snapshot().size()));
+        store.close();
+    }
+
+    /**
+     * Tests that decoding every segment in parallel loads all users without overriding changes made since loading.
+     */
+    @Test
+    @DisplayName("Parallel Decode Test")
+    void decodeAll_KeepsChangesMadeSinceLoading() throws IOException {
+        saveUsers(5000);
+
+        HeapUserStore store = new HeapUserStore(dataFile);
+        store.load();
+        store.remove("user1");
+        store.get("user2").getDiet().changeMacroDiet(2);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        assertTrue(store.decodeAll(pool));
+        pool.shutdown();
+
+        assertAll("Decoded store",
+                () -> assertEquals(4999, store.heapSize()),
+                () -> assertEquals(4999, store.size()),
+                () -> assertNull(store.get("user1")),
+                () -> assertEquals(MacroDiets.KETO, store.get("user2").getDiet().getDiets()),
+                () -> assertEquals("Name4321", store.get("user4321").getPerson().getName()),
+                () -> assertEquals(4999, store.snapshot().size()));
+        store.close();
+    }
+
+    /**
+     * Tests that a .dat file holding a plain stream of serialized users is still loaded,
+     * and is rewritten with an index when saved.
+     */
+    @Test
+    @DisplayName("Legacy File Test")
+    void load_LegacyFile() throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(dataFile))) {
+            out.writeObject(new User("legacy", new Person("Old", 'f', 170, 65, 40),
+                    new CuttingDiet(1900, 22.5, MacroDiets.PALEO, 380)));
+        }
+
+        UserSystem userSystem = new UserSystem(dataFile);
+        userSystem.loadUsers();
+        assertEquals(MacroDiets.PALEO, userSystem.retrieveUser("legacy").getDiet().getDiets());
+        userSystem.saveUsers();
+        userSystem.close();
+
+        HeapUserStore store = new HeapUserStore(dataFile);
+        store.load();
+        assertEquals(1520, store.get("legacy").getDiet().getDailyCalories(), .01);
+        store.close();
+    }
+
+    private void corrupt(long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.allocate(1);
+            channel.read(bytes, position);
+            bytes.put(0, (byte) ~bytes.get(0));
+            channel.write(bytes.flip(), position);
+        }
+    }
+
+    /**
+     * Tests that a damaged segment only loses the users recorded in it, that those users are reported
+     * and quarantined, and that the rewritten file loads clean.
+     */
+    @Test
+    @DisplayName("Damaged Segment Test")
+    void load_DropsUsersOfDamagedSegment() throws IOException {
+        saveUsers(2000);
+        corrupt(HeapUserStore.HEADER_SIZE + UserSegments.HEADER_SIZE + 1000);
+
+        HeapUserStore store = new HeapUserStore(dataFile);
+        store.load();
+        RecoveryReport report = store.getRecoveryReport();
+        Set<String> lost = new HashSet<>(report.getLostUserNames());
+        assertAll("Recovered store",
+                () -> assertFalse(report.isClean()),
+                () -> assertFalse(report.isIndexRebuilt()),
+                () -> assertEquals(1, report.getDamagedRanges()),
+                () -> assertFalse(lost.isEmpty()),
+                () -> assertTrue(lost.size() < 2000),
+                () -> assertEquals(2000 - lost.size(), store.size()),
+                () -> assertTrue(report.getQuarantine().length() >= report.getDamagedBytes()));
+        for (int i = 0; i < 2000; i++) {
+            String userName = "user" + i;
+            if (lost.contains(userName)) {
+                assertNull(store.get(userName));
+            } else {
+                assertEquals("Name" + i, store.get(userName).getPerson().getName());
+            }
+        }
+        store.close();
+
+        HeapUserStore reloaded = new HeapUserStore(dataFile);
+        reloaded.load();
+        assertTrue(reloaded.getRecoveryReport().isClean());
+        assertEquals(2000 - lost.size(), reloaded.size());
+        reloaded.close();
+    }
+
+    /**
+     * Tests that users are read back from the intact segments when the index is damaged, and that
+     * a UserSystem reports the damage to its output sink.
+     */
+    @Test
+    @DisplayName("Damaged Index Test")
+    void load_RebuildsDamagedIndex() throws IOException {
+        saveUsers(2000);
+        long indexOffset;
+        try (RandomAccessFile file = new RandomAccessFile(dataFile, "r")) {
+            file.seek(file.length() - HeapUserStore.TRAILER_SIZE);
+            indexOffset = file.readLong();
+        }
+        corrupt(indexOffset + 3);
+
+        HeapUserStore store = new HeapUserStore(dataFile);
+        List<String> messages = new ArrayList<>();
+        UserSystem userSystem = new UserSystem(store);
+        userSystem.setOutputSink(messages::add);
+        userSystem.loadUsers();
+        assertTrue(store.getRecoveryReport().isIndexRebuilt());
+        assertEquals("Stored users were damaged: " + store.getRecoveryReport(), messages.get(messages.size() - 1));
+        assertEquals(2000, store.size());
+        assertEquals("Name1234", store.get("user1234").getPerson().getName());
+        store.close();
+
+        HeapUserStore reloaded = new HeapUserStore(dataFile);
+        reloaded.load();
+        assertTrue(reloaded.getRecoveryReport().isClean());
+        assertEquals(2000, reloaded.size());
+        reloaded.close();
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * MappedUserStoreTest
+ * This class tests a UserSystem backed by a MappedUserStore, checking that users and their diet
+ * changes are kept in the mapped file and survive reopening it.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedUserStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File storeFile;
+    private MappedUserStore store;
+    private UserSystem userSystem;
+
+    /**
+     * Opens a UserSystem over a new mapped store file.
+     */
+    @BeforeEach
+    void setup() throws IOException {
+        storeFile = tempDir.resolve("Users.map").toFile();
+        store = new MappedUserStore(storeFile);
+        userSystem = new UserSystem(store);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    private MappedUserStore reopen() throws IOException {
+        store.close();
+        store = new MappedUserStore(storeFile);
+        return store;
+    }
+
+    /**
+     * Tests that every field of a stored user is read back from its record.
+     */
+    @Test
+    @DisplayName("Mapped Record Round Trip Test")
+    void put_ReadsBackEveryField() throws IOException {
+        User added = userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 2, 1.2);
+
+        User read = reopen().get("Alejandro");
+
+        assertAll("Record fields",
+                () -> assertEquals("Alejandro", read.getUserName()),
+                () -> assertEquals("Jose", read.getPerson().getName()),
+                () -> assertEquals('m', read.getPerson().getGender()),
+                () -> assertEquals(180.34, read.getPerson().getHeight()),
+                () -> assertEquals(73.46, read.getPerson().getWeight()),
+                () -> assertEquals(23, read.getPerson().getAge()),
+                () -> assertEquals(added.getDiet().getTdee(), read.getDiet().getTdee()),
+                () -> assertEquals(added.getDiet().getBmi(), read.getDiet().getBmi()),
+                () -> assertEquals(added.getDiet().getDailyCalories(), read.getDiet().getDailyCalories()),
+                () -> assertFalse(read.getDiet().isBulking()),
+                () -> assertEquals(MacroDiets.DEFAULT, read.getDiet().getDiets()));
+    }
+
+    /**
+     * Tests that diet changes made on a retrieved user are written back to its record.
+     */
+    @Test
+    @DisplayName("Mapped Field Update Test")
+    void update_WritesDietFields() throws IOException {
+        userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 1, 1.2);
+
+        User user = userSystem.retrieveUser("Alejandro");
+        user.getDiet().changeCalorieIntake(1);
+        user.getDiet().changeMacroDiet(2);
+        assertEquals(user.getDiet().getTdee() + 250, userSystem.retrieveUser("Alejandro").getDiet().getDailyCalories(), .01);
+
+        user.changeDietPlan();
+        user.getDiet().changeCalorieIntake(4);
+
+        User read = reopen().get("Alejandro");
+        assertAll("Updated fields",
+                () -> assertFalse(read.getDiet().isBulking()),
+                () -> assertEquals(MacroDiets.KETO, read.getDiet().getDiets()),
+                () -> assertEquals(user.getDiet().getDailyCalories(), read.getDiet().getDailyCalories(), .01));
+    }
+
+    /**
+     * Tests that diet figures read by username from the record match the user built from it.
+     */
+    @Test
+    @DisplayName("Mapped Field Accessor Test")
+    void getFields_MatchUser() {
+        userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 1, 1.2);
+        User user = userSystem.retrieveUser("Alejandro");
+        user.getDiet().changeCalorieIntake(2);
+        user.getDiet().changeMacroDiet(3);
+
+        Diet diet = store.get("Alejandro").getDiet();
+        assertAll("Record fields",
+                () -> assertEquals(diet.getDailyCalories(), store.getDailyCalories("Alejandro"), .001),
+                () -> assertEquals(diet.getTdee(), store.getTdee("Alejandro")),
+                () -> assertEquals(diet.getBmi(), store.getBmi("Alejandro")),
+                () -> assertEquals(diet.getDiets(), store.getMacroDiet("Alejandro")),
+                () -> assertThrows(UserNotFoundException.class, () -> store.getBmi("nobody")));
+        user.changeDietPlan();
+        assertEquals(user.getDiet().getDailyCalories(), store.getDailyCalories("Alejandro"), .001);
+    }
+
+    /**
+     * Tests that a record with an unknown macro diet is reported as damaged instead of failing with an index error.
+     */
+    @Test
+    @DisplayName("Mapped Damaged Record Test")
+    void get_DamagedMacroDiet() throws IOException {
+        userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 1, 1.2);
+        store.close();
+        try (RandomAccessFile file = new RandomAccessFile(storeFile, "rw")) {
+            // the only live record is the first slot past the 64 byte header whose state byte is set
+            long record = 64;
+            file.seek(record);
+            while (file.readByte() == 0) {
+                file.seek(record += MappedUserStore.RECORD_SIZE);
+            }
+            file.seek(record + 2);
+            file.writeByte(100);
+        }
+        store = new MappedUserStore(storeFile);
+
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> store.get("Alejandro"));
+        assertTrue(e.getCause() instanceof StreamCorruptedException);
+        assertThrows(UncheckedIOException.class, () -> store.getMacroDiet("Alejandro"));
+    }
+
+    /**
+     * Tests that journaling a mapped store is accepted and changes are still kept in place.
+     */
+    @Test
+    @DisplayName("Mapped Journal Test")
+    void enableJournal_WritesInPlace() throws IOException {
+        userSystem.enableJournal();
+        userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 1, 1.2);
+        userSystem.retrieveUser("Alejandro").getDiet().changeMacroDiet(2);
+
+        assertEquals(MacroDiets.KETO, reopen().get("Alejandro").getDiet().getDiets());
+    }
+
+    /**
+     * Tests deleting users and growing the table past its initial capacity.
+     */
+    @Test
+    @DisplayName("Mapped Delete And Resize Test")
+    void remove_AndResize() throws IOException {
+        for (int i = 0; i < 3000; i++) {
+            userSystem.addUser("user" + i, new Person("Name" + i, 'f', 165, 60, 30), 2, 1.55);
+        }
+        for (int i = 0; i < 3000; i += 2) {
+            userSystem.deleteUser("user" + i);
+        }
+
+        MappedUserStore reopened = reopen();
+        assertEquals(1500, reopened.size());
+        assertEquals(1500, reopened.snapshot().size());
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(i % 2 != 0, reopened.contains("user" + i));
+        }
+        assertEquals("Name2999", reopened.get("user2999").getPerson().getName());
+    }
+
+    /**
+     * Tests that strings too long for their fixed-width fields are rejected.
+     */
+    @Test
+    @DisplayName("Mapped Field Width Test")
+    void put_NameTooLong() {
+        Person person = new Person("a name that is far too long to fit", 'm', 180, 80, 30);
+        User user = new User("Alejandro", person, new BulkingDiet(2500, 24, MacroDiets.DEFAULT, 500));
+
+        assertThrows(InvalidInputException.class, () -> store.put(user));
+    }
+
+    /**
+     * Tests that a file which is not a mapped store is refused.
+     */
+    @Test
+    @DisplayName("Mapped Store Invalid File Test")
+    void open_InvalidFile() throws IOException {
+        File other = tempDir.resolve("Users.dat").toFile();
+        Files.write(other.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IOException.class, () -> new MappedUserStore(other));
+    }
+}
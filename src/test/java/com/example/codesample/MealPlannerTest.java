@@ -0,0 +1,88 @@
+/**
+ * MealPlannerTest
+ * This class tests that meal plans match every diet's macronutrient targets within tolerance
+ * even when a closer plan misses it, and that users with the same rounded targets share one solved plan.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MealPlannerTest {
+
+    private static void assertWithin(double target, double actual) {
+        assertEquals(target, actual, Math.max(MealPlanner.TOLERANCE * target, MealPlanner.MIN_TOLERANCE));
+    }
+
+    /**
+     * Tests that every macro diet gets a plan within tolerance from 1200 to 4500 calories.
+     */
+    @Test
+    @DisplayName("Plan Targets Test")
+    void plan_WithinTolerance() {
+        MealPlanner planner = new MealPlanner(FoodTable.standard());
+        for (MacroDiets macroDiet : MacroDiets.values()) {
+            for (int calories = 1200; calories <= 4500; calories += 100) {
+                MealPlan plan = planner.plan((int) (macroDiet.getCarbs() * calories) / 4,
+                        (int) (macroDiet.getProtein() * calories) / 4, (int) (macroDiet.getFat() * calories) / 9);
+
+                assertTrue(plan.isWithinTolerance(), macroDiet + " " + calories);
+                assertWithin(plan.getTargetCarbs(), plan.getCarbs());
+                assertWithin(plan.getTargetProtein(), plan.getProtein());
+                assertWithin(plan.getTargetFat(), plan.getFat());
+                assertTrue(plan.getServings().size() <= MealPlanner.MAX_FOODS);
+                for (MealPlan.Serving serving : plan.getServings()) {
+                    assertTrue((serving.getCount() > 0) && (serving.getCount() <= MealPlanner.MAX_SERVINGS));
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(-1, 100, 50));
+    }
+
+    /**
+     * Tests that a plan within tolerance is found even when a plan outside tolerance is closer in calories:
+     * fat 7 g short of a 5 g tolerance misses by fewer calories than carbs 25 g short of a 30 g tolerance.
+     */
+    @Test
+    @DisplayName("Feasible Over Closer Plan Test")
+    void plan_PrefersWithinTolerance() {
+        Food closer = new Food("Closer", 100, 300, 100, 43);
+        Food fitting = new Food("Fitting", 100, 275, 100, 50);
+        MealPlanner planner = new MealPlanner(new FoodTable(List.of(closer, fitting)));
+
+        MealPlan plan = planner.plan(300, 100, 50);
+        assertTrue(plan.isWithinTolerance());
+        assertEquals(1, plan.getServings().size());
+        assertSame(fitting, plan.getServings().get(0).getFood());
+    }
+
+    /**
+     * Tests that users whose targets round the same share a plan, and that a diet change gets a new one.
+     */
+    @Test
+    @DisplayName("Shared Plan Test")
+    void plan_SharedByRoundedTargets() {
+        MealPlanner planner = new MealPlanner(FoodTable.standard());
+        User first = new User("first", new Person("Name", 'm', 180, 80, 30),
+                UserSystem.createDiet(new Person("Name", 'm', 180, 80, 30), 1.375, 2));
+        User second = new User("second", new Person("Name", 'm', 180, 80.1, 30),
+                UserSystem.createDiet(new Person("Name", 'm', 180, 80.1, 30), 1.375, 2));
+
+        MealPlan plan = planner.plan(first);
+        assertSame(plan, planner.plan(second));
+        assertEquals(1, planner.size());
+        assertTrue(plan.displayMealPlan().contains(" x "));
+
+        first.changeMacroDiet(2);
+        assertNotSame(plan, planner.plan(first));
+        assertEquals(2, planner.size());
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * OutputSinkTest
+ * This class tests that user system messages go to the configured sink instead of the console,
+ * that diet changes report their outcome, and that the console sink writes every message in order
+ * and has shown it by the time flush returns.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutputSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Tests that creating a user and truncating input send messages to the sink.
+     */
+    @Test
+    @DisplayName("User System Messages Test")
+    void addUser_MessagesToSink() {
+        List<String> messages = new ArrayList<>();
+        UserSystem userSystem = new UserSystem(tempDir.resolve("Users.dat").toFile());
+        userSystem.setOutputSink(messages::add);
+
+        userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 2, 1.2);
+        userSystem.checkCharLimit("TooLongUsername", 10);
+
+        assertEquals(List.of("Cutting diet plan created. Calorie deficit set to 20% of TDEE",
+                "Diet created with recommended 45% carb, 25% protein, 30% fat calorie plan",
+                "Truncated to TooLongUse for exceeding 10 character limit."), messages);
+    }
+
+    /**
+     * Tests that diet changes return whether they took effect.
+     */
+    @Test
+    @DisplayName("Diet Change Result Test")
+    void changeDiet_ReturnsOutcome() {
+        User user = new UserSystem(tempDir.resolve("Users.dat").toFile())
+                .addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 1, 1.2);
+
+        assertAll("Outcomes",
+                () -> assertTrue(user.changeCalorieIntake(1)),
+                () -> assertEquals("Lean bulking plan. Surplus is 250 calories", user.getDiet().displayCalorieOffset()),
+                () -> assertFalse(user.changeCalorieIntake(2)),
+                () -> assertTrue(user.changeMacroDiet(2)),
+                () -> assertFalse(user.changeMacroDiet(5)),
+                () -> assertEquals(MacroDiets.KETO, user.getDiet().getDiets()),
+                () -> assertFalse(user.changeDietPlan().isBulking()),
+                () -> assertTrue(user.changeCalorieIntake(3)),
+                () -> assertTrue(user.getDiet().displayCalorieOffset().startsWith("Calorie deficit set at 30%")),
+                () -> assertFalse(user.changeCalorieIntake(0)));
+    }
+
+    /**
+     * Tests that the console sink writes every message, in order, by the time flush returns.
+     */
+    @Test
+    @DisplayName("Console Sink Test")
+    void consoleSink_WritesInOrder() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StringBuilder expected = new StringBuilder();
+
+        try (ConsoleSink sink = new ConsoleSink(bytes, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 10_000; i++) {
+                sink.message("message " + i);
+                expected.append("message ").append(i).append(System.lineSeparator());
+            }
+            sink.flush();
+            assertEquals(expected.toString(), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+
+            sink.message("last");
+        }
+        expected.append("last").append(System.lineSeparator());
+        assertEquals(expected.toString(), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that flush returns only once a message has been flushed to the output, even when more
+     * messages are queued behind it.
+     */
+    @Test
+    @DisplayName("Console Sink Busy Flush Test")
+    void consoleSink_FlushesWhileBusy() throws InterruptedException {
+        FlushedOutput output = new FlushedOutput("marker" + System.lineSeparator());
+
+        try (ConsoleSink sink = new ConsoleSink(output, StandardCharsets.UTF_8)) {
+            // a message larger than the sink's buffer holds the writer in the output until released
+            sink.message("x".repeat(10_000));
+            output.writing.await();
+            sink.message("marker");
+
+            AtomicReference<String> shown = new AtomicReference<>();
+            Thread flusher = new Thread(() -> {
+                sink.flush();
+                shown.set(output.flushed);
+                output.flushReturned.countDown();
+            });
+            flusher.start();
+            while (flusher.getState() != Thread.State.TIMED_WAITING) {
+                Thread.yield();
+            }
+            for (int i = 0; i < 5000; i++) {
+                sink.message("after " + i);
+            }
+            output.release.countDown();
+            flusher.join();
+
+            assertTrue(shown.get().contains("marker" + System.lineSeparator()));
+        }
+    }
+
+    /**
+     * Output that only shows what was written up to its last flush, as a console would. It holds up
+     * the first write until released, and any write made while the marker is written but not flushed
+     * until the flush waiting for the marker returns.
+     */
+    private static final class FlushedOutput extends ByteArrayOutputStream {
+        private final String marker;
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch flushReturned = new CountDownLatch(1);
+        private volatile String flushed = "";
+
+        private FlushedOutput(String marker) {
+            this.marker = marker;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            writing.countDown();
+            try {
+                release.await();
+                String written = new String(toByteArray(), StandardCharsets.UTF_8);
+                if (written.contains(marker) && !flushed.contains(marker)) {
+                    flushReturned.await(10, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.write(bytes, offset, length);
+        }
+
+        @Override
+        public synchronized void flush() {
+            flushed = new String(toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * PackedUserMapTest
+ * This class tests that the packed username map behaves like a HashMap through random puts and
+ * removals, including usernames that cannot be packed and usernames that differ only in length.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedUserMapTest {
+
+    private static User user(String userName) {
+        Person person = new Person("Name", 'f', 165, 60, 30);
+        return new User(userName, person, UserSystem.createDiet(person, 1.375, 2));
+    }
+
+    /**
+     * Tests that random puts and removals leave the map holding exactly what a HashMap holds.
+     */
+    @Test
+    @DisplayName("Random Operations Test")
+    void putAndRemove_MatchHashMap() {
+        Random random = new Random(7);
+        String alphabet = "abcXYZ019_é";
+        List<String> userNames = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            StringBuilder userName = new StringBuilder();
+            for (int length = random.nextInt(UserIndex.USERNAME_LIMIT + 1); length > 0; length--) {
+                userName.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            userNames.add(userName.toString());
+        }
+
+        PackedUserMap map = new PackedUserMap();
+        Map<String, User> expected = new HashMap<>();
+        for (int i = 0; i < 50000; i++) {
+            String userName = userNames.get(random.nextInt(userNames.size()));
+            if (random.nextInt(3) == 0) {
+                assertSame(expected.remove(userName), map.remove(userName));
+            } else {
+                User user = user(userName);
+                assertSame(expected.put(userName, user), map.put(userName, user));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (String userName : userNames) {
+            assertSame(expected.get(userName), map.get(userName));
+        }
+        List<User> values = new ArrayList<>();
+        map.addValuesTo(values);
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(values));
+    }
+
+    /**
+     * Tests that usernames sharing their packed characters are still told apart.
+     */
+    @Test
+    @DisplayName("Packed Key Test")
+    void get_DistinguishesSimilarUsernames() {
+        PackedUserMap map = new PackedUserMap();
+        String[] userNames = {"", "a", "a\u0000", "abcdefghi", "abcdefghij", "abcdefghik", "été"};
+        for (String userName : userNames) {
+            map.put(userName, user(userName));
+        }
+
+        assertEquals(userNames.length, map.size());
+        for (String userName : userNames) {
+            assertEquals(userName, map.get(userName).getUserName());
+        }
+        assertNull(map.get("abcdefgh"));
+        assertNull(map.get("ét"));
+        assertEquals("a", map.remove("a").getUserName());
+        assertNull(map.get("a"));
+        assertEquals("a\u0000", map.get("a\u0000").getUserName());
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * PopulationStatsTest
+ * This class tests that the running population statistics match statistics computed by scanning
+ * every user, after users are added, deleted and have their diets changed.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PopulationStatsTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static void assertMatchesScan(List<User> users, PopulationStats.Snapshot snapshot) {
+        double tdeeMean = users.stream().mapToDouble(u -> u.getDiet().getTdee()).average().orElse(0);
+        double tdeeVariance = users.stream().mapToDouble(u -> Math.pow(u.getDiet().getTdee() - tdeeMean, 2)).average().orElse(0);
+        double caloriesMean = users.stream().mapToDouble(u -> u.getDiet().getDailyCalories()).average().orElse(0);
+        double caloriesVariance = users.stream().mapToDouble(u -> Math.pow(u.getDiet().getDailyCalories() - caloriesMean, 2)).average().orElse(0);
+
+        assertEquals(users.size(), snapshot.getUsers());
+        assertEquals(users.stream().filter(u -> u.getDiet().isBulking()).count(), snapshot.getBulking());
+        for (MacroDiets macroDiet : MacroDiets.values()) {
+            assertEquals(users.stream().filter(u -> u.getDiet().getDiets() == macroDiet).count(), snapshot.getMacroDietCount(macroDiet));
+        }
+        for (String category : DietPlan.BMI_CATEGORIES) {
+            assertEquals(users.stream().filter(u -> u.getDiet().displayBmi().endsWith("(" + category + ")")).count(),
+                    snapshot.getBmiCategoryCount(category));
+        }
+        assertEquals(tdeeMean, snapshot.getTdeeMean(), 1e-6);
+        assertEquals(tdeeVariance, snapshot.getTdeeVariance(), 1e-3);
+        assertEquals(caloriesMean, snapshot.getDailyCaloriesMean(), 1e-6);
+        assertEquals(caloriesVariance, snapshot.getDailyCaloriesVariance(), 1e-3);
+    }
+
+    /**
+     * Tests that statistics follow additions, diet changes and deletions, down to an empty population.
+     */
+    @Test
+    @DisplayName("Running Statistics Test")
+    void snapshot_MatchesScan() {
+        UserSystem userSystem = new UserSystem(tempDir.resolve("Users.dat").toFile());
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            userSystem.addUser("u" + i, new Person("Name", random.nextBoolean() ? 'm' : 'f', 150 + random.nextInt(50),
+                    45 + random.nextInt(80), 18 + random.nextInt(60)), 1 + random.nextInt(2), 1.375);
+        }
+        PopulationStats stats = new PopulationStats(userSystem);
+        assertMatchesScan(userSystem.getUsers(), stats.snapshot());
+
+        for (int i = 500; i < 1000; i++) {
+            userSystem.addUser("u" + i, new Person("Name", 'f', 165, 40 + random.nextInt(100), 30), 2, 1.55);
+        }
+        for (int i = 0; i < 1000; i++) {
+            User user = userSystem.retrieveUser("u" + i);
+            switch (random.nextInt(4)) {
+                case 0:
+                    user.changeDietPlan();
+                    break;
+                case 1:
+                    user.changeMacroDiet(1 + random.nextInt(4));
+                    break;
+                case 2:
+                    user.changeCalorieIntake(1 + random.nextInt(4));
+                    break;
+                default:
+                    userSystem.deleteUser("u" + i);
+            }
+        }
+        PopulationStats.Snapshot snapshot = stats.snapshot();
+        assertMatchesScan(userSystem.getUsers(), snapshot);
+        assertEquals(snapshot.getUsers(), snapshot.getBulking() + snapshot.getCutting());
+
+        for (User user : userSystem.getUsers()) {
+            userSystem.deleteUser(user.getUserName());
+        }
+        assertMatchesScan(List.of(), stats.snapshot());
+        assertThrows(IllegalArgumentException.class, () -> stats.snapshot().getBmiCategoryCount("thin"));
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * ShardedUserStoreTest
+ * This class tests that users saved in a single file or under another shard count are resharded
+ * on load, that saves only rewrite changed shards, and that each shard journals its own changes.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedUserStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File dataFile;
+
+    @BeforeEach
+    void setup() {
+        dataFile = tempDir.resolve("Users.dat").toFile();
+    }
+
+    private static void addUsers(UserSystem userSystem, int count) {
+        for (int i = 0; i < count; i++) {
+            userSystem.addUser("user" + i, new Person("Name" + i, 'm', 180, 80, 20 + (i % 50)), 1 + (i % 2), 1.2);
+        }
+    }
+
+    private void assertUsers(UserSystem userSystem, int count) {
+        assertEquals(count, userSystem.getUsers().size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("Name" + i, userSystem.retrieveUser("user" + i).getPerson().getName());
+        }
+    }
+
+    /**
+     * Tests that a single Users.dat is split into shards, and those shards into another number of shards,
+     * reporting the files resharded to the output sink instead of the console.
+     */
+    @Test
+    @DisplayName("Reshard Test")
+    void load_ReshardsOtherLayouts() {
+        UserSystem single = new UserSystem(dataFile);
+        addUsers(single, 1000);
+        single.saveUsers();
+        single.close();
+
+        List<String> messages = new ArrayList<>();
+        UserSystem fourShards = new UserSystem(dataFile, 4);
+        fourShards.setOutputSink(messages::add);
+        fourShards.loadUsers();
+        assertUsers(fourShards, 1000);
+        assertEquals(List.of(dataFile), fourShards.getRecoveryReport().getResharded());
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(1).startsWith("Resharded users of 1 file(s)"));
+        fourShards.close();
+        assertFalse(dataFile.exists());
+        assertTrue(new File(dataFile.getPath() + ".resharded").exists());
+        for (int shard = 0; shard < 4; shard++) {
+            assertTrue(ShardedUserStore.shardFile(dataFile, shard, 4).exists());
+        }
+
+        UserSystem twoShards = new UserSystem(dataFile, 2);
+        twoShards.loadUsers();
+        assertUsers(twoShards, 1000);
+        twoShards.close();
+        assertFalse(ShardedUserStore.shardFile(dataFile, 0, 4).exists());
+
+        UserSystem reloaded = new UserSystem(dataFile, 2);
+        reloaded.loadUsers();
+        assertUsers(reloaded, 1000);
+        assertEquals(List.of(), reloaded.getRecoveryReport().getResharded());
+        reloaded.close();
+    }
+
+    /**
+     * Saves one user under a single file and under two shards with different names, and reshards both
+     * into four shards.
+     *
+     * @return Name the user has after resharding
+     */
+    private static String reshardConflicting(Path directory, boolean singleNewer) throws IOException {
+        File dataFile = Files.createDirectories(directory).resolve("Users.dat").toFile();
+        UserSystem twoShards = new UserSystem(dataFile, 2);
+        twoShards.addUser("jose", new Person("Sharded", 'm', 180, 80, 30), 1, 1.2);
+        twoShards.saveUsers();
+        twoShards.close();
+        UserSystem single = new UserSystem(dataFile);
+        single.addUser("jose", new Person("Single", 'm', 180, 80, 30), 1, 1.2);
+        single.saveUsers();
+        single.close();
+
+        long now = System.currentTimeMillis();
+        assertTrue(dataFile.setLastModified(singleNewer ? now : now - 60_000));
+        // only the shard holding the user is written
+        for (int shard = 0; shard < 2; shard++) {
+            File shardFile = ShardedUserStore.shardFile(dataFile, shard, 2);
+            assertTrue(!shardFile.exists() || shardFile.setLastModified(singleNewer ? now - 60_000 : now));
+        }
+
+        UserSystem fourShards = new UserSystem(dataFile, 4);
+        fourShards.loadUsers();
+        assertTrue(fourShards.getRecoveryReport().getResharded().contains(dataFile));
+        String name = fourShards.retrieveUser("jose").getPerson().getName();
+        fourShards.close();
+        return name;
+    }
+
+    /**
+     * Tests that a user saved under several layouts keeps the copy of the most recently written file,
+     * and that loading with nothing saved sends no message.
+     */
+    @Test
+    @DisplayName("Reshard Conflict Test")
+    void load_ConflictingLayouts_NewestWins() throws IOException {
+        assertEquals("Single", reshardConflicting(tempDir.resolve("single"), true));
+        assertEquals("Sharded", reshardConflicting(tempDir.resolve("sharded"), false));
+
+        List<String> messages = new ArrayList<>();
+        UserSystem empty = new UserSystem(dataFile, 4);
+        empty.setOutputSink(messages::add);
+        empty.loadUsers();
+        empty.close();
+        UserSystem single = new UserSystem(dataFile);
+        single.setOutputSink(messages::add);
+        single.loadUsers();
+        single.close();
+        assertEquals(List.of(), messages);
+    }
+
+    /**
+     * Tests that a checkpoint only rewrites the shard holding a changed user.
+     */
+    @Test
+    @DisplayName("Changed Shard Save Test")
+    void checkpoint_RewritesChangedShardsOnly() throws IOException {
+        ShardedUserStore store = new ShardedUserStore(dataFile, 8);
+        UserSystem userSystem = new UserSystem(store);
+        userSystem.loadUsers();
+        addUsers(userSystem, 1000);
+        assertTrue(store.checkpoint() > 0);
+        assertEquals(0, store.checkpoint());
+
+        userSystem.retrieveUser("user42").getDiet().changeMacroDiet(2);
+        File changed = ShardedUserStore.shardFile(dataFile, ShardedUserStore.shardOf("user42", 8), 8);
+        assertEquals(changed.length(), store.checkpoint());
+        userSystem.close();
+
+        UserSystem reloaded = new UserSystem(dataFile, 8);
+        reloaded.loadUsers();
+        assertEquals(MacroDiets.KETO, reloaded.retrieveUser("user42").getDiet().getDiets());
+        reloaded.close();
+    }
+
+    /**
+     * Tests that journaled changes reach the shards' journals and are replayed without a save, and that
+     * enabling the journal again does not journal every change twice.
+     */
+    @Test
+    @DisplayName("Sharded Journal Test")
+    void enableJournal_ReplaysEveryShard() throws IOException {
+        ShardedUserStore store = new ShardedUserStore(dataFile, 4);
+        UserSystem userSystem = new UserSystem(store);
+        userSystem.loadUsers();
+        userSystem.enableJournal();
+        userSystem.enableJournal();
+        assertSame(store.openJournal(UserJournal.DEFAULT_COMPACTION_THRESHOLD),
+                store.openJournal(UserJournal.DEFAULT_COMPACTION_THRESHOLD));
+        addUsers(userSystem, 200);
+        userSystem.deleteUser("user7");
+        userSystem.close();
+
+        UserSystem reloaded = new UserSystem(dataFile, 4);
+        reloaded.loadUsers();
+        assertEquals(199, reloaded.getUsers().size());
+        assertThrows(InvalidInputException.class, () -> reloaded.retrieveUser("user7"));
+        assertEquals("Name199", reloaded.retrieveUser("user199").getPerson().getName());
+        reloaded.close();
+    }
+}
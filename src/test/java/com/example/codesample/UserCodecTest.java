@@ -0,0 +1,135 @@
+/**
+ * UserCodecTest
+ * This class tests that users survive a round trip through the binary codec, that records written
+ * with Java serialization can still be decoded, and that malformed records are rejected.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.ArgumentsProvider;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCodecTest implements ArgumentsProvider {
+
+    private static void assertSameUser(User expected, User actual) {
+        Person person = expected.getPerson();
+        Diet diet = expected.getDiet();
+
+        assertAll("User fields",
+                () -> assertEquals(expected.getUserName(), actual.getUserName()),
+                () -> assertEquals(person.getName(), actual.getPerson().getName()),
+                () -> assertEquals(person.getGender(), actual.getPerson().getGender()),
+                () -> assertEquals(person.getAge(), actual.getPerson().getAge()),
+                () -> assertEquals(person.getHeight(), actual.getPerson().getHeight()),
+                () -> assertEquals(person.getWeight(), actual.getPerson().getWeight()),
+                () -> assertEquals(diet.isBulking(), actual.getDiet().isBulking()),
+                () -> assertEquals(diet.getTdee(), actual.getDiet().getTdee()),
+                () -> assertEquals(diet.getBmi(), actual.getDiet().getBmi()),
+                () -> assertEquals(diet.getDiets(), actual.getDiet().getDiets()),
+                () -> assertEquals(diet.getCalorieOffset(), actual.getDiet().getCalorieOffset()),
+                () -> assertEquals(diet.getDailyCalories(), actual.getDiet().getDailyCalories()),
+                () -> assertEquals(diet.changeCalorieOffset(), actual.getDiet().changeCalorieOffset()));
+    }
+
+    /**
+     * Tests that every kind of diet plan and macro diet is encoded and decoded unchanged.
+     * @param user User to round trip
+     */
+    @ParameterizedTest
+    @ArgumentsSource(UserCodecTest.class)
+    @DisplayName("Codec Round Trip Test")
+    void encode_RoundTrip(User user) throws IOException {
+        assertSameUser(user, UserCodec.decode(UserCodec.encode(user)));
+    }
+
+    /**
+     * Tests that records written with ObjectOutputStream are decoded the same way.
+     * @param user User to serialize
+     */
+    @ParameterizedTest
+    @ArgumentsSource(UserCodecTest.class)
+    @DisplayName("Legacy Record Test")
+    void decode_LegacyRecord(User user) throws IOException {
+        assertSameUser(user, UserCodec.decode(UserCodec.serialize(user)));
+    }
+
+    /**
+     * Tests that the codec writes a fraction of the bytes Java serialization does.
+     */
+    @Test
+    @DisplayName("Codec Size Test")
+    void encode_SmallerThanSerialization() {
+        User user = new User("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23),
+                new CuttingDiet(2102.07, 22.59, MacroDiets.DEFAULT, 420));
+
+        assertTrue(UserCodec.encode(user).length * 5 < UserCodec.serialize(user).length);
+    }
+
+    /**
+     * Tests that varints round trip at the edges of their byte lengths.
+     * @param value Value to round trip
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, -1, 63, -64, 64, 8191, 8192, Integer.MAX_VALUE, Integer.MIN_VALUE})
+    @DisplayName("Varint Round Trip Test")
+    void varInt_RoundTrip(int value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UserCodec.writeVarInt(new DataOutputStream(bytes), value);
+
+        assertEquals(value, UserCodec.readVarInt(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    /**
+     * Tests that records of an unknown version, truncated records and bad macro diets are rejected.
+     */
+    @Test
+    @DisplayName("Malformed Record Test")
+    void decode_MalformedRecords() {
+        byte[] record = UserCodec.encode(new User("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23),
+                new BulkingDiet(2102.07, 22.59, MacroDiets.KETO, 250)));
+
+        byte[] unknownVersion = record.clone();
+        unknownVersion[0] = 9;
+        byte[] truncated = new byte[record.length - 3];
+        System.arraycopy(record, 0, truncated, 0, truncated.length);
+        byte[] badMacroDiet = record.clone();
+        badMacroDiet[record.length - 3] = 17;
+
+        assertAll("Malformed",
+                () -> assertThrows(StreamCorruptedException.class, () -> UserCodec.decode(unknownVersion)),
+                () -> assertThrows(EOFException.class, () -> UserCodec.decode(truncated)),
+                () -> assertThrows(StreamCorruptedException.class, () -> UserCodec.decode(badMacroDiet)));
+    }
+
+    /**
+     * Stream of users covering both diet plans, lean bulking, every macro diet and non-ASCII names.
+     * @param extensionContext Encapsulates the context in which the current test or container is being executed
+     * @return Stream of users
+     */
+    @Override
+    public Stream<? extends Arguments> provideArguments(ExtensionContext extensionContext) {
+        return Stream.of(
+                Arguments.of(new User("bulk", new Person("Bulker", 'm', 180.34, 73.46, 23),
+                        new BulkingDiet(2102.07, 22.59, MacroDiets.DEFAULT, 500))),
+                Arguments.of(new User("lean", new Person("Lean Bulker", 'f', 165.1, 58.2, 31),
+                        new BulkingDiet(1830.5, 21.35, MacroDiets.PALEO, 250))),
+                Arguments.of(new User("cut", new Person("Cutter", 'F', 150.32, 90, 33),
+                        new CuttingDiet(1816.2, 39.82, MacroDiets.KETO, 726))),
+                Arguments.of(new User("josé", new Person("José Ñúñez", 'M', 200.56, 104.29, 122),
+                        new CuttingDiet(2551.68, 25.92, MacroDiets.ATKINS, 255))));
+    }
+}
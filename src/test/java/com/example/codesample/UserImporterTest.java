@@ -0,0 +1,129 @@
+/**
+ * UserImporterTest
+ * This class tests bulk CSV imports, checking that imported users match users created one at a time
+ * and that every invalid or duplicate row is reported with its line number.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private UserSystem userSystem;
+
+    @BeforeEach
+    void setup() {
+        userSystem = new UserSystem(tempDir.resolve("Users.dat").toFile());
+    }
+
+    /**
+     * Tests that imported users get the same diet plans as users added through addUser.
+     */
+    @Test
+    @DisplayName("Import Matches Add User Test")
+    void importCsv_SameAsAddUser() throws IOException {
+        String csv = "username,name,gender,height,weight,age,goal,activityLevel\n"
+                + "Alejandro,Jose,m,180.34,73.46,23,1,1.2\n"
+                + "\"cutter\",\"Smith, Jane\",F,150.32,90,33,2,1.55\n";
+
+        ImportReport report = new UserImporter(userSystem, 1).importCsv(new StringReader(csv));
+        User expectedBulk = new UserSystem(tempDir.resolve("Other.dat").toFile())
+                .addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 1, 1.2);
+        User expectedCut = new UserSystem(tempDir.resolve("Other.dat").toFile())
+                .addUser("cutter", new Person("Smith, Jane", 'F', 150.32, 90, 33), 2, 1.55);
+
+        assertEquals(2, report.getImported());
+        assertTrue(report.getRejections().isEmpty());
+        for (User expected : new User[]{expectedBulk, expectedCut}) {
+            User actual = userSystem.retrieveUser(expected.getUserName());
+            assertAll("Imported " + expected.getUserName(),
+                    () -> assertEquals(expected.getPerson().getName(), actual.getPerson().getName()),
+                    () -> assertEquals(expected.getDiet().isBulking(), actual.getDiet().isBulking()),
+                    () -> assertEquals(expected.getDiet().getTdee(), actual.getDiet().getTdee()),
+                    () -> assertEquals(expected.getDiet().getBmi(), actual.getDiet().getBmi()),
+                    () -> assertEquals(expected.getDiet().getCalorieOffset(), actual.getDiet().getCalorieOffset()),
+                    () -> assertEquals(expected.getDiet().getDailyCalories(), actual.getDiet().getDailyCalories()));
+        }
+    }
+
+    /**
+     * Tests that malformed, invalid and duplicate rows are rejected without stopping the import,
+     * and that rows are counted in the metrics like calls to addUser.
+     */
+    @Test
+    @DisplayName("Import Rejection Test")
+    void importCsv_RejectsBadRows() throws IOException {
+        userSystem.addUser("taken", new Person("Old", 'm', 180, 80, 30), 1, 1.2);
+        UserMetrics metrics = userSystem.enableMetrics();
+        String csv = "first,Ann,f,165,60,30,2,1.375\n"
+                + "short,Ann,f\n"
+                + "\n"
+                + "number,Ann,f,tall,60,30,2,1.375\n"
+                + "invalid,Ann,x,165,60,300,3,1.375\n"
+                + "taken,Ann,f,165,60,30,2,1.375\n"
+                + "first,Ann,f,165,60,30,2,1.375\n"
+                + "last,Ann,f,165,60,30,1,1.725\n";
+
+        ImportReport report = new UserImporter(userSystem, 2).importCsv(new StringReader(csv));
+        List<ImportReport.Rejection> rejections = report.getRejections();
+
+        assertEquals(2, report.getImported());
+        assertEquals(5, rejections.size());
+        assertAll("Rejections",
+                () -> assertEquals(2, rejections.get(0).getLine()),
+                () -> assertEquals("short", rejections.get(0).getUserName()),
+                () -> assertEquals("Expected 8 columns but found 3", rejections.get(0).getReason()),
+                () -> assertEquals(4, rejections.get(1).getLine()),
+                () -> assertTrue(rejections.get(1).getReason().startsWith("Not a valid number")),
+                () -> assertEquals("invalid", rejections.get(2).getUserName()),
+                () -> assertEquals("Not a valid gender; Not a valid age; Not a valid fitness goal",
+                        rejections.get(2).getReason()),
+                () -> assertEquals("Username already taken", rejections.get(3).getReason()),
+                () -> assertEquals(7, rejections.get(4).getLine()),
+                () -> assertEquals("Username already taken", rejections.get(4).getReason()));
+        assertAll("Metrics",
+                () -> assertEquals(4, metrics.getCount(UserMetrics.Operation.ADD_USER)),
+                () -> assertEquals(2, metrics.getFailures(UserMetrics.Operation.ADD_USER)),
+                () -> assertEquals(3, metrics.getValidationFailures()));
+        assertEquals("Old", userSystem.retrieveUser("taken").getPerson().getName());
+        assertTrue(userSystem.retrieveUser("last").getDiet().isBulking());
+    }
+
+    /**
+     * Tests that a large import creates every user.
+     */
+    @Test
+    @DisplayName("Large Import Test")
+    void importCsv_ManyRows() throws IOException {
+        int count = 200_000;
+        StringBuilder csv = new StringBuilder(count * 40);
+        for (int i = 0; i < count; i++) {
+            csv.append('u').append(i).append(",Name").append(i).append(i % 2 == 0 ? ",m," : ",f,")
+                    .append(150 + (i % 50)).append(',').append(50 + (i % 60)).append(',')
+                    .append(18 + (i % 60)).append(',').append(1 + (i % 2)).append(",1.375\n");
+        }
+
+        ImportReport report = new UserImporter(userSystem).importCsv(new StringReader(csv.toString()));
+
+        assertEquals(count, report.getImported());
+        assertTrue(report.getRejections().isEmpty());
+        assertTrue(userSystem.validateUsername("u199999"));
+    }
+}
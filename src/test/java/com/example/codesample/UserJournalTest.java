@@ -0,0 +1,188 @@
+/**
+ * UserJournalTest
+ * This class tests that journaled changes to a UserSystem are replayed when users are loaded,
+ * and that compaction folds the journal into a new snapshot.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File dataFile;
+    private UserSystem userSystem;
+
+    /**
+     * Creates a journaled UserSystem backed by a temporary .dat file.
+     */
+    @BeforeEach
+    void setup() {
+        dataFile = tempDir.resolve("Users.dat").toFile();
+        userSystem = new UserSystem(dataFile);
+        userSystem.loadUsers();
+        userSystem.enableJournal();
+    }
+
+    private UserSystem reload() {
+        UserSystem loaded = new UserSystem(dataFile);
+        loaded.loadUsers();
+        return loaded;
+    }
+
+    /**
+     * Tests that added users and every kind of diet change survive without calling saveUsers.
+     */
+    @Test
+    @DisplayName("Journal Replay Test")
+    void replay_MutationsWithoutSave() {
+        User user = userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 2, 1.2);
+        userSystem.addUser("deleted", new Person("Other", 'f', 165, 60, 30), 1, 1.375);
+
+        user.getDiet().changeCalorieIntake(3);
+        user.getDiet().changeMacroDiet(2);
+        userSystem.deleteUser("deleted");
+
+        User loaded = reload().retrieveUser("Alejandro");
+
+        assertAll("Replayed user",
+                () -> assertFalse(loaded.getDiet().isBulking()),
+                () -> assertEquals(user.getDiet().getDailyCalories(), loaded.getDiet().getDailyCalories(), .01),
+                () -> assertEquals(MacroDiets.KETO, loaded.getDiet().getDiets()),
+                () -> assertFalse(reload().validateUsername("deleted")));
+
+        user.changeDietPlan();
+        assertTrue(reload().retrieveUser("Alejandro").getDiet().isBulking());
+    }
+
+    /**
+     * Tests that a replayed user keeps journaling its later changes.
+     */
+    @Test
+    @DisplayName("Journal Replayed User Test")
+    void replay_ChangesAfterReload() {
+        userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 1, 1.2);
+
+        UserSystem second = reload();
+        second.enableJournal();
+        second.retrieveUser("Alejandro").getDiet().changeMacroDiet(1);
+
+        assertEquals(MacroDiets.PALEO, reload().retrieveUser("Alejandro").getDiet().getDiets());
+    }
+
+    /**
+     * Tests that compacting writes a snapshot holding every user and empties the journal.
+     */
+    @Test
+    @DisplayName("Journal Compaction Test")
+    void compact_WritesSnapshot() {
+        for (int i = 0; i < 20; i++) {
+            userSystem.addUser("user" + i, new Person("Name", 'f', 165, 60, 30), 2, 1.55);
+        }
+        userSystem.saveUsers();
+
+        assertAll("Compacted",
+                () -> assertTrue(dataFile.isFile()),
+                () -> assertEquals(0, UserJournal.journalFile(dataFile).length()),
+                () -> assertFalse(UserJournal.rotatedFile(dataFile).exists()),
+                () -> assertTrue(reload().validateUsername("user19")));
+    }
+
+    /**
+     * Tests that compaction started in the background by a small threshold keeps every change.
+     */
+    @Test
+    @DisplayName("Background Compaction Test")
+    void compact_Background() {
+        UserSystem small = new UserSystem(tempDir.resolve("Small.dat").toFile());
+        small.enableJournal(1024);
+
+        for (int i = 0; i < 200; i++) {
+            User user = small.addUser("user" + i, new Person("Name", 'm', 180, 80, 40), 1, 1.2);
+            user.getDiet().changeCalorieIntake(1);
+        }
+        small.saveUsers();
+
+        UserSystem loaded = new UserSystem(tempDir.resolve("Small.dat").toFile());
+        loaded.loadUsers();
+        for (int i = 0; i < 200; i++) {
+            assertEquals(small.retrieveUser("user" + i).getDiet().getDailyCalories(),
+                    loaded.retrieveUser("user" + i).getDiet().getDailyCalories(), .01);
+        }
+    }
+
+    /**
+     * Tests that a record cut short by a crash is dropped and later records are still replayed.
+     */
+    @Test
+    @DisplayName("Torn Journal Record Test")
+    void replay_TornRecord() throws IOException {
+        userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 1, 1.2);
+        File journalFile = UserJournal.journalFile(dataFile);
+        long whole = journalFile.length();
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            file.seek(whole);
+            file.write(new byte[]{1, 0, 0, 1});
+        }
+
+        UserSystem recovered = reload();
+        assertEquals(whole, journalFile.length());
+
+        recovered.enableJournal();
+        recovered.retrieveUser("Alejandro").getDiet().changeMacroDiet(3);
+        assertEquals(MacroDiets.ATKINS, reload().retrieveUser("Alejandro").getDiet().getDiets());
+    }
+
+    /**
+     * Tests that a journal ending in zeros, random bytes, an impossible length or a record with a damaged
+     * payload is cut back to its last valid record, and that later records are still replayed.
+     */
+    @Test
+    @DisplayName("Damaged Journal Tail Test")
+    void replay_DamagedTail() throws IOException {
+        userSystem.addUser("Alejandro", new Person("Jose", 'm', 180.34, 73.46, 23), 1, 1.2);
+        File journalFile = UserJournal.journalFile(dataFile);
+        long whole = journalFile.length();
+        byte[] random = new byte[4096];
+        new Random(42).nextBytes(random);
+        byte[] damagedRecord = Arrays.copyOfRange(Files.readAllBytes(journalFile.toPath()), 0, (int) whole);
+        damagedRecord[damagedRecord.length - 1] ^= 0x5A;
+
+        byte[][] tails = {new byte[4096], random, {3, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xF0, 0, 0, 0, 0},
+                {1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF}, damagedRecord};
+        for (byte[] tail : tails) {
+            try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+                file.seek(whole);
+                file.write(tail);
+            }
+
+            UserSystem recovered = reload();
+            assertEquals(whole, journalFile.length());
+            assertEquals("Jose", recovered.retrieveUser("Alejandro").getPerson().getName());
+        }
+
+        UserSystem recovered = reload();
+        recovered.enableJournal();
+        recovered.retrieveUser("Alejandro").getDiet().changeMacroDiet(3);
+        assertEquals(MacroDiets.ATKINS, reload().retrieveUser("Alejandro").getDiet().getDiets());
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * UserMetricsTest
+ * This class tests that enabled metrics count and time UserSystem operations and rejected input,
+ * that they can be read through JMX, and that latency percentiles stay within the histogram's precision.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Tests that calls, failures and validation failures are counted per operation.
+     */
+    @Test
+    @DisplayName("Operation Count Test")
+    void enableMetrics_CountsOperations() {
+        UserSystem userSystem = new UserSystem(tempDir.resolve("Users.dat").toFile());
+        userSystem.addUser("before", new Person("Name", 'f', 165, 60, 30), 2, 1.375);
+        UserMetrics metrics = userSystem.enableMetrics();
+        assertSame(metrics, userSystem.enableMetrics());
+
+        userSystem.addUser("user1", new Person("Name", 'f', 165, 60, 30), 2, 1.375);
+        assertThrows(InvalidInputException.class,
+                () -> userSystem.addUser("user2", new Person("Name", 'x', 165, 60, 30), 2, 1.375));
+        assertThrows(InvalidInputException.class,
+                () -> userSystem.addUser("user1", new Person("Name", 'f', 165, 60, 30), 2, 1.375));
+        userSystem.retrieveUser("user1");
+        assertThrows(InvalidInputException.class, () -> userSystem.retrieveUser("nobody"));
+        userSystem.deleteUser("before");
+        userSystem.saveUsers();
+
+        assertAll("Metrics",
+                () -> assertEquals(3, metrics.getCount(UserMetrics.Operation.ADD_USER)),
+                () -> assertEquals(2, metrics.getFailures(UserMetrics.Operation.ADD_USER)),
+                () -> assertEquals(1, metrics.getValidationFailures()),
+                () -> assertEquals(2, metrics.getCount(UserMetrics.Operation.RETRIEVE_USER)),
+                () -> assertEquals(1, metrics.getFailures(UserMetrics.Operation.RETRIEVE_USER)),
+                () -> assertEquals(1, metrics.getCount(UserMetrics.Operation.DELETE_USER)),
+                () -> assertEquals(1, metrics.getCount(UserMetrics.Operation.SAVE_USERS)),
+                () -> assertEquals(0, metrics.getFailures(UserMetrics.Operation.SAVE_USERS)),
+                () -> assertEquals(0, metrics.getCount(UserMetrics.Operation.LOAD_USERS)),
+                () -> assertTrue(metrics.getLatencyNanos(UserMetrics.Operation.SAVE_USERS, 50) > 0),
+                () -> assertTrue(metrics.dump().contains("RetrieveUser  count=2 failures=1")));
+        userSystem.close();
+    }
+
+    /**
+     * Tests that registered metrics are read through the platform MBean server and removed on close.
+     */
+    @Test
+    @DisplayName("JMX Test")
+    void register_ExposesAttributes() throws JMException {
+        UserSystem userSystem = new UserSystem(tempDir.resolve("Users.dat").toFile());
+        ObjectName name = userSystem.enableMetrics().register("UserMetricsTest");
+        userSystem.addUser("user1", new Person("Name", 'f', 165, 60, 30), 2, 1.375);
+        userSystem.retrieveUser("user1");
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertAll("MBean",
+                () -> assertEquals(1L, server.getAttribute(name, "AddUserCount")),
+                () -> assertEquals(0L, server.getAttribute(name, "ValidationFailures")),
+                () -> assertTrue((Double) server.getAttribute(name, "RetrieveUserMaxMicros") > 0),
+                () -> assertTrue(((String) server.invoke(name, "dump", null, null)).startsWith("AddUser")),
+                () -> assertEquals(36, server.getMBeanInfo(name).getAttributes().length));
+
+        userSystem.close();
+        assertFalse(server.isRegistered(name));
+    }
+
+    /**
+     * Tests that percentiles of known latencies are within the precision of their bucket.
+     */
+    @Test
+    @DisplayName("Latency Histogram Test")
+    void percentile_WithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+        histogram.record(-5);
+
+        assertEquals(100001, histogram.count());
+        assertEquals(50_000_000, histogram.percentile(50), 50_000_000 / 16.0);
+        assertEquals(99_000_000, histogram.percentile(99), 99_000_000 / 16.0);
+        assertEquals(100_000_000, histogram.percentile(100));
+        assertEquals(100_000_000, histogram.max());
+        for (long value : new long[]{0, 31, 32, 1000, 123456789, LatencyHistogram.MAX_VALUE}) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(value <= LatencyHistogram.highestValue(index));
+            assertTrue((index == 0) || (value > LatencyHistogram.highestValue(index - 1)));
+        }
+    }
+
+    /**
+     * Tests that latencies recorded by many threads at once are all counted once merged.
+     */
+    @Test
+    @DisplayName("Latency Histogram Concurrent Test")
+    void record_ConcurrentThreads_AllCounted() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            long nanos = (t + 1) * 1000L;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    histogram.record(nanos);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80000, histogram.count());
+        assertEquals(4000, histogram.percentile(50), 4000 / 16.0);
+        assertEquals(8000, histogram.percentile(100), 8000 / 16.0);
+        assertEquals(8000, histogram.max());
+    }
+}
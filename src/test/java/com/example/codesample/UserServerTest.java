@@ -0,0 +1,171 @@
+/**
+ * UserServerTest
+ * This class tests the HTTP API end to end with the JDK HTTP client: creating, changing and deleting
+ * users, the error status of bad requests and failures, and many clients using the server at once.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserServerTest {
+
+    private static final String JOSE = "{\"userName\":\"Alejandro\",\"name\":\"Jose\",\"gender\":\"m\","
+            + "\"height\":180.34,\"weight\":73.46,\"age\":23,\"goal\":1,\"activityLevel\":1.2}";
+
+    @TempDir
+    Path tempDir;
+
+    private UserSystem userSystem;
+    private UserServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setup() throws IOException {
+        userSystem = new UserSystem(tempDir.resolve("Users.dat").toFile());
+        server = new UserServer(userSystem, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        userSystem.close();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, (body == null) ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Tests that a user created over HTTP matches one created directly and can be changed and deleted.
+     */
+    @Test
+    @DisplayName("HTTP User Lifecycle Test")
+    void users_Lifecycle() throws Exception {
+        HttpResponse<String> created = send("POST", "/users", JOSE);
+        assertEquals(201, created.statusCode());
+        assertTrue(created.body().contains("\"dailyCalories\":" + userSystem.retrieveUser("Alejandro").getDietPlan().getDailyCalories()));
+        assertEquals(created.body(), send("GET", "/users/Alejandro", null).body());
+
+        HttpResponse<String> offset = send("PUT", "/users/Alejandro/calorie-offset", "{\"option\": 1}");
+        assertEquals(200, offset.statusCode());
+        assertTrue(offset.body().startsWith("{\"changed\":true,"));
+        assertEquals(250, userSystem.retrieveUser("Alejandro").getDiet().getCalorieOffset());
+
+        assertTrue(send("PUT", "/users/Alejandro/macro-diet", "{\"option\": 9}").body().startsWith("{\"changed\":false,"));
+        assertTrue(send("PUT", "/users/Alejandro/macro-diet", "{\"option\": 2}").body().contains("\"macroDiet\":\"Keto\""));
+        assertTrue(send("POST", "/users/Alejandro/diet-plan", null).body().contains("\"bulking\":false"));
+
+        Map<String, String> progress = Json.parseObject(send("GET", "/users/Alejandro/progress", null).body()
+                .replaceAll("\\{\"lbs\":([^,]+),\"kg\":[^}]+}", "$1"));
+        double[] expected = userSystem.retrieveUser("Alejandro").getDiet().calculateWeightChange(
+                userSystem.retrieveUser("Alejandro").getDiet().getCalorieOffset());
+        assertEquals("false", progress.get("gaining"));
+        assertEquals(expected[0], Double.parseDouble(progress.get("week")));
+        assertEquals(expected[2], Double.parseDouble(progress.get("year")));
+        assertTrue(send("GET", "/users/Alejandro/progress?weeks=2", null).body().contains("\"horizon\":{\"weeks\":2.0,"));
+
+        assertEquals(204, send("DELETE", "/users/Alejandro", null).statusCode());
+        assertFalse(userSystem.validateUsername("Alejandro"));
+    }
+
+    /**
+     * Tests the status of unknown users, taken usernames, invalid input and unsupported requests.
+     */
+    @Test
+    @DisplayName("HTTP Error Status Test")
+    void users_ErrorStatus() throws Exception {
+        send("POST", "/users", JOSE);
+
+        assertAll("Status",
+                () -> assertEquals(404, send("GET", "/users/nobody", null).statusCode()),
+                () -> assertEquals(404, send("DELETE", "/users/nobody", null).statusCode()),
+                () -> assertEquals(409, send("POST", "/users", JOSE).statusCode()),
+                () -> assertEquals(400, send("POST", "/users", JOSE.replace("\"age\":23", "\"age\":300")).statusCode()),
+                () -> assertEquals(400, send("POST", "/users", "{\"userName\":\"x\"}").statusCode()),
+                () -> assertEquals(400, send("POST", "/users", "not json").statusCode()),
+                () -> assertEquals(400, send("PUT", "/users/Alejandro/macro-diet", "{\"option\":\"x\"}").statusCode()),
+                () -> assertEquals(405, send("PUT", "/users/Alejandro", "{}").statusCode()),
+                () -> assertEquals(404, send("GET", "/users/Alejandro/unknown", null).statusCode()),
+                () -> assertEquals(400, send("GET", "/users/Alejandro/progress?weeks=-1", null).statusCode()),
+                () -> assertEquals(400, send("GET", "/users/Alejandro/progress?weeks=NaN", null).statusCode()),
+                () -> assertEquals(404, send("GET", "/usersX", null).statusCode()));
+        assertEquals("{\"error\":\"Not a valid age\"}",
+                send("POST", "/users", JOSE.replace("\"age\":23", "\"age\":300")).body());
+    }
+
+    /**
+     * Tests that a failure other than invalid input is answered with 500 and a JSON error,
+     * and that the server keeps serving afterwards.
+     */
+    @Test
+    @DisplayName("HTTP Internal Error Test")
+    void users_InternalError() throws Exception {
+        userSystem.addListener(new UserListener() {
+            @Override
+            public void userAdded(User user) {
+                throw new IllegalStateException("Listener failed");
+            }
+
+            @Override
+            public void userDeleted(User user) {
+            }
+
+            @Override
+            public void userChanged(User user) {
+            }
+        });
+
+        HttpResponse<String> failed = send("POST", "/users", JOSE);
+        assertEquals(500, failed.statusCode());
+        assertEquals("{\"error\":\"Internal server error\"}", failed.body());
+        assertEquals(200, send("GET", "/users/Alejandro", null).statusCode());
+    }
+
+    /**
+     * Tests that concurrent clients each create and change their own user.
+     */
+    @Test
+    @DisplayName("HTTP Concurrent Clients Test")
+    void users_ConcurrentClients() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String body = JOSE.replace("Alejandro", "user" + i);
+            responses.add(client.sendAsync(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/users"))
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(201, response.get().statusCode());
+        }
+        for (int i = 0; i < 200; i++) {
+            assertTrue(userSystem.validateUsername("user" + i));
+        }
+    }
+}
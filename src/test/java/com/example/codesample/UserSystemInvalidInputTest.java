@@ -93,22 +93,22 @@ class UserSystemInvalidInputTest implements ArgumentsProvider {
     }
 
     /**
-     * Tests attempt to retrieve a non-existent username, throws an InvalidInputException.
+     * Tests attempt to retrieve a non-existent username, throws a UserNotFoundException.
      */
     @Test
     @DisplayName("Invalid Retrieve User Test")
     void retrieveUser() {
-        assertThrows(InvalidInputException.class,
+        assertThrows(UserNotFoundException.class,
                 () -> userSystem.retrieveUser("Not Username"));
     }
 
     /**
-     * Tests attempt to delete a non-existent username, throws an InvalidInputException.
+     * Tests attempt to delete a non-existent username, throws a UserNotFoundException.
      */
     @Test
     @DisplayName("Invalid Delete User Test")
     void deleteUser() {
-        assertThrows(InvalidInputException.class,
+        assertThrows(UserNotFoundException.class,
                 () -> userSystem.deleteUser("Not Username"));
     }
 
@@ -0,0 +1,171 @@
+/**
+ * WeightLogTest
+ * This class tests that the weight log returns exactly what was logged across chunk boundaries and
+ * after saving and loading, and that logged progress compares against the diet's projection.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightLogTest {
+
+    private static final LocalDate START = LocalDate.of(2019, 1, 1);
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Logs a year of entries, skipping some days, and returns the logged weights by day (NaN when skipped).
+     */
+    private static double[] logYear(WeightLog log, String userName, long seed) {
+        Random random = new Random(seed);
+        double[] weights = new double[365];
+        double weight = 80;
+        for (int day = 0; day < weights.length; day++) {
+            weight += random.nextGaussian() * .3;
+            if (random.nextInt(5) == 0) {
+                weights[day] = Double.NaN;
+            } else {
+                weights[day] = Math.round(weight * 100) / 100.0;
+                log.append(userName, START.plusDays(day), weights[day]);
+            }
+        }
+        return weights;
+    }
+
+    private static void assertScan(WeightLog log, double[] weights, int from, int to) {
+        List<Double> expected = new ArrayList<>();
+        for (int day = from; day <= to; day++) {
+            if (!Double.isNaN(weights[day])) {
+                expected.add(weights[day]);
+            }
+        }
+        List<Double> found = new ArrayList<>();
+        log.scan("jose", START.plusDays(from), START.plusDays(to), (date, weight) -> {
+            assertEquals(weights[(int) (date.toEpochDay() - START.toEpochDay())], weight, 1e-9);
+            found.add(weight);
+        });
+        assertEquals(expected, found);
+    }
+
+    /**
+     * Tests range scans, rolling averages and persistence against the logged values.
+     */
+    @Test
+    @DisplayName("Log Scan Test")
+    void scan_MatchesLogged() throws IOException {
+        WeightLog log = new WeightLog();
+        double[] weights = logYear(log, "jose", 7);
+        int logged = 0;
+        for (double weight : weights) {
+            logged += Double.isNaN(weight) ? 0 : 1;
+        }
+        assertEquals(logged, log.size("jose"));
+        assertTrue(log.encodedBytes() < 3 * logged);
+
+        for (int[] range : new int[][]{{0, 364}, {0, 0}, {127, 129}, {200, 263}, {300, 364}, {50, 40}}) {
+            assertScan(log, weights, range[0], range[1]);
+        }
+
+        double[] averages = log.rollingAverages("jose", START, START.plusDays(364), 7);
+        for (int day = 0; day < 365; day += 13) {
+            double sum = 0;
+            int count = 0;
+            for (int d = Math.max(0, day - 6); d <= day; d++) {
+                if (!Double.isNaN(weights[d])) {
+                    sum += weights[d];
+                    count++;
+                }
+            }
+            double expected = (count == 0) ? Double.NaN : sum / count;
+            assertEquals(expected, averages[day], 1e-9);
+            assertEquals(expected, log.rollingAverage("jose", START.plusDays(day), 7), 1e-9);
+        }
+
+        File file = tempDir.resolve("Weights.dat").toFile();
+        log.save(file);
+        WeightLog loaded = new WeightLog();
+        loaded.load(file);
+        assertEquals(logged, loaded.size("jose"));
+        assertScan(loaded, weights, 0, 364);
+        loaded.append("jose", START.plusDays(365), 70);
+        assertEquals(logged + 1, loaded.size("jose"));
+
+        assertThrows(InvalidInputException.class, () -> log.append("jose", START, 80));
+        assertThrows(InvalidInputException.class, () -> log.append("jose", START.plusDays(400), -1));
+        assertEquals(Double.NaN, log.rollingAverage("nobody", START, 7));
+    }
+
+    /**
+     * Tests that a user losing weight exactly as projected shows no difference, and that deleted users are forgotten.
+     */
+    @Test
+    @DisplayName("Projection Comparison Test")
+    void compare_MatchesProjection() {
+        UserSystem userSystem = new UserSystem(tempDir.resolve("Users.dat").toFile());
+        WeightLog log = new WeightLog(userSystem);
+        User user = userSystem.addUser("jose", new Person("Jose", 'm', 180, 90, 30), 2, 1.375);
+        WeightProjection projection = user.getDiet().projectWeightChange(new WeightProjection());
+        for (int day = 0; day <= 70; day += 7) {
+            log.append("jose", START.plusDays(day), 90 - projection.getKilograms(day / 7.0));
+        }
+
+        WeightLog.Progress progress = log.compare(user, START, START.plusDays(100));
+        assertEquals(START.plusDays(70), progress.getTo());
+        assertTrue(progress.getLogged() < 0);
+        assertEquals(progress.getProjected(), progress.getLogged(), .02);
+        assertNull(log.compare(user, START.plusDays(71), START.plusDays(100)));
+
+        userSystem.deleteUser("jose");
+        assertEquals(0, log.size("jose"));
+    }
+
+    /**
+     * Tests that entries logged while a user is deleted are dropped with the user and not logged after.
+     */
+    @Test
+    @DisplayName("Append During Delete Test")
+    void append_DuringDelete_NotKept() throws InterruptedException {
+        UserSystem userSystem = new UserSystem(tempDir.resolve("Users.dat").toFile());
+        WeightLog log = new WeightLog(userSystem);
+        userSystem.addUser("jose", new Person("Jose", 'm', 180, 90, 30), 2, 1.375);
+        int[] appended = new int[1];
+        Thread appender = new Thread(() -> {
+            try {
+                for (int day = 0; day < 1_000_000; day++) {
+                    log.append("jose", START.plusDays(day), 90);
+                    appended[0]++;
+                }
+            } catch (UserNotFoundException e) {
+                // deleted
+            }
+        });
+        appender.start();
+        while ((log.size("jose") < 100) && appender.isAlive()) {
+            Thread.onSpinWait();
+        }
+        userSystem.deleteUser("jose");
+        appender.join();
+
+        assertTrue(appended[0] < 1_000_000);
+        assertEquals(0, log.size("jose"));
+        assertThrows(UserNotFoundException.class, () -> log.append("jose", START, 90));
+        assertEquals(0, log.size("jose"));
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * WeightProjectionTest
+ * This class tests that weight projections match calculateWeightChange and Conversions, whether
+ * projected one user at a time into a reused holder or for many users into caller-supplied arrays.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightProjectionTest {
+
+    /**
+     * Tests that a reused projection gives the same values as calculateWeightChange and Conversions.
+     * @param calorieOffset Calorie surplus/deficit to project
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 250, 420, 500, 726, 1020})
+    @DisplayName("Projection Matches Weight Change Test")
+    void project_SameAsCalculateWeightChange(int calorieOffset) {
+        Diet diet = new CuttingDiet(2550, 25, MacroDiets.DEFAULT, calorieOffset);
+        WeightProjection projection = new WeightProjection().project(9999);
+        double[] expected = diet.calculateWeightChange(calorieOffset);
+
+        assertSame(projection, diet.projectWeightChange(projection));
+        assertAll("Projection",
+                () -> assertEquals(expected[0], projection.getWeekPounds()),
+                () -> assertEquals(expected[1], projection.getMonthPounds()),
+                () -> assertEquals(expected[2], projection.getYearPounds()),
+                () -> assertEquals(Conversions.poundsToKilograms(expected[0]), projection.getWeekKilograms()),
+                () -> assertEquals(Conversions.poundsToKilograms(expected[1]), projection.getMonthKilograms()),
+                () -> assertEquals(Conversions.poundsToKilograms(expected[2]), projection.getYearKilograms()),
+                () -> assertEquals(expected[0] * 10, projection.getPounds(10)),
+                () -> assertEquals(Conversions.poundsToKilograms(expected[0] * 10), projection.getKilograms(10)));
+    }
+
+    /**
+     * Tests that the bulk projections write the same values as projecting each user on its own.
+     */
+    @Test
+    @DisplayName("Bulk Projection Test")
+    void project_ManyUsers() {
+        int[] calorieOffsets = {250, 500, 0, 726};
+        double[] buffer = new double[WeightProjection.STRIDE * calorieOffsets.length];
+        double[] pounds = new double[calorieOffsets.length];
+        double[] kilograms = new double[calorieOffsets.length];
+        WeightProjection projection = new WeightProjection();
+
+        WeightProjection.project(calorieOffsets, buffer);
+        WeightProjection.project(calorieOffsets, 26, pounds, kilograms);
+
+        for (int i = 0; i < calorieOffsets.length; i++) {
+            projection.project(calorieOffsets[i]);
+            int j = WeightProjection.STRIDE * i;
+            assertArrayEquals(new double[]{projection.getWeekPounds(), projection.getWeekKilograms(),
+                    projection.getMonthPounds(), projection.getMonthKilograms(),
+                    projection.getYearPounds(), projection.getYearKilograms()},
+                    Arrays.copyOfRange(buffer, j, j + WeightProjection.STRIDE));
+            assertEquals(projection.getPounds(26), pounds[i]);
+            assertEquals(projection.getKilograms(26), kilograms[i]);
+        }
+    }
+
+    /**
+     * Tests that negative offsets and undersized buffers are rejected.
+     */
+    @Test
+    @DisplayName("Invalid Projection Test")
+    void project_InvalidInput() {
+        assertAll("Invalid",
+                () -> assertThrows(ArithmeticException.class, () -> new WeightProjection().project(-1)),
+                () -> assertThrows(ArithmeticException.class,
+                        () -> WeightProjection.project(new int[]{-1}, new double[WeightProjection.STRIDE])),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> WeightProjection.project(new int[2], new double[WeightProjection.STRIDE])),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> WeightProjection.project(new int[2], 4, new double[2], new double[1])));
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * WeightSimulatorTest
+ * This class tests the day by day weight simulation against the linear projection and checks that
+ * simulating a whole population in parallel gives each user the same result as simulating them alone.
+ *
+ * @version 1.0
+ * @author Jose Alejandro Rodriguez
+ * Copyright, 2019,
+ */
+package com.example.codesample;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightSimulatorTest {
+
+    private static User user(String userName, char gender, double weight, int goal) {
+        Person person = new Person("Name", gender, 175, weight, 30);
+        return new User(userName, person, UserSystem.createDiet(person, 1.375, goal));
+    }
+
+    /**
+     * Tests that keeping the calorie offset matches the linear projection, while keeping the percentage
+     * or eating a fixed amount loses less weight as the TDEE falls with the user's weight.
+     */
+    @Test
+    @DisplayName("Policy Test")
+    void simulate_Policies() {
+        User cutting = user("cut", 'm', 90, 2);
+        int days = 365;
+        double[] offset = new WeightSimulator(WeightSimulator.Policy.FIXED_OFFSET, days).simulate(cutting);
+        double[] intake = new WeightSimulator(WeightSimulator.Policy.FIXED_INTAKE, days).simulate(cutting);
+        double[] percentage = new WeightSimulator(WeightSimulator.Policy.FIXED_PERCENTAGE, days).simulate(cutting);
+        WeightProjection projection = new WeightProjection().project(cutting.getDiet().getCalorieOffset());
+
+        assertEquals(days + 1, offset.length);
+        assertEquals(90, offset[0]);
+        assertEquals(90 - projection.getKilograms(days / 7.0), offset[days], 1e-6);
+        for (int day = 1; day <= days; day++) {
+            assertTrue(intake[day] < intake[day - 1]);
+            assertTrue(percentage[day] < percentage[day - 1]);
+        }
+        assertTrue(percentage[days] > offset[days]);
+        assertTrue(intake[days] > percentage[days]);
+
+        double[] bulking = new WeightSimulator(WeightSimulator.Policy.FIXED_INTAKE, days).simulate(user("bulk", 'f', 55, 1));
+        assertTrue(bulking[days] > 55);
+        assertTrue(bulking[days] < 55 + new WeightProjection().project(BulkingDiet.REGULAR_SURPLUS).getKilograms(days / 7.0));
+        assertThrows(IllegalArgumentException.class, () -> new WeightSimulator(WeightSimulator.Policy.FIXED_INTAKE, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new WeightSimulator(WeightSimulator.Policy.FIXED_INTAKE, WeightSimulator.MAX_DAYS + 1));
+    }
+
+    /**
+     * Tests that a population split across fork/join tasks gets the same final weights as users simulated one by one.
+     */
+    @Test
+    @DisplayName("Parallel Population Test")
+    void simulate_PopulationMatchesSingleUsers() {
+        Random random = new Random(5);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            users.add(user("u" + i, random.nextBoolean() ? 'm' : 'f', 45 + random.nextInt(80), 1 + random.nextInt(2)));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        WeightSimulator simulator = new WeightSimulator(WeightSimulator.Policy.FIXED_PERCENTAGE, 3 * 365, pool);
+        double[] finalWeights = new double[users.size()];
+        simulator.simulate(WeightSimulator.Population.of(users), finalWeights);
+        pool.shutdown();
+
+        for (int i = 0; i < users.size(); i += 7) {
+            assertEquals(simulator.simulate(users.get(i))[3 * 365], finalWeights[i], 1e-9);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> simulator.simulate(WeightSimulator.Population.of(users), new double[1]));
+    }
+}